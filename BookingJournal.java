@@ -0,0 +1,790 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * A write-ahead journal of rentals.
+ * Every change of a rental (creating it, changing its dates or car, upgrading it or removing it)
+ * is appended to a binary file, and a change returns only after it was forced to the disk.
+ * Changes of threads that commit at the same time are written together with a single force
+ * (group commit): one thread writes the waiting changes of all the others.
+ * When the journal is opened, its file is replayed to rebuild the rentals; a record that was
+ * only partly written by a crash is dropped. When the file has many more records than rentals,
+ * it is compacted into one record per rental, after a record of the largest id given so far,
+ * so the id of a removed rental is never given again.
+ * A change is appended to the journal before it is applied to the rentals and told to the
+ * listeners, so a change that can not be journaled changes nothing.
+ * Listeners (for example RentalAggregates) are told about every change, in the order of the journal.
+ * <p>
+ * The file starts with a header (magic and version), followed by records of:
+ * body length (int), CRC32 of the body (int), and a body of kind (byte), rental id (long)
+ * and the details of the change.
+ * @author (agent)
+ * @version (18/10/2026)
+ */
+public class BookingJournal implements Closeable
+{
+    private static final int _MAGIC = 0x524A4E4C; // "RJNL"
+    private static final int _VERSION = 1;
+    private static final int _HEADER_SIZE = 8; // magic, version
+    private static final int _RECORD_HEADER_SIZE = 8; // length, CRC
+    private static final int _MAX_BODY_SIZE = 1 << 20;
+    private static final int _BUFFER_SIZE = 1 << 16;
+    private static final int _MIN_RECORDS_TO_COMPACT = 100000;
+    private static final int _RECORDS_PER_RENT_TO_COMPACT = 4;
+
+    private static final byte _PUT = 1; // a whole rental
+    private static final byte _DATES = 2; // pickup and return day numbers
+    private static final byte _CAR = 3; // a new car
+    private static final byte _REMOVE = 4;
+    private static final byte _LAST_ID = 5; // the largest id given so far, written by compact
+
+    private final Path _file;
+    private FileChannel _channel;
+    private final HashMap<Long, Rent> _rents;
+    private long _lastId;
+    private long _numOfRecords; // records in the file, including the ones that were not written yet
+
+    private ByteBuffer _pending; // records that were not written yet
+    private ByteBuffer _spare; // the other buffer, used while _pending is written
+    private long _appended; // number of records appended since the journal was opened
+    private long _synced; // number of those records that were forced to the disk
+    private boolean _flushing; // true while one thread writes the records of the others
+    private IOException _failure; // set when the journal can not be used any more
+    private final CRC32 _crc;
+    private final ArrayList<Listener> _listeners;
+
+    /**
+     * Receives the changes of the rentals of a journal
+     * The methods are called while the journal is locked, in the order of the changes,
+     * and must not change the given rentals.
+     */
+    public interface Listener
+    {
+        /**
+         * Receives a new rental
+         * @param id Rental id
+         * @param rent The new rental
+         */
+        void created(long id, Rent rent);
+
+        /**
+         * Receives a change of the dates or the car of a rental
+         * @param id Rental id
+         * @param before The rental before the change
+         * @param after The rental after the change
+         */
+        void changed(long id, Rent before, Rent after);
+
+        /**
+         * Receives an upgrade of a rental
+         * @param id Rental id
+         * @param before The rental before the upgrade
+         * @param after The rental after the upgrade
+         * @param cost Upgrade cost returned by Rent.upgrade
+         */
+        void upgraded(long id, Rent before, Rent after, int cost);
+
+        /**
+         * Receives a removed rental
+         * @param id Rental id
+         * @param rent The removed rental
+         */
+        void removed(long id, Rent rent);
+    }
+
+    /**
+     * Opens a journal, creating its file if it does not exist, and replays its records
+     * @param file Journal file
+     * @throws IOException If the file could not be read or written, or is not a journal file
+     */
+    public BookingJournal(Path file) throws IOException
+    {
+        _file = file;
+        _rents = new HashMap<Long, Rent>();
+        _pending = ByteBuffer.allocate(_BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        _spare = ByteBuffer.allocate(_BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        _crc = new CRC32();
+        _listeners = new ArrayList<Listener>();
+
+        _channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                                    StandardOpenOption.WRITE);
+        try
+        {
+            if (_channel.size() == 0)
+            {
+                writeFully(_channel, header());
+                _channel.force(true);
+            }
+            else
+            {
+                ByteBuffer header = ByteBuffer.allocate(_HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+                while (header.hasRemaining() && _channel.read(header) >= 0)
+                    ;
+                header.flip();
+                if (header.remaining() < _HEADER_SIZE || header.getInt() != _MAGIC || header.getInt() != _VERSION)
+                    throw new IOException("Not a booking journal file: " + file);
+
+                long end = replay();
+                if (end < _channel.size())
+                {
+                    _channel.truncate(end); // drop a record that was cut by a crash
+                    _channel.force(true);
+                }
+            }
+            _channel.position(_channel.size());
+        }
+        catch (IOException e)
+        {
+            _channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Adds a rental
+     * @param rent Rental to add (a copy of it is kept)
+     * @return The id of the new rental
+     * @throws IOException If the change could not be written
+     */
+    public long create(Rent rent) throws IOException
+    {
+        long seq;
+        long id;
+        synchronized (this)
+        {
+            checkFailure();
+            Rent copy = new Rent(rent);
+            seq = appendPut(_lastId + 1, copy); // written first, so a failure changes nothing
+            id = ++_lastId;
+            _rents.put(id, copy);
+            for (Listener listener : _listeners)
+                listener.created(id, copy);
+        }
+        commit(seq);
+        return id;
+    }
+
+    /**
+     * Sets the pickup date of a rental, with the rules of Rent.setPickDate
+     * @param id Rental id
+     * @param pickDate New pickup date
+     * @throws IOException If the change could not be written
+     */
+    public void setPickDate(long id, Date pickDate) throws IOException
+    {
+        long seq;
+        synchronized (this)
+        {
+            checkFailure();
+            Rent rent = find(id);
+            if (!pickDate.before(rent.getReturnDate()))
+                return; // Rent would ignore it
+            Rent changed = new Rent(rent);
+            changed.setPickDate(pickDate);
+            seq = appendDates(id, changed);
+            _rents.put(id, changed);
+            for (Listener listener : _listeners)
+                listener.changed(id, rent, changed);
+        }
+        commit(seq);
+    }
+
+    /**
+     * Sets the return date of a rental, with the rules of Rent.setReturnDate
+     * @param id Rental id
+     * @param returnDate New return date
+     * @throws IOException If the change could not be written
+     */
+    public void setReturnDate(long id, Date returnDate) throws IOException
+    {
+        long seq;
+        synchronized (this)
+        {
+            checkFailure();
+            Rent rent = find(id);
+            if (!returnDate.after(rent.getPickDate()))
+                return; // Rent would ignore it
+            Rent changed = new Rent(rent);
+            changed.setReturnDate(returnDate);
+            seq = appendDates(id, changed);
+            _rents.put(id, changed);
+            for (Listener listener : _listeners)
+                listener.changed(id, rent, changed);
+        }
+        commit(seq);
+    }
+
+    /**
+     * Sets the car of a rental
+     * @param id Rental id
+     * @param car New rented car
+     * @throws IOException If the change could not be written
+     */
+    public void setCar(long id, Car car) throws IOException
+    {
+        long seq;
+        synchronized (this)
+        {
+            checkFailure();
+            Rent rent = find(id);
+            Rent changed = new Rent(rent);
+            changed.setCar(car);
+            seq = appendCar(id, changed.getCar());
+            _rents.put(id, changed);
+            for (Listener listener : _listeners)
+                listener.changed(id, rent, changed);
+        }
+        commit(seq);
+    }
+
+    /**
+     * Upgrades the car of a rental, with the rules of Rent.upgrade
+     * @param id Rental id
+     * @param newCar New car to upgrade to
+     * @return The upgrade cost (0 if the car is not better and was not upgraded)
+     * @throws IOException If the change could not be written
+     */
+    public int upgrade(long id, Car newCar) throws IOException
+    {
+        long seq;
+        int cost;
+        synchronized (this)
+        {
+            checkFailure();
+            Rent rent = find(id);
+            if (!newCar.better(rent.getCar()))
+                return 0;
+            Rent changed = new Rent(rent);
+            cost = changed.upgrade(newCar);
+            seq = appendCar(id, changed.getCar());
+            _rents.put(id, changed);
+            for (Listener listener : _listeners)
+                listener.upgraded(id, rent, changed, cost);
+        }
+        commit(seq);
+        return cost;
+    }
+
+    /**
+     * Removes a rental
+     * @param id Rental id
+     * @return True if the rental was removed, false if there is no such rental
+     * @throws IOException If the change could not be written
+     */
+    public boolean remove(long id) throws IOException
+    {
+        long seq;
+        synchronized (this)
+        {
+            checkFailure();
+            Rent rent = _rents.get(id);
+            if (rent == null)
+                return false;
+            seq = append(_REMOVE, id, 0);
+            _rents.remove(id);
+            for (Listener listener : _listeners)
+                listener.removed(id, rent);
+        }
+        commit(seq);
+        return true;
+    }
+
+    /**
+     * Adds a listener of the changes of the rentals
+     * The listener is first told about every existing rental, as if it was just created.
+     * @param listener Listener to add
+     */
+    public synchronized void addListener(Listener listener)
+    {
+        for (Map.Entry<Long, Rent> entry : _rents.entrySet())
+            listener.created(entry.getKey(), entry.getValue());
+        _listeners.add(listener);
+    }
+
+    /**
+     * Removes a listener
+     * @param listener Listener to remove
+     */
+    public synchronized void removeListener(Listener listener)
+    {
+        _listeners.remove(listener);
+    }
+
+    /**
+     * Returns a rental
+     * @param id Rental id
+     * @return A copy of the rental, or null if there is no such rental
+     */
+    public synchronized Rent get(long id)
+    {
+        Rent rent = _rents.get(id);
+        return (rent == null) ? null : new Rent(rent);
+    }
+
+    /**
+     * Returns all the rentals
+     * @return Copies of the rentals by their ids
+     */
+    public synchronized HashMap<Long, Rent> getRents()
+    {
+        HashMap<Long, Rent> rents = new HashMap<Long, Rent>();
+        for (Map.Entry<Long, Rent> entry : _rents.entrySet())
+            rents.put(entry.getKey(), new Rent(entry.getValue()));
+        return rents;
+    }
+
+    /**
+     * Returns the number of rentals
+     * @return Number of rentals
+     */
+    public synchronized int size()
+    {
+        return _rents.size();
+    }
+
+    /**
+     * Rewrites the file with a single record for each rental
+     * The new file replaces the old one only after it was forced to the disk; if it could not be
+     * written, the old file and the journal are left as they were.
+     * Changes of other threads wait until the compaction ends.
+     * @throws IOException If the file could not be written
+     */
+    public synchronized void compact() throws IOException
+    {
+        waitForFlush();
+        checkFailure();
+
+        // the records are built in a buffer of their own, so a failure leaves the pending changes
+        ByteBuffer pending = _pending;
+        long appended = _appended;
+        long numOfRecords = _numOfRecords;
+        _pending = ByteBuffer.allocate(_BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+        Path temp = _file.resolveSibling(_file.getFileName() + ".compact");
+        try
+        {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                                        StandardOpenOption.TRUNCATE_EXISTING))
+            {
+                writeFully(channel, header());
+                append(_LAST_ID, _lastId, 0); // removed rentals leave no record, but their ids stay used
+                for (Map.Entry<Long, Rent> entry : _rents.entrySet())
+                {
+                    appendPut(entry.getKey(), entry.getValue());
+                    if (_pending.position() >= _BUFFER_SIZE)
+                    {
+                        _pending.flip();
+                        writeFully(channel, _pending);
+                        _pending.clear();
+                    }
+                }
+                _pending.flip();
+                writeFully(channel, _pending);
+                channel.force(true);
+            }
+            Files.move(temp, _file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        catch (IOException e)
+        {
+            // the old file is still whole, so the journal can go on as if nothing happened
+            _pending = pending;
+            _appended = appended;
+            _numOfRecords = numOfRecords;
+            try
+            {
+                Files.deleteIfExists(temp);
+            }
+            catch (IOException deleteFailure)
+            {
+                e.addSuppressed(deleteFailure);
+            }
+            throw e;
+        }
+
+        // the rentals already include every pending change
+        _pending = pending;
+        _pending.clear();
+        _numOfRecords = _rents.size() + 1;
+        _synced = _appended;
+        try
+        {
+            forceDirectory(_file.toAbsolutePath().getParent());
+            _channel.close();
+            _channel = FileChannel.open(_file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            _channel.position(_channel.size());
+        }
+        catch (IOException e)
+        {
+            _failure = e; // the new file is in place, but can not be appended to
+            throw e;
+        }
+        finally
+        {
+            notifyAll();
+        }
+    }
+
+    /**
+     * Writes the changes that were not written yet and closes the file
+     * @throws IOException If the changes could not be written
+     */
+    public synchronized void close() throws IOException
+    {
+        waitForFlush();
+        if (!_channel.isOpen())
+            return;
+
+        try
+        {
+            if (_failure == null && _pending.position() > 0)
+            {
+                _pending.flip();
+                writeFully(_channel, _pending);
+                _pending.clear();
+                _channel.force(false);
+                _synced = _appended;
+            }
+        }
+        finally
+        {
+            if (_failure == null)
+                _failure = new IOException("The booking journal is closed");
+            _channel.close();
+            notifyAll();
+        }
+    }
+
+    /**
+     * Waits until a record is forced to the disk, writing the pending records of all
+     * the threads if no other thread is writing them
+     */
+    private void commit(long seq) throws IOException
+    {
+        ByteBuffer batch;
+        long upTo;
+        synchronized (this)
+        {
+            while (_flushing && _synced < seq && _failure == null)
+                waitForChange();
+            if (_synced >= seq)
+                return;
+            checkFailure();
+
+            _flushing = true;
+            batch = _pending;
+            _pending = _spare;
+            _spare = null;
+            upTo = _appended;
+        }
+
+        IOException failure = null;
+        try
+        {
+            batch.flip();
+            writeFully(_channel, batch);
+            _channel.force(false);
+        }
+        catch (IOException e)
+        {
+            failure = e;
+        }
+
+        boolean compact;
+        synchronized (this)
+        {
+            batch.clear();
+            _spare = batch;
+            _flushing = false;
+            if (failure == null)
+                _synced = upTo;
+            else
+                _failure = failure;
+            notifyAll();
+            compact = _numOfRecords >= _MIN_RECORDS_TO_COMPACT
+                      && _numOfRecords > (long)_RECORDS_PER_RENT_TO_COMPACT * _rents.size();
+        }
+        if (failure != null)
+            throw failure;
+        if (compact)
+            compactIfNeeded();
+    }
+
+    private synchronized void compactIfNeeded() throws IOException
+    {
+        // checked again, another thread may have compacted already
+        if (_numOfRecords >= _MIN_RECORDS_TO_COMPACT
+            && _numOfRecords > (long)_RECORDS_PER_RENT_TO_COMPACT * _rents.size())
+            compact();
+    }
+
+    private void waitForFlush() throws IOException
+    {
+        while (_flushing)
+            waitForChange();
+    }
+
+    private void waitForChange() throws IOException
+    {
+        try
+        {
+            wait();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the booking journal");
+        }
+    }
+
+    private void checkFailure() throws IOException
+    {
+        if (_failure != null)
+            throw new IOException("The booking journal can not be used", _failure);
+    }
+
+    private Rent find(long id)
+    {
+        Rent rent = _rents.get(id);
+        if (rent == null)
+            throw new IllegalArgumentException("Unknown rental: " + id);
+        return rent;
+    }
+
+    private long appendPut(long id, Rent rent)
+    {
+        Car car = rent.getCar();
+        byte[] brand = car.getBrand().getBytes(StandardCharsets.UTF_8);
+        byte[] name = rent.getName().getBytes(StandardCharsets.UTF_8);
+        int start = begin(_PUT, id, 22 + brand.length + name.length);
+        putCar(car, brand);
+        _pending.putInt(rent.getPickDate().toEpochDay());
+        _pending.putInt(rent.getReturnDate().toEpochDay());
+        _pending.putInt(name.length).put(name);
+        return end(start);
+    }
+
+    private long appendDates(long id, Rent rent)
+    {
+        int start = begin(_DATES, id, 8);
+        _pending.putInt(rent.getPickDate().toEpochDay());
+        _pending.putInt(rent.getReturnDate().toEpochDay());
+        return end(start);
+    }
+
+    private long appendCar(long id, Car car)
+    {
+        byte[] brand = car.getBrand().getBytes(StandardCharsets.UTF_8);
+        int start = begin(_CAR, id, 10 + brand.length);
+        putCar(car, brand);
+        return end(start);
+    }
+
+    private long append(byte kind, long id, int size)
+    {
+        return end(begin(kind, id, size));
+    }
+
+    /**
+     * Starts a record in the pending buffer
+     * @return The position of the record
+     */
+    private int begin(byte kind, long id, int size)
+    {
+        int bodySize = 9 + size;
+        if (bodySize > _MAX_BODY_SIZE)
+            throw new IllegalArgumentException("Rental is too large to journal: " + id);
+        if (_pending.remaining() < _RECORD_HEADER_SIZE + bodySize)
+        {
+            int capacity = Math.max(_pending.capacity() * 2, _pending.position() + _RECORD_HEADER_SIZE + bodySize);
+            ByteBuffer larger = ByteBuffer.allocate(capacity).order(ByteOrder.LITTLE_ENDIAN);
+            _pending.flip();
+            larger.put(_pending);
+            _pending = larger;
+        }
+
+        int start = _pending.position();
+        _pending.putInt(bodySize).putInt(0); // the CRC is set by end
+        _pending.put(kind).putLong(id);
+        return start;
+    }
+
+    /**
+     * Ends a record that was started by begin
+     * @return The sequence number of the record
+     */
+    private long end(int start)
+    {
+        int end = _pending.position();
+        int limit = _pending.limit();
+        _pending.position(start + _RECORD_HEADER_SIZE).limit(end);
+        _crc.reset();
+        _crc.update(_pending);
+        _pending.limit(limit);
+        _pending.putInt(start + 4, (int)_crc.getValue());
+
+        _numOfRecords++;
+        return ++_appended;
+    }
+
+    private void putCar(Car car, byte[] brand)
+    {
+        _pending.putInt(car.getId());
+        _pending.put((byte)car.getType());
+        _pending.put((byte)(car.isManual() ? 1 : 0));
+        _pending.putInt(brand.length).put(brand);
+    }
+
+    /**
+     * Reads and applies the records of the file
+     * @return The position after the last complete record
+     */
+    private long replay() throws IOException
+    {
+        ByteBuffer buffer = ByteBuffer.allocate(_BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.flip();
+        long valid = _HEADER_SIZE;
+        boolean endOfFile = false;
+
+        while (true)
+        {
+            if (buffer.remaining() >= _RECORD_HEADER_SIZE)
+            {
+                int pos = buffer.position();
+                int length = buffer.getInt(pos);
+                if (length < 9 || length > _MAX_BODY_SIZE)
+                    break; // corrupted record
+                if (buffer.remaining() >= _RECORD_HEADER_SIZE + length)
+                {
+                    int crc = buffer.getInt(pos + 4);
+                    int next = pos + _RECORD_HEADER_SIZE + length;
+                    buffer.position(pos + _RECORD_HEADER_SIZE);
+                    int limit = buffer.limit();
+                    buffer.limit(next);
+                    _crc.reset();
+                    _crc.update(buffer);
+                    buffer.limit(limit);
+                    if ((int)_crc.getValue() != crc)
+                        break;
+
+                    buffer.position(pos + _RECORD_HEADER_SIZE);
+                    try
+                    {
+                        apply(buffer);
+                    }
+                    catch (BufferUnderflowException e)
+                    {
+                        break;
+                    }
+                    buffer.position(next);
+                    valid += _RECORD_HEADER_SIZE + length;
+                    continue;
+                }
+                if (_RECORD_HEADER_SIZE + length > buffer.capacity())
+                {
+                    ByteBuffer larger = ByteBuffer.allocate(_RECORD_HEADER_SIZE + length).order(ByteOrder.LITTLE_ENDIAN);
+                    larger.put(buffer);
+                    larger.flip();
+                    buffer = larger;
+                }
+            }
+            if (endOfFile)
+                break;
+            buffer.compact();
+            if (_channel.read(buffer) < 0)
+                endOfFile = true;
+            buffer.flip();
+        }
+        return valid;
+    }
+
+    /**
+     * Applies a record body to the rentals
+     */
+    private void apply(ByteBuffer body)
+    {
+        byte kind = body.get();
+        long id = body.getLong();
+        _lastId = Math.max(_lastId, id); // a _LAST_ID record has nothing more to apply
+        _numOfRecords++;
+
+        Rent rent = _rents.get(id);
+        if (kind == _PUT)
+        {
+            Car car = readCar(body);
+            Date pick = Date.fromEpochDay(body.getInt());
+            Date ret = Date.fromEpochDay(body.getInt());
+            _rents.put(id, new Rent(readString(body), car, pick, ret));
+        }
+        else if (kind == _DATES && rent != null)
+        {
+            Date pick = Date.fromEpochDay(body.getInt());
+            Date ret = Date.fromEpochDay(body.getInt());
+            _rents.put(id, new Rent(rent.getName(), rent.getCar(), pick, ret));
+        }
+        else if (kind == _CAR && rent != null)
+            rent.setCar(readCar(body));
+        else if (kind == _REMOVE)
+            _rents.remove(id);
+    }
+
+    private static Car readCar(ByteBuffer body)
+    {
+        int id = body.getInt();
+        char type = (char)body.get();
+        boolean isManual = body.get() != 0;
+        return new Car(id, type, readString(body), isManual);
+    }
+
+    private static String readString(ByteBuffer body)
+    {
+        int length = body.getInt();
+        if (length < 0 || length > body.remaining())
+            throw new BufferUnderflowException();
+        byte[] bytes = new byte[length];
+        body.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static ByteBuffer header()
+    {
+        ByteBuffer header = ByteBuffer.allocate(_HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(_MAGIC).putInt(_VERSION);
+        header.flip();
+        return header;
+    }
+
+    /**
+     * Forces a directory, so a renamed file inside it survives a crash (not possible on every system)
+     */
+    private static void forceDirectory(Path directory)
+    {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ))
+        {
+            channel.force(true);
+        }
+        catch (IOException e)
+        {
+            // the rename is still atomic, only its durability is not forced
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException
+    {
+        while (buffer.hasRemaining())
+            channel.write(buffer);
+    }
+}
@@ -0,0 +1,178 @@
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A thread safe booking service.
+ * A booking is committed only if it does not overlap another booking of the same car id.
+ * Like Rent.overlap, a rental period includes both its pickup and return days.
+ * Instead of one global lock, every car id is mapped to one of many locks (lock striping),
+ * so bookings of different cars almost never wait for each other.
+ * @author (agent)
+ * @version (18/10/2026)
+ */
+public class BookingService
+{
+    private final Object[] _locks;
+    private final int _mask; // number of locks - 1 (the number of locks is a power of 2)
+    private final ConcurrentHashMap<Integer, TreeMap<Integer, Booking>> _bookings; // car id -> pickup day -> rent
+    private final AtomicInteger _size;
+
+    /**
+     * Represents a committed booking
+     */
+    private static class Booking
+    {
+        private Rent _rent;
+        private int _returnDay; // return day number, kept to check overlaps without copying dates
+
+        private Booking(Rent rent, int returnDay)
+        {
+            _rent = rent;
+            _returnDay = returnDay;
+        }
+    }
+
+    /**
+     * Initialize a booking service with 4 locks for each available processor
+     */
+    public BookingService()
+    {
+        this(Runtime.getRuntime().availableProcessors() * 4);
+    }
+
+    /**
+     * Initialize a booking service
+     * @param numOfLocks Number of locks (rounded up to a power of 2)
+     */
+    public BookingService(int numOfLocks)
+    {
+        int size = Integer.highestOneBit(Math.max(numOfLocks, 1) - 1) << 1;
+        size = Math.max(size, 1);
+        _locks = new Object[size];
+        for (int i = 0; i < size; i++)
+            _locks[i] = new Object();
+        _mask = size - 1;
+        _bookings = new ConcurrentHashMap<Integer, TreeMap<Integer, Booking>>();
+        _size = new AtomicInteger();
+    }
+
+    /**
+     * Books a car, only if it is free for the whole rental
+     * The rental is built like a Rent object, so a return date that is not after the pickup
+     * date becomes the day after the pickup date
+     * @param name Customer name
+     * @param car Car to book
+     * @param pick Pickup date
+     * @param ret Return date
+     * @return The booked rent, or null if it overlaps another booking of the car
+     */
+    public Rent book(String name, Car car, Date pick, Date ret)
+    {
+        Rent rent = new Rent(name, car, pick, ret);
+        int pickDay = rent.getPickDate().toEpochDay();
+        int returnDay = rent.getReturnDate().toEpochDay();
+
+        synchronized (lockOf(car.getId()))
+        {
+            TreeMap<Integer, Booking> bookings = _bookings.get(car.getId());
+            if (bookings == null)
+            {
+                bookings = new TreeMap<Integer, Booking>();
+                _bookings.put(car.getId(), bookings);
+            }
+            if (overlaps(bookings, pickDay, returnDay))
+                return null;
+
+            bookings.put(pickDay, new Booking(rent, returnDay));
+        }
+        _size.incrementAndGet();
+        return new Rent(rent);
+    }
+
+    /**
+     * Cancels a booking
+     * @param rent Booked rent (the same car id and dates)
+     * @return True if the booking was found and canceled
+     */
+    public boolean cancel(Rent rent)
+    {
+        int carId = rent.getCar().getId();
+        synchronized (lockOf(carId))
+        {
+            TreeMap<Integer, Booking> bookings = _bookings.get(carId);
+            if (bookings == null)
+                return false;
+
+            Booking booked = bookings.get(rent.getPickDate().toEpochDay());
+            if (booked == null || !booked._rent.equals(rent))
+                return false;
+            bookings.remove(rent.getPickDate().toEpochDay());
+        }
+        _size.decrementAndGet();
+        return true;
+    }
+
+    /**
+     * Checks if a car is free for a whole period
+     * @param carId Car license number
+     * @param pick Pickup date
+     * @param ret Return date
+     * @return True if the car has no booking that overlaps the period
+     */
+    public boolean isAvailable(int carId, Date pick, Date ret)
+    {
+        synchronized (lockOf(carId))
+        {
+            TreeMap<Integer, Booking> bookings = _bookings.get(carId);
+            return bookings == null || !overlaps(bookings, pick.toEpochDay(), ret.toEpochDay());
+        }
+    }
+
+    /**
+     * Returns the bookings of a car
+     * @param carId Car license number
+     * @return List of the bookings, ordered by pickup date (empty if there are none)
+     */
+    public ArrayList<Rent> bookingsOf(int carId)
+    {
+        ArrayList<Rent> result = new ArrayList<Rent>();
+        synchronized (lockOf(carId))
+        {
+            TreeMap<Integer, Booking> bookings = _bookings.get(carId);
+            if (bookings != null)
+                for (Booking booking : bookings.values())
+                    result.add(new Rent(booking._rent));
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of bookings
+     * @return Number of bookings
+     */
+    public int size()
+    {
+        return _size.get();
+    }
+
+    private Object lockOf(int carId)
+    {
+        // spread the bits of the id, since ids of the same fleet are often close
+        int hash = carId * 0x9E3779B9;
+        return _locks[(hash ^ (hash >>> 16)) & _mask];
+    }
+
+    /**
+     * Checks if a period overlaps one of the bookings
+     * The bookings do not overlap each other, so only the closest booking that starts on or
+     * before the return day has to be checked
+     */
+    private static boolean overlaps(TreeMap<Integer, Booking> bookings, int pickDay, int returnDay)
+    {
+        Map.Entry<Integer, Booking> before = bookings.floorEntry(returnDay);
+        return before != null && before.getValue()._returnDay >= pickDay;
+    }
+}
@@ -1,3 +1,5 @@
+import java.nio.ByteBuffer;
+
 
 /**
  * Represents a car,
@@ -11,8 +13,8 @@ public class Car
     private String _brand;
     private boolean _isManual; //gear-type
     
-    private final int _DEFAULT_ID = 9999999;
-    private final char _DEFAULT_TYPE = 'A';
+    private static final int _DEFAULT_ID = 9999999;
+    private static final char _DEFAULT_TYPE = 'A';
     
     /**
      * Initialize a car object
@@ -26,18 +28,24 @@ public class Car
     public Car(int id, char type, String brand, boolean isManual)
     {
         //Checking whether the received id is 7 digit long, otherwise set it to 9999999
-        if (id >= 1000000 && id < 10000000) 
+        if (isValidId(id)) 
             _id = id;
         else
+        {
             _id = _DEFAULT_ID;
+            Metrics.invalidCarIds().increment();
+        }
         
         //Checking whether the type value is valid, otherwise set it to 'A'
-        if (type == 'A' || type == 'B' || type == 'C' || type == 'D') 
+        if (isValidType(type)) 
             _type = type;
         else
+        {
             _type = _DEFAULT_TYPE;
+            Metrics.invalidCarTypes().increment();
+        }
         
-        _brand = brand;
+        _brand = Interner.brands().intern(brand); // equal brands share a single String
         
         _isManual = isManual;    
     }
@@ -54,6 +62,26 @@ public class Car
         _isManual = other._isManual;
     }
     
+    /**
+     * Checks that an id is a valid license number (7 digits long)
+     * @param id License number to check
+     * @return True if the id is valid
+     */
+    static boolean isValidId(int id)
+    {
+        return id >= 1000000 && id < 10000000;
+    }
+    
+    /**
+     * Checks that a type is a valid category type ('A','B','C' or 'D')
+     * @param type Category type to check
+     * @return True if the type is valid
+     */
+    static boolean isValidType(char type)
+    {
+        return type == 'A' || type == 'B' || type == 'C' || type == 'D';
+    }
+    
     /**
      * Returns car's id number
      * @return Car id number
@@ -97,7 +125,7 @@ public class Car
     public void setId(int id)
     {
         //Checking whether the received id is 7 digit long, otherwise id won't be changed
-        if (id >= 1000000 && id < 10000000)
+        if (isValidId(id))
             _id = id;
     }
     
@@ -108,7 +136,7 @@ public class Car
     public void setType(char type)
     {
         //Checking whether the type value is valid, otherwise type won't be changed
-        if (type == 'A' || type == 'B' || type == 'C' || type == 'D')
+        if (isValidType(type))
             _type = type;
     }
     
@@ -118,7 +146,7 @@ public class Car
      */
     public void setBrand(String brand)
     {
-        _brand = brand;
+        _brand = Interner.brands().intern(brand);
     }
     
     /**
@@ -136,11 +164,35 @@ public class Car
      */
     public String toString()
     {
-        String gear = "auto"; // String that represents the gear type of the car
-        if (_isManual)            
-            gear = "manual";
-            
-        return "id:" + _id + " type:" + _type + " brand:" + _brand + " gear:" + gear; 
+        StringBuilder out = new StringBuilder(48);
+        formatTo(out);
+        return out.toString();
+    }
+    
+    /**
+     * Appends this car in the format of toString
+     * @param out Builder to append to
+     */
+    public void formatTo(StringBuilder out)
+    {
+        out.append("id:").append(_id).append(" type:").append(_type).append(" brand:").append(_brand);
+        out.append(" gear:").append(_isManual ? "manual" : "auto");
+    }
+    
+    /**
+     * Writes this car in the format of toString, as UTF-8 bytes
+     * @param out Buffer to write to
+     * @throws java.nio.BufferOverflowException If the buffer is too small
+     */
+    public void formatTo(ByteBuffer out)
+    {
+        TextFormat.putString(out, "id:");
+        TextFormat.putInt(out, _id);
+        TextFormat.putString(out, " type:");
+        out.put((byte)_type);
+        TextFormat.putString(out, " brand:");
+        TextFormat.putString(out, _brand);
+        TextFormat.putString(out, _isManual ? " gear:manual" : " gear:auto");
     }
     
     /**
@@ -152,10 +204,32 @@ public class Car
     public boolean equals (Car other)
     {
         // returning true only if they have the same type, brand and gear 
-        return (_type == other._type && _brand.equals(other._brand) 
+        // (brands are interned, so equal brands are almost always the same String)
+        return (_type == other._type && Interner.same(_brand, other._brand) 
                 && _isManual == other._isManual);
     }
     
+    /**
+     * Checks if this car is the same as another object
+     * The rules are the same of the "equals" method that receives a car
+     * @param obj Object to compare this car to
+     * @return True if the object is a car with the same type, brand and gear, otherwise - false
+     */
+    public boolean equals (Object obj)
+    {
+        return (obj instanceof Car) && equals((Car)obj);
+    }
+    
+    /**
+     * Returns a hash code of this car, based on the same fields as equals (type, brand and gear)
+     * @return Hash code of this car
+     */
+    public int hashCode ()
+    {
+        int hash = 31 * _type + ((_brand == null) ? 0 : _brand.hashCode());
+        return 31 * hash + (_isManual ? 1 : 0);
+    }
+    
     /**
      * Checks if this car is better than another car
      * a car is considered better than another car if its type is higher.
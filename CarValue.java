@@ -0,0 +1,206 @@
+
+/**
+ * Represents an immutable car
+ * A CarValue never changes after it is created, so it can be shared without copying.
+ * Instead of setters it has "with" methods that return a changed copy.
+ * @author (agent)
+ * @version (18/10/2026)
+ */
+public final class CarValue
+{
+    private final int _id;  //license number
+    private final char _type;  //category type
+    private final String _brand;
+    private final boolean _isManual; //gear-type
+
+    private static final int _DEFAULT_ID = 9999999;
+    private static final char _DEFAULT_TYPE = 'A';
+
+    /**
+     * Initialize a car value
+     * id should be a 7 digits number, otherwise would set it to 9999999.
+     * type should be 'A','B','C' or 'D', otherwise would set it to 'A'
+     * @param id Car license number
+     * @param type Car category type
+     * @param brand Car's brand
+     * @param isManual Car gear-type, true if gear is manual
+     */
+    public CarValue(int id, char type, String brand, boolean isManual)
+    {
+        _id = Car.isValidId(id) ? id : _DEFAULT_ID;
+        _type = Car.isValidType(type) ? type : _DEFAULT_TYPE;
+        _brand = Interner.brands().intern(brand);
+        _isManual = isManual;
+    }
+
+    /**
+     * Initialize a car value with the same details as a mutable car
+     * @param car Car to be copied
+     */
+    public CarValue(Car car)
+    {
+        _id = car.getId();
+        _type = car.getType();
+        _brand = car.getBrand();
+        _isManual = car.isManual();
+    }
+
+    /**
+     * Returns a new mutable car with the same details
+     * @return Car with the same details
+     */
+    public Car toCar()
+    {
+        return new Car(_id, _type, _brand, _isManual);
+    }
+
+    /**
+     * Returns car's id number
+     * @return Car id number
+     */
+    public int getId()
+    {
+        return _id;
+    }
+
+    /**
+     * Returns car's type
+     * @return Car type
+     */
+    public char getType()
+    {
+        return _type;
+    }
+
+    /**
+     * Returns car's brand
+     * @return Car brand
+     */
+    public String getBrand()
+    {
+        return _brand;
+    }
+
+    /**
+     * Returns whether car's gear is manual or not
+     * @return True if gear is manual, otherwise - false
+     */
+    public boolean isManual()
+    {
+        return _isManual;
+    }
+
+    /**
+     * Returns a car with a different id (only if the new id is valid)
+     * @param id New id number
+     * @return Car with the new id, or this car if the id is not valid
+     */
+    public CarValue withId(int id)
+    {
+        if (!Car.isValidId(id) || id == _id)
+            return this;
+        return new CarValue(id, _type, _brand, _isManual);
+    }
+
+    /**
+     * Returns a car with a different type (only if the new type is valid)
+     * @param type New type value
+     * @return Car with the new type, or this car if the type is not valid
+     */
+    public CarValue withType(char type)
+    {
+        if (!Car.isValidType(type) || type == _type)
+            return this;
+        return new CarValue(_id, type, _brand, _isManual);
+    }
+
+    /**
+     * Returns a car with a different brand
+     * @param brand New brand value
+     * @return Car with the new brand
+     */
+    public CarValue withBrand(String brand)
+    {
+        return new CarValue(_id, _type, brand, _isManual);
+    }
+
+    /**
+     * Returns a car with a different gear type
+     * @param isManual New value of the isManual flag
+     * @return Car with the new gear type
+     */
+    public CarValue withIsManual(boolean isManual)
+    {
+        if (isManual == _isManual)
+            return this;
+        return new CarValue(_id, _type, _brand, isManual);
+    }
+
+    /**
+     * Returns a String object that represents this car
+     * @return String that represents a car in this format: id:1234567 type:A brand:Mazda gear:manual
+     */
+    public String toString()
+    {
+        return "id:" + _id + " type:" + _type + " brand:" + _brand + " gear:" + (_isManual ? "manual" : "auto");
+    }
+
+    /**
+     * Checks if two cars are the same
+     * Cars are considered the same if they have the same type, brand and gear
+     * @param other Car to compare this car to
+     * @return True if the cars are the same, otherwise - false
+     */
+    public boolean equals(CarValue other)
+    {
+        return (_type == other._type && Interner.same(_brand, other._brand)
+                && _isManual == other._isManual);
+    }
+
+    /**
+     * Checks if this car is the same as another object
+     * The rules are the same of the "equals" method that receives a car
+     * @param obj Object to compare this car to
+     * @return True if the object is a car with the same type, brand and gear, otherwise - false
+     */
+    public boolean equals(Object obj)
+    {
+        return (obj instanceof CarValue) && equals((CarValue)obj);
+    }
+
+    /**
+     * Returns a hash code of this car, based on the same fields as equals (type, brand and gear)
+     * The hash code is the same as the hash code of the same Car
+     * @return Hash code of this car
+     */
+    public int hashCode()
+    {
+        int hash = 31 * _type + ((_brand == null) ? 0 : _brand.hashCode());
+        return 31 * hash + (_isManual ? 1 : 0);
+    }
+
+    /**
+     * Checks if this car is better than another car
+     * The rules are the same of the "better" method of Car
+     * @param other Car to compare this car to
+     * @return True if this car is better than the other car, otherwise - false
+     */
+    public boolean better(CarValue other)
+    {
+        if (_type == other._type)
+            return !_isManual && other._isManual;
+
+        return (_type > other._type);
+    }
+
+    /**
+     * Check if this car is worse than the another car.
+     * The rules are the same of the "better" method
+     * @param other Car to compare this car to
+     * @return True if this car is worse than the other car, otherwise - false
+     */
+    public boolean worse(CarValue other)
+    {
+        return other.better(this);
+    }
+}
@@ -1,3 +1,4 @@
+import java.nio.ByteBuffer;
 
 /**
  * Represents a Date
@@ -10,11 +11,31 @@ public class Date
     private int _day = 1; 
     private int _month = 1;
     private int _year = 2000;
-    // four different options to last day in a month
-    private final int _MAX_DAY_OP1 = 31;
-    private final int _MAX_DAY_OP2 = 30;
-    private final int _MAX_DAY_OP3 = 28;
-    private final int _MAX_DAY_OP4 = 29;
+    private int _dayNumber = calculateDate(1, 1, 2000); // day number of the date, kept in sync with the fields
+    
+    // calendar tables for the valid years, so validating and converting a date are table lookups
+    private static final int _MIN_YEAR = 1000;
+    private static final int _MAX_YEAR = 9999;
+    private static final int[][] _DAYS_IN_MONTH = { // [leap][month], month 0 is not used
+        {0, 31, 28, 31, 30, 31, 30, 31, 31, 30, 31, 30, 31},
+        {0, 31, 29, 31, 30, 31, 30, 31, 31, 30, 31, 30, 31}};
+    private static final int[][] _DAYS_BEFORE_MONTH = new int[2][13]; // [leap][month], days from January 1st
+    private static final long[] _LEAP_YEARS = new long[(_MAX_YEAR - _MIN_YEAR + 64) / 64]; // bit per year
+    private static final int[] _YEAR_START = new int[_MAX_YEAR - _MIN_YEAR + 2]; // day number of January 1st
+    
+    static
+    {
+        for (int leap = 0; leap < 2; leap++)
+            for (int month = 2; month <= 12; month++)
+                _DAYS_BEFORE_MONTH[leap][month] = _DAYS_BEFORE_MONTH[leap][month - 1] + _DAYS_IN_MONTH[leap][month - 1];
+        
+        for (int year = _MIN_YEAR; year <= _MAX_YEAR + 1; year++)
+        {
+            _YEAR_START[year - _MIN_YEAR] = calculateByFormula(1, 1, year);
+            if (year <= _MAX_YEAR && (((year % 4 == 0) && (year % 100 != 0)) || (year % 400 == 0)))
+                _LEAP_YEARS[(year - _MIN_YEAR) >> 6] |= 1L << (year - _MIN_YEAR);
+        }
+    }
     
     /**
      * Initialze a new Date object if the given date is valid, otherwise initialize the date 1/1/2000
@@ -29,7 +50,29 @@ public class Date
             _day = day;
             _month = month; 
             _year = year;
+            _dayNumber = calculateDate(day, month, year);
         }
+        else
+            Metrics.invalidDates().increment();
+    }
+    
+    /**
+     * Initialize a date that is already known to be valid, with its day number
+     */
+    private Date(int day, int month, int year, int dayNumber)
+    {
+        _day = day;
+        _month = month;
+        _year = year;
+        _dayNumber = dayNumber;
+    }
+    
+    /**
+     * Returns a new date of the default date 1/1/2000, without counting it as an invalid date
+     */
+    private static Date defaultDate()
+    {
+        return new Date(1, 1, 2000, calculateDate(1, 1, 2000));
     }
     
     /**
@@ -41,6 +84,7 @@ public class Date
         _day = other._day;
         _month = other._month;
         _year = other._year;
+        _dayNumber = other._dayNumber;
     }
     
     /**
@@ -50,45 +94,24 @@ public class Date
      * @param year Year in the date
      * @return True if the date is valid
      */
-    private boolean isValidDate (int day, int month, int year)
-    {
-        if (year >= 1000 && year <= 9999) //check that the year value is 4 digid long
-            if (month >= 1 && month <= 12) //check the month value
-                if (day > 0) 
-                {
-                    //check if the day value is lower than 28, if so the date is valid
-                    if (day <= _MAX_DAY_OP3) 
-                        return true;
-                        
-                    //check if day value is highr from the last day in the given month
-                    switch(month)
-                    {
-                        case 1:
-                        case 3:
-                        case 5:
-                        case 7:
-                        case 8:
-                        case 10:
-                        case 12:
-                             if (day <= _MAX_DAY_OP1) 
-                                 return true; 
-                            
-                        case 4:
-                        case 6:
-                        case 9:
-                        case 11:
-                             if (day <= _MAX_DAY_OP2)
-                                 return true;
-                            
-                        case 2:
-                            if (day == _MAX_DAY_OP4)
-                                // check what is the last day of February in the given year
-                                if (((year % 4 == 0) && (year % 100 != 0)) || (year % 400 == 0))
-                                    return true;
-                    }
-                }
+    static boolean isValidDate (int day, int month, int year)
+    {
+        // every range is checked with a single unsigned comparison:
+        // a value below the range becomes a huge unsigned number
+        if (Integer.compareUnsigned(year - _MIN_YEAR, _MAX_YEAR - _MIN_YEAR + 1) >= 0 // 4 digits year
+            || Integer.compareUnsigned(month - 1, 12) >= 0)
+            return false;
         
-        return false;
+        // check that the day is between 1 and the last day of the month in the given year
+        return Integer.compareUnsigned(day - 1, _DAYS_IN_MONTH[leap(year)][month]) < 0;
+    }
+    
+    /**
+     * Returns 1 for a leap year and 0 otherwise (the year must be valid)
+     */
+    private static int leap (int year)
+    {
+        return (int)(_LEAP_YEARS[(year - _MIN_YEAR) >> 6] >>> (year - _MIN_YEAR)) & 1;
     }
     
     /** 
@@ -98,7 +121,18 @@ public class Date
      * @param year Year in the date
      * @return Number of days that past since the beginning of the Christian counting of years
      */
-    private int calculateDate (int day, int month, int year)
+    private static int calculateDate (int day, int month, int year)
+    {
+        // the tables give the same numbers as the formula
+        if (year >= _MIN_YEAR && year <= _MAX_YEAR && month >= 1 && month <= 12)
+            return _YEAR_START[year - _MIN_YEAR] + _DAYS_BEFORE_MONTH[leap(year)][month] + day - 1;
+        return calculateByFormula(day, month, year);
+    }
+    
+    /**
+     * Computes the day number of any date with the formula of the Christian calendar
+     */
+    private static int calculateByFormula (int day, int month, int year)
     {
         if (month < 3) 
         {
@@ -107,6 +141,107 @@ public class Date
         }
         return 365 * year + year/4 - year/100 + year/400 + ((month+1) * 306)/10 + (day - 62);
     } 
+    
+    /**
+     * Computes the day number of a date without creating a Date object
+     * The day number is the same one used by difference, so subtracting two day numbers
+     * gives the number of days between the dates. The date is not validated.
+     * @param day Day in the date
+     * @param month Month in the date
+     * @param year Year in the date
+     * @return Number of days that past since the beginning of the Christian counting of years
+     */
+    public static int toEpochDay (int day, int month, int year)
+    {
+        return calculateDate(day, month, year);
+    }
+    
+    /**
+     * Creates the date of a given day number (the opposite of toEpochDay)
+     * @param dayNumber Number of days since the beginning of the Christian counting of years
+     * @return The date of that day number (1/1/2000 if it is out of the valid years)
+     */
+    public static Date fromEpochDay (int dayNumber)
+    {
+        if (!isValidEpochDay(dayNumber))
+            return defaultDate(); // not a valid year
+        
+        int year = yearOf(dayNumber);
+        int dayOfYear = dayNumber - _YEAR_START[year - _MIN_YEAR];
+        int month = monthOf(year, dayOfYear);
+        return new Date(dayOfYear - _DAYS_BEFORE_MONTH[leap(year)][month] + 1, month, year, dayNumber);
+    }
+    
+    /**
+     * Checks that a day number is the day number of a valid date
+     * @param dayNumber Number of days since the beginning of the Christian counting of years
+     * @return True if the day is in the valid years
+     */
+    static boolean isValidEpochDay (int dayNumber)
+    {
+        return dayNumber >= _YEAR_START[0] && dayNumber < _YEAR_START[_MAX_YEAR + 1 - _MIN_YEAR];
+    }
+    
+    /**
+     * Returns the month of a valid day number, counted as year * 12 + month - 1
+     * so that the month after it is the next number
+     * @param dayNumber Day number of a valid date
+     * @return Month count of the day
+     */
+    static int monthCountOf (int dayNumber)
+    {
+        int year = yearOf(dayNumber);
+        return year * 12 + monthOf(year, dayNumber - _YEAR_START[year - _MIN_YEAR]) - 1;
+    }
+    
+    /**
+     * Returns the day number of the first day of a month counted as in monthCountOf
+     * @param monthCount Month count, up to the month after the last valid month
+     * @return Day number of the first day of the month
+     */
+    static int firstDayOfMonthCount (int monthCount)
+    {
+        int year = monthCount / 12;
+        if (year > _MAX_YEAR)
+            return _YEAR_START[_MAX_YEAR + 1 - _MIN_YEAR];
+        return _YEAR_START[year - _MIN_YEAR] + _DAYS_BEFORE_MONTH[leap(year)][monthCount % 12 + 1];
+    }
+    
+    /**
+     * Returns the year of a valid day number
+     */
+    private static int yearOf (int dayNumber)
+    {
+        // estimate the year by the average length of a year, then correct it by the table
+        int year = _MIN_YEAR + (int)((dayNumber - _YEAR_START[0]) * 400L / 146097);
+        while (year < _MAX_YEAR && _YEAR_START[year + 1 - _MIN_YEAR] <= dayNumber)
+            year++;
+        while (_YEAR_START[year - _MIN_YEAR] > dayNumber)
+            year--;
+        return year;
+    }
+    
+    /**
+     * Returns the month (1 to 12) of a day of a year, counted from 0 for January 1st
+     */
+    private static int monthOf (int year, int dayOfYear)
+    {
+        // the month is either the estimate or the month after it
+        int[] daysBeforeMonth = _DAYS_BEFORE_MONTH[leap(year)];
+        int month = dayOfYear / 32 + 1;
+        if (month < 12 && dayOfYear >= daysBeforeMonth[month + 1])
+            month++;
+        return month;
+    }
+    
+    /**
+     * Returns the day number of this date
+     * @return Number of days that past since the beginning of the Christian counting of years
+     */
+    public int toEpochDay ()
+    {
+        return _dayNumber;
+    }
         
     /**
      * Returns the day
@@ -142,7 +277,10 @@ public class Date
     public void setDay(int dayToSet)
     {
          if (isValidDate(dayToSet, _month, _year))
+         {
              _day = dayToSet;
+             _dayNumber = calculateDate(_day, _month, _year);
+         }
     }
     
     /**
@@ -152,7 +290,10 @@ public class Date
     public void setMonth(int monthToSet)
     {
          if (isValidDate(_day, monthToSet, _year))
+         {
              _month = monthToSet;
+             _dayNumber = calculateDate(_day, _month, _year);
+         }
     }
     
     /**
@@ -162,7 +303,10 @@ public class Date
     public void setYear(int yearToSet)
     {
          if (isValidDate(_day, _month, yearToSet))
+         {
              _year = yearToSet;
+             _dayNumber = calculateDate(_day, _month, _year);
+         }
     }
         
     /**
@@ -172,7 +316,26 @@ public class Date
      */
     public boolean equals(Date other)
     {
-        return (_day == other._day && _month == other._month && _year == other._year);
+        return _dayNumber == other._dayNumber;
+    }
+    
+    /**
+     * Checks if this date is the same as another object
+     * @param obj Object to compare this date to
+     * @return True if the object is a date with the same day, month and year, otherwise - false
+     */
+    public boolean equals(Object obj)
+    {
+        return (obj instanceof Date) && equals((Date)obj);
+    }
+    
+    /**
+     * Returns a hash code of this date
+     * @return Hash code of this date
+     */
+    public int hashCode()
+    {
+        return _dayNumber;
     }
     
     /**
@@ -182,22 +345,7 @@ public class Date
      */
     public boolean before (Date other)
     {
-        if(_year < other._year)
-            return true;
- 
-        if((_year > other._year))
-            return false;
-            
-        if((_month < other._month))
-            return true;
-            
-        if((_month > other._month))
-            return false;
-
-        if(_day < other._day)
-            return true;
-            
-        return false;
+        return _dayNumber < other._dayNumber;
     }
     
     /**
@@ -218,8 +366,7 @@ public class Date
     public int difference (Date other)
     {
         // compare the difference using the number of days that past since the beginning of counting and the 2 dates
-        return Math.abs(((calculateDate(_day, _month, _year)) -
-               (calculateDate(other._day, other._month, other._year))));
+        return Math.abs(_dayNumber - other._dayNumber);
     }
     
     /**
@@ -229,16 +376,69 @@ public class Date
      */
     public String toString ()
     {
-        String day = String.valueOf(_day);
-        String month = String.valueOf(_month);
-        
-        // checks if the day and month value are 2 digit long, if not add "0" before the value of its string representaion 
-        if (_day < 10) 
-            day = "0" + day;
-        if (_month < 10)
-            month = "0" + month;    
-        
-        return day + "/" + month + "/" + _year;
+        StringBuilder out = new StringBuilder(10);
+        formatTo(out);
+        return out.toString();
+    }
+    
+    /**
+     * Appends this date in the format of toString, digit by digit
+     * @param out Builder to append to
+     */
+    public void formatTo (StringBuilder out)
+    {
+        // the day and month are always 2 digits long, with a leading "0" if needed
+        out.append((char)('0' + _day / 10)).append((char)('0' + _day % 10)).append('/');
+        out.append((char)('0' + _month / 10)).append((char)('0' + _month % 10)).append('/');
+        out.append(_year);
+    }
+    
+    /**
+     * Writes this date in the format of toString, as ASCII bytes
+     * @param out Buffer to write to
+     * @throws java.nio.BufferOverflowException If the buffer is too small
+     */
+    public void formatTo (ByteBuffer out)
+    {
+        TextFormat.putTwoDigits(out, _day);
+        out.put((byte)'/');
+        TextFormat.putTwoDigits(out, _month);
+        out.put((byte)'/');
+        TextFormat.putInt(out, _year);
+    }
+    
+    /**
+     * Calculates the date a number of days after this date
+     * If the new date is out of the valid years (1000 to 9999), no error is reported:
+     * 1/1/2000 is silently returned instead
+     * @param days Number of days to add (may be negative)
+     * @return The new date (1/1/2000 if it is out of the valid years)
+     */
+    public Date plusDays (int days)
+    {
+        return fromEpochDay(_dayNumber + days);
+    }
+    
+    /**
+     * Calculates the date a number of days before this date
+     * Like plusDays, a new date out of the valid years silently becomes 1/1/2000
+     * @param days Number of days to subtract (may be negative)
+     * @return The new date (1/1/2000 if it is out of the valid years)
+     */
+    public Date minusDays (int days)
+    {
+        return fromEpochDay(_dayNumber - days);
+    }
+    
+    /**
+     * Calculates the number of days from this date to another date
+     * Unlike difference, the result is negative if the other date is before this date
+     * @param other Date to count the days to
+     * @return Number of days from this date to the other date
+     */
+    public int daysUntil (Date other)
+    {
+        return other._dayNumber - _dayNumber;
     }
     
     /**
@@ -248,16 +448,19 @@ public class Date
     public Date tomorrow()
     {
         // checks if the next day for the given date is in the given month
-        if(isValidDate (_day + 1, _month, _year)) 
-            return new Date(_day + 1, _month, _year);
+        if (_day < _DAYS_IN_MONTH[leap(_year)][_month])
+            return new Date(_day + 1, _month, _year, _dayNumber + 1);
         
         // if the next day to the given date is in the next month checks if this month is in 
         // the given year
-        else
-            if(isValidDate (1, _month + 1, _year)) 
-                return new Date(1, _month + 1, _year);
-            else
-                return new Date(1, 1, _year + 1);
+        if (_month < 12)
+            return new Date(1, _month + 1, _year, _dayNumber + 1);
+        
+        if (_year < _MAX_YEAR)
+            return new Date(1, 1, _year + 1, _dayNumber + 1);
+        
+        // the day after 31/12/9999 is not valid
+        return defaultDate();
     }
 }
 
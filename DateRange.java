@@ -0,0 +1,136 @@
+
+/**
+ * A cursor over the days of a period, from a first day up to (but not including) a last day.
+ * For a rental these are its rent days, the same days counted by Rent.howManyDays.
+ * The cursor keeps the current day as numbers, so walking a period creates no Date objects:
+ * <pre>
+ * DateRange range = new DateRange(rent);
+ * while (range.next())
+ *     use range.getDay(), range.getMonth(), range.getYear() or range.toEpochDay()
+ * </pre>
+ * @author (agent)
+ * @version (18/10/2026)
+ */
+public class DateRange
+{
+    private int _first; // day number of the first day
+    private int _end; // day number of the day after the last day of the range
+    private int _dayNumber; // day number of the current day
+    private int _monthCount; // month of the current day, as in Date.monthCountOf
+    private int _monthStart; // day number of the first day of that month
+    private int _nextMonth; // day number of the first day of the month after it
+
+    /**
+     * Initialize a cursor over the days from one date up to another date (not included)
+     * @param from First day
+     * @param to The day after the last day
+     */
+    public DateRange(Date from, Date to)
+    {
+        this(from.toEpochDay(), to.toEpochDay());
+    }
+
+    /**
+     * Initialize a cursor over the rent days of a rental (from the pickup date up to the return date)
+     * @param rent Rental to walk over
+     */
+    public DateRange(Rent rent)
+    {
+        this(rent.getPickDay(), rent.getReturnDay());
+    }
+
+    /**
+     * Initialize a cursor over the days between two valid day numbers
+     */
+    private DateRange(int first, int end)
+    {
+        _first = first;
+        _end = end;
+        reset();
+    }
+
+    /**
+     * Moves the cursor back to before the first day
+     */
+    public void reset()
+    {
+        _dayNumber = _first - 1; // the first call to next moves to the first day
+        _monthCount = Date.monthCountOf(_first);
+        _monthStart = Date.firstDayOfMonthCount(_monthCount);
+        _nextMonth = Date.firstDayOfMonthCount(_monthCount + 1);
+    }
+
+    /**
+     * Returns the number of days in the range
+     * @return Number of days
+     */
+    public int length()
+    {
+        return Math.max(_end - _first, 0);
+    }
+
+    /**
+     * Moves the cursor to the next day
+     * @return True if there is such a day in the range, false when the range is over
+     */
+    public boolean next()
+    {
+        if (_dayNumber + 1 >= _end)
+            return false;
+
+        _dayNumber++;
+        if (_dayNumber >= _nextMonth)
+        {
+            // the month changes at most once a month, and only the day number changes in between
+            _monthCount++;
+            _monthStart = _nextMonth;
+            _nextMonth = Date.firstDayOfMonthCount(_monthCount + 1);
+        }
+        return true;
+    }
+
+    /**
+     * Returns the day of the current date
+     * @return Day of the current date
+     */
+    public int getDay()
+    {
+        return _dayNumber - _monthStart + 1;
+    }
+
+    /**
+     * Returns the month of the current date
+     * @return Month of the current date
+     */
+    public int getMonth()
+    {
+        return _monthCount % 12 + 1;
+    }
+
+    /**
+     * Returns the year of the current date
+     * @return Year of the current date
+     */
+    public int getYear()
+    {
+        return _monthCount / 12;
+    }
+
+    /**
+     * Returns the day number of the current date
+     * @return Day number of the current date (see Date.toEpochDay)
+     */
+    public int toEpochDay()
+    {
+        return _dayNumber;
+    }
+
+    /**
+     * Returns the current date as a new Date object
+     * @return The current date
+     */
+    public Date toDate()
+    {
+        return Date.fromEpochDay(_dayNumber);
+    }
+}
@@ -0,0 +1,217 @@
+
+/**
+ * Represents an immutable date
+ * A DateValue never changes after it is created, so it can be shared without copying.
+ * Instead of setters it has "with" methods that return a changed copy.
+ * @author (agent)
+ * @version (18/10/2026)
+ */
+public final class DateValue
+{
+    private final int _day;
+    private final int _month;
+    private final int _year;
+    private final int _dayNumber; // day number of the date, as in Date.toEpochDay
+
+    /**
+     * Initialze a new date value if the given date is valid, otherwise initialize the date 1/1/2000
+     * @param day Day in the date
+     * @param month Month in the date
+     * @param year Year in the date
+     */
+    public DateValue(int day, int month, int year)
+    {
+        if (!Date.isValidDate(day, month, year))
+        {
+            // counted like an invalid date given to the Date constructor
+            Metrics.invalidDates().increment();
+            day = 1;
+            month = 1;
+            year = 2000;
+        }
+        _day = day;
+        _month = month;
+        _year = year;
+        _dayNumber = Date.toEpochDay(day, month, year);
+    }
+
+    /**
+     * Initialize a date value with the same date as a mutable date
+     * @param date Date to be copied
+     */
+    public DateValue(Date date)
+    {
+        _day = date.getDay();
+        _month = date.getMonth();
+        _year = date.getYear();
+        _dayNumber = date.toEpochDay();
+    }
+
+    /**
+     * Returns a new mutable date with the same date
+     * @return Date with the same date
+     */
+    public Date toDate()
+    {
+        return new Date(_day, _month, _year);
+    }
+
+    /**
+     * Returns the day
+     * @return Day of date
+     */
+    public int getDay()
+    {
+        return _day;
+    }
+
+    /**
+     * Returns the month
+     * @return Month of date
+     */
+    public int getMonth()
+    {
+        return _month;
+    }
+
+    /**
+     * Returns the year
+     * @return Year of date
+     */
+    public int getYear()
+    {
+        return _year;
+    }
+
+    /**
+     * Returns the day number of this date
+     * @return Number of days that past since the beginning of the Christian counting of years
+     */
+    public int toEpochDay()
+    {
+        return _dayNumber;
+    }
+
+    /**
+     * Returns a date with a different day (only if the date remains valid)
+     * @param day New day value
+     * @return Date with the new day, or this date if it would not be valid
+     */
+    public DateValue withDay(int day)
+    {
+        if (day == _day || !Date.isValidDate(day, _month, _year))
+            return this;
+        return new DateValue(day, _month, _year);
+    }
+
+    /**
+     * Returns a date with a different month (only if the date remains valid)
+     * @param month New month value
+     * @return Date with the new month, or this date if it would not be valid
+     */
+    public DateValue withMonth(int month)
+    {
+        if (month == _month || !Date.isValidDate(_day, month, _year))
+            return this;
+        return new DateValue(_day, month, _year);
+    }
+
+    /**
+     * Returns a date with a different year (only if the date remains valid)
+     * @param year New year value
+     * @return Date with the new year, or this date if it would not be valid
+     */
+    public DateValue withYear(int year)
+    {
+        if (year == _year || !Date.isValidDate(_day, _month, year))
+            return this;
+        return new DateValue(_day, _month, year);
+    }
+
+    /**
+     * Checks if 2 dates are the same
+     * @param other Date to compare this date to
+     * @return True if the dates are the same, otherwise - false
+     */
+    public boolean equals(DateValue other)
+    {
+        return _dayNumber == other._dayNumber;
+    }
+
+    /**
+     * Checks if this date is the same as another object
+     * @param obj Object to compare this date to
+     * @return True if the object is a date with the same day, month and year, otherwise - false
+     */
+    public boolean equals(Object obj)
+    {
+        return (obj instanceof DateValue) && equals((DateValue)obj);
+    }
+
+    /**
+     * Returns a hash code of this date
+     * The hash code is the same as the hash code of the same Date
+     * @return Hash code of this date
+     */
+    public int hashCode()
+    {
+        return _dayNumber;
+    }
+
+    /**
+     * Checks if this date is before another date
+     * @param other Date to compare this date to
+     * @return True if this date is before the other date, otherwise - false
+     */
+    public boolean before(DateValue other)
+    {
+        return _dayNumber < other._dayNumber;
+    }
+
+    /**
+     * Checks if this date is after another date
+     * @param other Date to compare this date to
+     * @return True if this date is after the other date, otherwise - false
+     */
+    public boolean after(DateValue other)
+    {
+        return _dayNumber > other._dayNumber;
+    }
+
+    /**
+     * Calculates the difference in days between two dates
+     * @param other Date to calculate the difference between this date and that date
+     * @return Number of days between the dates (non negative value)
+     */
+    public int difference(DateValue other)
+    {
+        return Math.abs(_dayNumber - other._dayNumber);
+    }
+
+    /**
+     * Returns a String that represents this date
+     * @return String that represents this date in the following format:
+     * day (2 digits) / month(2 digits) / year (4 digits) for example: 02/03/1998
+     */
+    public String toString()
+    {
+        return (_day < 10 ? "0" : "") + _day + "/" + (_month < 10 ? "0" : "") + _month + "/" + _year;
+    }
+
+    /**
+     * Calculate the date of tomorrow
+     * The rules are the same of the "tomorrow" method of Date
+     * @return the date of tomorrow
+     */
+    public DateValue tomorrow()
+    {
+        if (Date.isValidDate(_day + 1, _month, _year))
+            return new DateValue(_day + 1, _month, _year);
+        if (Date.isValidDate(1, _month + 1, _year))
+            return new DateValue(1, _month + 1, _year);
+        if (Date.isValidDate(1, 1, _year + 1))
+            return new DateValue(1, 1, _year + 1);
+        // the day after 31/12/9999 is not valid
+        return new DateValue(1, 1, 2000);
+    }
+}
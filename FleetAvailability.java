@@ -0,0 +1,321 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * Keeps track of which days each car of the fleet is booked.
+ * Every car has a bitmap with one bit per day over a horizon of a fixed length (for example
+ * 2 years), so checking a period only tests a few 64-day words instead of scanning all the rentals.
+ * The horizon rolls forward with advanceTo: the days before the new first day are dropped and
+ * free days are added at its end.
+ * Like Rent.overlap, a booked period includes both its pickup and return days (unlike
+ * FleetOccupancy, which counts a rental only on its rent days, without the return day).
+ * @author (agent)
+ * @version (18/10/2026)
+ */
+public class FleetAvailability
+{
+    private static final int _NUM_OF_TYPES = 4; // types 'A' to 'D'
+
+    private int _firstDay; // day number of the first day of the horizon
+    private int _numOfDays; // length of the horizon
+    private HashMap<Integer, Entry> _cars; // cars by id
+    private ArrayList<ArrayList<Entry>> _carsByType; // cars of each type, 'A' to 'D'
+
+    /**
+     * Represents a car of the fleet and the days it is booked
+     */
+    private static class Entry
+    {
+        private Car _car;
+        private long[] _booked; // bit i is set if day _firstDay + i is booked
+
+        private Entry(Car car, int numOfWords)
+        {
+            _car = car;
+            _booked = new long[numOfWords];
+        }
+    }
+
+    /**
+     * Initialize an availability tracker with no cars
+     * @param start First day of the horizon
+     * @param numOfDays Number of days in the horizon (for example 730 for 2 years)
+     */
+    public FleetAvailability(Date start, int numOfDays)
+    {
+        _firstDay = start.toEpochDay();
+        _numOfDays = Math.max(numOfDays, 1);
+        _cars = new HashMap<Integer, Entry>();
+        _carsByType = new ArrayList<ArrayList<Entry>>();
+        for (int i = 0; i < _NUM_OF_TYPES; i++)
+            _carsByType.add(new ArrayList<Entry>());
+    }
+
+    /**
+     * Moves the horizon forward so it starts on a given day, keeping its length
+     * The bookings of the days before that day are dropped, and the days added at the end
+     * of the horizon are free.
+     * @param start New first day of the horizon (ignored if it is not after the current first day)
+     */
+    public void advanceTo(Date start)
+    {
+        int numOfDays = start.toEpochDay() - _firstDay;
+        if (numOfDays <= 0)
+            return;
+
+        for (Entry entry : _cars.values())
+            shiftDown(entry._booked, numOfDays);
+        _firstDay += numOfDays;
+    }
+
+    /**
+     * Returns the first day of the horizon
+     * @return First day
+     */
+    public Date getStart()
+    {
+        return Date.fromEpochDay(_firstDay);
+    }
+
+    /**
+     * Adds a car to the fleet (only if there is no car with the same id)
+     * @param car Car to add
+     * @return True if the car was added
+     */
+    public boolean addCar(Car car)
+    {
+        if (_cars.containsKey(car.getId()))
+            return false;
+
+        Entry entry = new Entry(new Car(car), (_numOfDays + 63) / 64);
+        _cars.put(car.getId(), entry);
+        _carsByType.get(car.getType() - 'A').add(entry);
+        return true;
+    }
+
+    /**
+     * Returns the number of cars in the fleet
+     * @return Number of cars
+     */
+    public int numOfCars()
+    {
+        return _cars.size();
+    }
+
+    /**
+     * Books a car for a period (only if the car is free on all its days)
+     * @param carId Car license number
+     * @param pick Pickup date
+     * @param ret Return date
+     * @return True if the car was booked, false if it is unknown, busy or the dates are out of the horizon
+     */
+    public boolean book(int carId, Date pick, Date ret)
+    {
+        Entry entry = _cars.get(carId);
+        int from = pick.toEpochDay() - _firstDay;
+        int to = ret.toEpochDay() - _firstDay;
+        if (entry == null || !inHorizon(from, to) || !isFree(entry._booked, from, to))
+            return false;
+
+        setRange(entry._booked, from, to, true);
+        return true;
+    }
+
+    /**
+     * Books the car of a rental for the rental days
+     * @param rent Rental to book
+     * @return True if the car was booked
+     */
+    public boolean book(Rent rent)
+    {
+        return book(rent.getCar().getId(), rent.getPickDate(), rent.getReturnDate());
+    }
+
+    /**
+     * Frees the days of a period of a car
+     * @param carId Car license number
+     * @param pick Pickup date
+     * @param ret Return date
+     */
+    public void release(int carId, Date pick, Date ret)
+    {
+        Entry entry = _cars.get(carId);
+        int from = Math.max(pick.toEpochDay() - _firstDay, 0);
+        int to = Math.min(ret.toEpochDay() - _firstDay, _numOfDays - 1);
+        if (entry != null && from <= to)
+            setRange(entry._booked, from, to, false);
+    }
+
+    /**
+     * Checks if a car is free for a whole period
+     * @param carId Car license number
+     * @param pick Pickup date
+     * @param ret Return date
+     * @return True if the car is free, false if it is unknown, busy or the dates are out of the horizon
+     */
+    public boolean isAvailable(int carId, Date pick, Date ret)
+    {
+        Entry entry = _cars.get(carId);
+        int from = pick.toEpochDay() - _firstDay;
+        int to = ret.toEpochDay() - _firstDay;
+        return entry != null && inHorizon(from, to) && isFree(entry._booked, from, to);
+    }
+
+    /**
+     * Returns the cars of a type that are free for a whole period
+     * @param type Car category type
+     * @param pick Pickup date
+     * @param ret Return date
+     * @return List of the free cars (empty if there are none)
+     */
+    public ArrayList<Car> availableCars(char type, Date pick, Date ret)
+    {
+        return available(type, null, pick, ret);
+    }
+
+    /**
+     * Returns the cars that are the same as a given car and are free for a whole period
+     * Cars are considered the same like in Car.equals (same type, brand and gear)
+     * @param car Car to compare the fleet cars to
+     * @param pick Pickup date
+     * @param ret Return date
+     * @return List of the free cars (empty if there are none)
+     */
+    public ArrayList<Car> availableCars(Car car, Date pick, Date ret)
+    {
+        return available(car.getType(), car, pick, ret);
+    }
+
+    /**
+     * Counts the cars of a type that are free for a whole period
+     * Every car of the type is checked, a few words of its bitmap each.
+     * @param type Car category type
+     * @param pick Pickup date
+     * @param ret Return date
+     * @return Number of free cars
+     */
+    public int countAvailable(char type, Date pick, Date ret)
+    {
+        int from = pick.toEpochDay() - _firstDay;
+        int to = ret.toEpochDay() - _firstDay;
+        if (!Car.isValidType(type) || !inHorizon(from, to))
+            return 0;
+
+        int count = 0;
+        for (Entry entry : _carsByType.get(type - 'A'))
+            if (isFree(entry._booked, from, to))
+                count++;
+        return count;
+    }
+
+    /**
+     * Finds the first pickup date, on or after a given date, from which a car is free
+     * for a number of rent days (the return day included)
+     * @param carId Car license number
+     * @param from Earliest pickup date
+     * @param numOfRentDays Number of rent days
+     * @return First possible pickup date, or null if there is none in the horizon
+     */
+    public Date firstFreeSlot(int carId, Date from, int numOfRentDays)
+    {
+        Entry entry = _cars.get(carId);
+        int start = Math.max(from.toEpochDay() - _firstDay, 0);
+        if (entry == null || numOfRentDays < 0)
+            return null;
+
+        while (start + numOfRentDays < _numOfDays)
+        {
+            int busy = lastBooked(entry._booked, start, start + numOfRentDays);
+            if (busy < 0)
+                return Date.fromEpochDay(_firstDay + start);
+            start = busy + 1; // every period that starts on or before the busy day includes it
+        }
+        return null;
+    }
+
+    private ArrayList<Car> available(char type, Car same, Date pick, Date ret)
+    {
+        ArrayList<Car> result = new ArrayList<Car>();
+        int from = pick.toEpochDay() - _firstDay;
+        int to = ret.toEpochDay() - _firstDay;
+        if (!Car.isValidType(type) || !inHorizon(from, to))
+            return result;
+
+        for (Entry entry : _carsByType.get(type - 'A'))
+            if ((same == null || same.equals(entry._car)) && isFree(entry._booked, from, to))
+                result.add(new Car(entry._car));
+        return result;
+    }
+
+    private boolean inHorizon(int from, int to)
+    {
+        return from >= 0 && from <= to && to < _numOfDays;
+    }
+
+    /**
+     * Checks that no bit between from and to (both included) is set
+     */
+    private static boolean isFree(long[] bits, int from, int to)
+    {
+        return lastBooked(bits, from, to) < 0;
+    }
+
+    /**
+     * Returns the last set bit between from and to (both included), or -1 if there is none
+     */
+    private static int lastBooked(long[] bits, int from, int to)
+    {
+        int firstWord = from >>> 6;
+        int lastWord = to >>> 6;
+        for (int w = lastWord; w >= firstWord; w--)
+        {
+            long word = bits[w];
+            if (w == firstWord)
+                word &= -1L << (from & 63);
+            if (w == lastWord)
+                word &= -1L >>> (63 - (to & 63));
+            if (word != 0)
+                return (w << 6) + 63 - Long.numberOfLeadingZeros(word);
+        }
+        return -1;
+    }
+
+    /**
+     * Moves all the bits down by a number of places, so bit i + numOfBits becomes bit i,
+     * and clears the bits at the top
+     */
+    private static void shiftDown(long[] bits, int numOfBits)
+    {
+        int words = numOfBits >>> 6;
+        int shift = numOfBits & 63;
+        for (int w = 0; w < bits.length; w++)
+        {
+            int from = w + words;
+            long low = (from < bits.length) ? bits[from] >>> shift : 0;
+            long high = (shift != 0 && from + 1 < bits.length) ? bits[from + 1] << (64 - shift) : 0;
+            bits[w] = low | high;
+        }
+    }
+
+    /**
+     * Sets or clears all the bits between from and to (both included)
+     */
+    private static void setRange(long[] bits, int from, int to, boolean value)
+    {
+        int firstWord = from >>> 6;
+        int lastWord = to >>> 6;
+        for (int w = firstWord; w <= lastWord; w++)
+        {
+            long mask = -1L;
+            if (w == firstWord)
+                mask &= -1L << (from & 63);
+            if (w == lastWord)
+                mask &= -1L >>> (63 - (to & 63));
+
+            if (value)
+                bits[w] |= mask;
+            else
+                bits[w] &= ~mask;
+        }
+    }
+}
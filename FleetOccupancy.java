@@ -0,0 +1,406 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Counts how many cars are rented on each day of a period, by car type and by brand.
+ * Every rental adds +1 on its pickup day and -1 on its return day to a difference array,
+ * so a rental costs O(1) no matter how long it is; a prefix sum then turns the differences
+ * into the number of rented cars on each day.
+ * The rentals are split between the tasks of a fork-join pool, each task fills its own
+ * difference arrays, and the arrays are added together.
+ * Rentals that are partly outside the period are counted only on their days inside it.
+ * <p>
+ * Note: a rental is counted on its rent days only, from its pickup day up to the day before
+ * its return day (the days Rent.howManyDays counts and the price is paid for). This is not the
+ * rule of FleetAvailability, BookingService and UpgradePlanner, which keep a car booked on its
+ * return day as well, like Rent.overlap. So on the return day of a rental this report does not
+ * count the car, while those classes do not offer it for a new booking.
+ * @author (agent)
+ * @version (18/10/2026)
+ */
+public class FleetOccupancy
+{
+    private static final int _NUM_OF_TYPES = 4; // types 'A' to 'D'
+    private static final int _MIN_RENTS_PER_TASK = 16384; // rentals counted by a single task without splitting
+
+    private ForkJoinPool _pool;
+
+    /**
+     * The number of rented cars on each day of a period
+     */
+    public static class Report
+    {
+        private Date _start;
+        private int _firstDay; // day number of the first day of the period
+        private int[][] _byType; // rented cars of each type on each day
+        private HashMap<String, int[]> _byBrand;
+
+        private Report(Date start, int[][] byType, HashMap<String, int[]> byBrand)
+        {
+            _start = new Date(start);
+            _firstDay = start.toEpochDay();
+            _byType = byType;
+            _byBrand = byBrand;
+        }
+
+        /**
+         * Returns the first day of the period
+         * @return First day
+         */
+        public Date getStart()
+        {
+            return new Date(_start);
+        }
+
+        /**
+         * Returns the number of days in the period
+         * @return Number of days
+         */
+        public int getNumOfDays()
+        {
+            return _byType[0].length;
+        }
+
+        /**
+         * Returns the number of rented cars of a type on a day
+         * @param type Car type
+         * @param day Day to check
+         * @return Number of rented cars (0 for an invalid type or a day outside the period)
+         */
+        public int occupancy(char type, Date day)
+        {
+            return valueOn(ofType(type), day);
+        }
+
+        /**
+         * Returns the number of rented cars of a brand on a day
+         * @param brand Car brand
+         * @param day Day to check
+         * @return Number of rented cars (0 for an unknown brand or a day outside the period)
+         */
+        public int occupancyOfBrand(String brand, Date day)
+        {
+            return valueOn(_byBrand.get(brand), day);
+        }
+
+        /**
+         * Returns the number of rented cars of a type on every day of the period
+         * @param type Car type
+         * @return Array with the number of rented cars on each day, starting from the first day
+         */
+        public int[] dailyOccupancy(char type)
+        {
+            int[] daily = ofType(type);
+            return (daily == null) ? new int[getNumOfDays()] : daily.clone();
+        }
+
+        /**
+         * Returns the number of rented cars of a brand on every day of the period
+         * @param brand Car brand
+         * @return Array with the number of rented cars on each day, starting from the first day
+         */
+        public int[] dailyOccupancyOfBrand(String brand)
+        {
+            int[] daily = _byBrand.get(brand);
+            return (daily == null) ? new int[getNumOfDays()] : daily.clone();
+        }
+
+        /**
+         * Returns the largest number of cars of a type rented on a single day
+         * @param type Car type
+         * @return Peak number of rented cars
+         */
+        public int peak(char type)
+        {
+            return max(ofType(type));
+        }
+
+        /**
+         * Returns the first day on which the largest number of cars of a type is rented
+         * @param type Car type
+         * @return Peak day (the first day of the period if there are no rentals)
+         */
+        public Date peakDay(char type)
+        {
+            return Date.fromEpochDay(_firstDay + indexOfMax(ofType(type)));
+        }
+
+        /**
+         * Returns the largest number of cars of a brand rented on a single day
+         * @param brand Car brand
+         * @return Peak number of rented cars
+         */
+        public int peakOfBrand(String brand)
+        {
+            return max(_byBrand.get(brand));
+        }
+
+        /**
+         * Returns the part of the days of a fleet of a type that are rented
+         * @param type Car type
+         * @param numOfCars Number of cars of the type in the fleet
+         * @return Rented car days divided by the car days of the period (0 if there are no cars)
+         */
+        public double utilization(char type, int numOfCars)
+        {
+            return utilization(ofType(type), numOfCars);
+        }
+
+        /**
+         * Returns the part of the days of a fleet of a brand that are rented
+         * @param brand Car brand
+         * @param numOfCars Number of cars of the brand in the fleet
+         * @return Rented car days divided by the car days of the period (0 if there are no cars)
+         */
+        public double utilizationOfBrand(String brand, int numOfCars)
+        {
+            return utilization(_byBrand.get(brand), numOfCars);
+        }
+
+        private int[] ofType(char type)
+        {
+            return Car.isValidType(type) ? _byType[type - 'A'] : null;
+        }
+
+        private int valueOn(int[] daily, Date day)
+        {
+            int index = day.toEpochDay() - _firstDay;
+            return (daily == null || index < 0 || index >= daily.length) ? 0 : daily[index];
+        }
+
+        private static int max(int[] daily)
+        {
+            return (daily == null) ? 0 : daily[indexOfMax(daily)];
+        }
+
+        private static int indexOfMax(int[] daily)
+        {
+            int best = 0;
+            if (daily != null)
+                for (int i = 1; i < daily.length; i++)
+                    if (daily[i] > daily[best])
+                        best = i;
+            return best;
+        }
+
+        private double utilization(int[] daily, int numOfCars)
+        {
+            if (daily == null || numOfCars <= 0)
+                return 0;
+            long carDays = 0;
+            for (int count : daily)
+                carDays += count;
+            return (double)carDays / ((long)numOfCars * getNumOfDays());
+        }
+    }
+
+    /**
+     * Initialize an occupancy counter that uses the common fork-join pool
+     */
+    public FleetOccupancy()
+    {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Initialize an occupancy counter that uses a given fork-join pool
+     * @param pool Pool to run the counting on
+     */
+    public FleetOccupancy(ForkJoinPool pool)
+    {
+        _pool = pool;
+    }
+
+    /**
+     * Counts the rented cars on each day of a period
+     * @param rents Rentals to count
+     * @param start First day of the period
+     * @param numOfDays Number of days in the period (for example 92 for a quarter)
+     * @return Report of the period
+     * @throws IllegalArgumentException If a rental has a car type that is not 'A' to 'D'
+     */
+    public Report report(List<Rent> rents, Date start, int numOfDays)
+    {
+        // the tasks read the rentals by position, which is slow for a linked list
+        final List<Rent> list = (rents instanceof RandomAccess) ? rents : new ArrayList<Rent>(rents);
+        return report(new Source() {
+            int size() { return list.size(); }
+            void add(int i, Counts counts)
+            {
+                Rent rent = list.get(i);
+                Car car = rent.getCar();
+                counts.add(car.getType(), car.getBrand(), rent.getPickDay(), rent.getReturnDay());
+            } }, start, numOfDays);
+    }
+
+    /**
+     * Counts the rented cars on each day of a period, reading the columns of a store
+     * without creating Rent objects
+     * @param store Rentals to count
+     * @param start First day of the period
+     * @param numOfDays Number of days in the period (for example 92 for a quarter)
+     * @return Report of the period
+     * @throws IllegalArgumentException If a rental has a car type that is not 'A' to 'D'
+     */
+    public Report report(final RentalStore store, Date start, int numOfDays)
+    {
+        return report(new Source() {
+            int size() { return store.size(); }
+            void add(int i, Counts counts)
+            {
+                counts.add(store.getType(i), store.getBrand(i), store.getPickDay(i), store.getReturnDay(i));
+            } }, start, numOfDays);
+    }
+
+    private Report report(Source source, Date start, int numOfDays)
+    {
+        int firstDay = start.toEpochDay();
+        int days = Math.max(numOfDays, 1);
+        int rentsPerTask = Math.max(_MIN_RENTS_PER_TASK, source.size() / (_pool.getParallelism() * 4) + 1);
+        Counts counts = _pool.invoke(new CountTask(source, firstDay, days, rentsPerTask, 0, source.size()));
+
+        // turn the differences into the number of rented cars on each day
+        int[][] byType = new int[_NUM_OF_TYPES][];
+        for (int type = 0; type < _NUM_OF_TYPES; type++)
+            byType[type] = prefixSum(counts._byType[type], days);
+        HashMap<String, int[]> byBrand = new HashMap<String, int[]>();
+        for (Map.Entry<String, int[]> entry : counts._byBrand.entrySet())
+            byBrand.put(entry.getKey(), prefixSum(entry.getValue(), days));
+        return new Report(start, byType, byBrand);
+    }
+
+    private static int[] prefixSum(int[] differences, int days)
+    {
+        int[] daily = new int[days];
+        int count = 0;
+        for (int i = 0; i < days; i++)
+        {
+            count += differences[i];
+            daily[i] = count;
+        }
+        return daily;
+    }
+
+    /**
+     * The rentals to count, read by position
+     */
+    private abstract static class Source
+    {
+        abstract int size();
+
+        abstract void add(int i, Counts counts);
+    }
+
+    /**
+     * Difference arrays of a part of the rentals
+     */
+    private static class Counts
+    {
+        private int _firstDay;
+        private int _days;
+        private int[][] _byType; // one more day than the period, for the -1 after the last day
+        private HashMap<String, int[]> _byBrand;
+
+        private Counts(int firstDay, int days)
+        {
+            _firstDay = firstDay;
+            _days = days;
+            _byType = new int[_NUM_OF_TYPES][days + 1];
+            _byBrand = new HashMap<String, int[]>();
+        }
+
+        private void add(char type, String brand, int pickDay, int returnDay)
+        {
+            if (!Car.isValidType(type))
+                throw new IllegalArgumentException("Invalid type: " + type);
+            int from = Math.max(pickDay - _firstDay, 0);
+            int to = Math.min(returnDay - 1 - _firstDay, _days - 1); // the return day is not a rent day
+            if (from > to)
+                return; // not in the period
+
+            int[] byType = _byType[type - 'A'];
+            byType[from]++;
+            byType[to + 1]--;
+
+            int[] byBrand = _byBrand.get(brand);
+            if (byBrand == null)
+            {
+                byBrand = new int[_days + 1];
+                _byBrand.put(brand, byBrand);
+            }
+            byBrand[from]++;
+            byBrand[to + 1]--;
+        }
+
+        /**
+         * Adds the differences of other counts to these counts
+         */
+        private void addAll(Counts other)
+        {
+            for (int type = 0; type < _NUM_OF_TYPES; type++)
+                addTo(_byType[type], other._byType[type]);
+            for (Map.Entry<String, int[]> entry : other._byBrand.entrySet())
+            {
+                int[] byBrand = _byBrand.get(entry.getKey());
+                if (byBrand == null)
+                    _byBrand.put(entry.getKey(), entry.getValue());
+                else
+                    addTo(byBrand, entry.getValue());
+            }
+        }
+
+        private static void addTo(int[] target, int[] values)
+        {
+            for (int i = 0; i < target.length; i++)
+                target[i] += values[i];
+        }
+    }
+
+    /**
+     * Counts a range of rentals, splitting it in two while it is large
+     */
+    private static class CountTask extends RecursiveTask<Counts>
+    {
+        private static final long serialVersionUID = 1L;
+
+        private Source _source;
+        private int _firstDay;
+        private int _days;
+        private int _rentsPerTask;
+        private int _from;
+        private int _to;
+
+        private CountTask(Source source, int firstDay, int days, int rentsPerTask, int from, int to)
+        {
+            _source = source;
+            _firstDay = firstDay;
+            _days = days;
+            _rentsPerTask = rentsPerTask;
+            _from = from;
+            _to = to;
+        }
+
+        protected Counts compute()
+        {
+            if (_to - _from <= _rentsPerTask)
+            {
+                Counts counts = new Counts(_firstDay, _days);
+                for (int i = _from; i < _to; i++)
+                    _source.add(i, counts);
+                return counts;
+            }
+
+            int middle = (_from + _to) >>> 1;
+            CountTask right = new CountTask(_source, _firstDay, _days, _rentsPerTask, middle, _to);
+            right.fork();
+            Counts counts = new CountTask(_source, _firstDay, _days, _rentsPerTask, _from, middle).compute();
+            counts.addAll(right.join());
+            return counts;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A thread safe dictionary that keeps a single copy of each distinct String.
+ * Car keeps its brand and Rent keeps its customer name through the shared dictionaries
+ * (see brands and names), so equal brands and names are usually the same String object and
+ * are compared by reference first (see same).
+ * Values are never removed, so a dictionary holds at most a given number of values; once it is
+ * full, new values are used as they are. Strings from untrusted input (for example the query
+ * parameters of QuoteServer) can only fill it up to that size, and are still compared by value.
+ * @author (agent)
+ * @version (18/10/2026)
+ */
+public class Interner
+{
+    private static final int _DEFAULT_MAX_SIZE = 1 << 16;
+    private static final Interner _NAMES = new Interner();
+    private static final Interner _BRANDS = new Interner();
+
+    private final ConcurrentHashMap<String, String> _values;
+    private final int _maxSize;
+
+    /**
+     * Initialize an empty dictionary of up to 65536 values
+     */
+    public Interner()
+    {
+        this(_DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * Initialize an empty dictionary
+     * @param maxSize Largest number of values kept (threads that add values at the same time
+     *                may each add one more)
+     */
+    public Interner(int maxSize)
+    {
+        _values = new ConcurrentHashMap<String, String>();
+        _maxSize = Math.max(maxSize, 0);
+    }
+
+    /**
+     * Returns the shared dictionary of customer names
+     * @return Dictionary of customer names
+     */
+    public static Interner names()
+    {
+        return _NAMES;
+    }
+
+    /**
+     * Returns the shared dictionary of car brands
+     * @return Dictionary of car brands
+     */
+    public static Interner brands()
+    {
+        return _BRANDS;
+    }
+
+    /**
+     * Returns the single copy of a String, adding it to the dictionary if it is not there yet
+     * and the dictionary is not full
+     * @param value String to look for (may be null)
+     * @return The String of the dictionary that equals the given one, or the given String if
+     *         the dictionary is full and does not have it (null for null)
+     */
+    public String intern(String value)
+    {
+        if (value == null)
+            return null;
+        String interned = _values.get(value);
+        if (interned != null)
+            return interned;
+        if (_values.size() >= _maxSize)
+            return value; // full, the value is used as it is
+        interned = _values.putIfAbsent(value, value);
+        return (interned == null) ? value : interned;
+    }
+
+    /**
+     * Returns the number of distinct values in the dictionary
+     * @return Number of values
+     */
+    public int size()
+    {
+        return _values.size();
+    }
+
+    /**
+     * Checks if two Strings are equal, comparing them by reference first
+     * Interned Strings that are equal are the same object, so the reference comparison answers
+     * almost every check; Strings that were not interned are still compared by value.
+     * @param a First String (may be null)
+     * @param b Second String (may be null)
+     * @return True if both are null or they are equal
+     */
+    static boolean same(String a, String b)
+    {
+        return a == b || (a != null && a.equals(b));
+    }
+}
@@ -0,0 +1,82 @@
+import java.io.IOException;
+import java.util.ArrayList;
+
+/**
+ * A ShardCluster transport that runs all the nodes in this process.
+ * Requests are still passed as bytes, so the cluster and the nodes work exactly as they
+ * would behind a network transport.
+ * @author (agent)
+ * @version (18/10/2026)
+ */
+public class LoopbackTransport implements ShardCluster.Transport
+{
+    private final ArrayList<ShardNode> _nodes;
+
+    /**
+     * Initialize a transport with a number of new empty nodes
+     * @param numOfNodes Number of nodes
+     */
+    public LoopbackTransport(int numOfNodes)
+    {
+        _nodes = new ArrayList<ShardNode>();
+        for (int i = 0; i < numOfNodes; i++)
+            _nodes.add(new ShardNode());
+    }
+
+    /**
+     * Adds a new empty node (call ShardCluster.rebalance afterwards to move keys to it)
+     * @return Number of the new node
+     */
+    public synchronized int addNode()
+    {
+        _nodes.add(new ShardNode());
+        return _nodes.size() - 1;
+    }
+
+    /**
+     * Removes the last node (call ShardCluster.rebalance first to move its keys away)
+     */
+    public synchronized void removeNode()
+    {
+        if (!_nodes.isEmpty())
+            _nodes.remove(_nodes.size() - 1);
+    }
+
+    /**
+     * Returns a node
+     * @param node Node number
+     * @return The node
+     */
+    public synchronized ShardNode getNode(int node)
+    {
+        return _nodes.get(node);
+    }
+
+    /**
+     * Returns the number of nodes
+     * @return Number of nodes
+     */
+    public synchronized int getNumOfNodes()
+    {
+        return _nodes.size();
+    }
+
+    /**
+     * Passes a request to a node of this process
+     * @param node Node number
+     * @param request Request bytes
+     * @return Response bytes
+     * @throws IOException If there is no such node or it failed to handle the request
+     */
+    public byte[] send(int node, byte[] request) throws IOException
+    {
+        ShardNode target;
+        synchronized (this)
+        {
+            if (node < 0 || node >= _nodes.size())
+                throw new IOException("Unknown node: " + node);
+            target = _nodes.get(node);
+        }
+        return target.handle(request);
+    }
+}
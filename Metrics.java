@@ -0,0 +1,323 @@
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters and latency histograms for the hot methods of Rent, Date and Car.
+ * Counting is off by default; when it is off each measured call only reads a single static flag.
+ * The counters and histograms are built on LongAdder, so threads that update them at the
+ * same time do not contend. All the metrics can be exported in the Prometheus text format.
+ * <pre>
+ * long start = Metrics.start();
+ * ... the measured work ...
+ * Metrics.priceLatency().recordSince(start);
+ * </pre>
+ * @author (agent)
+ * @version (18/10/2026)
+ */
+public class Metrics
+{
+    private static volatile boolean _enabled = false;
+
+    private static final LatencyHistogram _PRICE = new LatencyHistogram("rent_price_latency_nanoseconds",
+        "Time of Rent.getPrice");
+    private static final LatencyHistogram _UPGRADE = new LatencyHistogram("rent_upgrade_latency_nanoseconds",
+        "Time of Rent.upgrade");
+    private static final LatencyHistogram _OVERLAP = new LatencyHistogram("rent_overlap_latency_nanoseconds",
+        "Time of Rent.overlap");
+    private static final Counter _INVALID_DATES = new Counter("date_invalid_total",
+        "Dates created with an invalid date and set to 1/1/2000");
+    private static final Counter _INVALID_IDS = new Counter("car_invalid_id_total",
+        "Cars created with an invalid id and set to 9999999");
+    private static final Counter _INVALID_TYPES = new Counter("car_invalid_type_total",
+        "Cars created with an invalid type and set to 'A'");
+
+    /**
+     * A counter that only goes up
+     */
+    public static class Counter
+    {
+        private final String _name;
+        private final String _help;
+        private final LongAdder _count = new LongAdder();
+
+        private Counter(String name, String help)
+        {
+            _name = name;
+            _help = help;
+        }
+
+        /**
+         * Adds one to the counter (only if counting is enabled)
+         */
+        public void increment()
+        {
+            if (_enabled)
+                _count.increment();
+        }
+
+        /**
+         * Returns the value of the counter
+         * @return Value of the counter
+         */
+        public long get()
+        {
+            return _count.sum();
+        }
+
+        private void export(StringBuilder out)
+        {
+            out.append("# HELP ").append(_name).append(' ').append(_help).append('\n');
+            out.append("# TYPE ").append(_name).append(" counter\n");
+            out.append(_name).append(' ').append(get()).append('\n');
+        }
+    }
+
+    /**
+     * A histogram of durations in nanoseconds.
+     * Values are counted in buckets of about 12% width (8 buckets for every power of 2),
+     * so quantiles are accurate to about 12% over the whole range of values.
+     */
+    public static class LatencyHistogram
+    {
+        private static final int _SUB_BITS = 3;
+        private static final int _SUB_BUCKETS = 1 << _SUB_BITS;
+        private static final int _NUM_OF_BUCKETS = _SUB_BUCKETS + (63 - _SUB_BITS) * _SUB_BUCKETS;
+        private static final double[] _QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+        private final String _name;
+        private final String _help;
+        private final LongAdder[] _buckets;
+        private final LongAdder _sum = new LongAdder();
+
+        private LatencyHistogram(String name, String help)
+        {
+            _name = name;
+            _help = help;
+            _buckets = new LongAdder[_NUM_OF_BUCKETS];
+            for (int i = 0; i < _NUM_OF_BUCKETS; i++)
+                _buckets[i] = new LongAdder();
+        }
+
+        /**
+         * Records the time passed since a start time given by Metrics.start
+         * Nothing is recorded if counting was disabled when the measurement started
+         * @param start Start time given by Metrics.start
+         */
+        public void recordSince(long start)
+        {
+            if (start != 0)
+                record(System.nanoTime() - start);
+        }
+
+        /**
+         * Records a duration
+         * @param nanos Duration in nanoseconds
+         */
+        public void record(long nanos)
+        {
+            if (nanos < 0)
+                nanos = 0;
+            _buckets[bucketOf(nanos)].increment();
+            _sum.add(nanos);
+        }
+
+        /**
+         * Returns the number of recorded durations
+         * @return Number of recorded durations
+         */
+        public long getCount()
+        {
+            return total(counts());
+        }
+
+        /**
+         * Returns an estimate of a quantile of the recorded durations
+         * @param quantile Quantile between 0 and 1, for example 0.99
+         * @return The upper bound of the bucket of the quantile, in nanoseconds (0 if nothing was recorded)
+         */
+        public long getQuantile(double quantile)
+        {
+            long[] counts = counts();
+            return quantile(counts, total(counts), quantile);
+        }
+
+        /**
+         * Returns the current count of every bucket
+         */
+        private long[] counts()
+        {
+            long[] counts = new long[_NUM_OF_BUCKETS];
+            for (int i = 0; i < _NUM_OF_BUCKETS; i++)
+                counts[i] = _buckets[i].sum();
+            return counts;
+        }
+
+        private static long total(long[] counts)
+        {
+            long total = 0;
+            for (long count : counts)
+                total += count;
+            return total;
+        }
+
+        private static int bucketOf(long value)
+        {
+            if (value < _SUB_BUCKETS)
+                return (int)value;
+            int exponent = 63 - Long.numberOfLeadingZeros(value);
+            int sub = (int)(value >>> (exponent - _SUB_BITS)) & (_SUB_BUCKETS - 1);
+            return _SUB_BUCKETS + (exponent - _SUB_BITS) * _SUB_BUCKETS + sub;
+        }
+
+        /**
+         * Returns the largest value that falls in a bucket
+         */
+        private static long upperBoundOf(int bucket)
+        {
+            if (bucket < _SUB_BUCKETS)
+                return bucket;
+            int exponent = (bucket - _SUB_BUCKETS) / _SUB_BUCKETS + _SUB_BITS;
+            long sub = (bucket - _SUB_BUCKETS) % _SUB_BUCKETS;
+            return ((_SUB_BUCKETS + sub + 1) << (exponent - _SUB_BITS)) - 1;
+        }
+
+        private static long quantile(long[] counts, long total, double quantile)
+        {
+            if (total == 0)
+                return 0;
+            long rank = (long)Math.ceil(quantile * total);
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++)
+            {
+                seen += counts[i];
+                if (seen >= rank && counts[i] > 0)
+                    return upperBoundOf(i);
+            }
+            return upperBoundOf(counts.length - 1);
+        }
+
+        private void export(StringBuilder out)
+        {
+            long[] counts = counts();
+            long total = total(counts);
+
+            out.append("# HELP ").append(_name).append(' ').append(_help).append('\n');
+            out.append("# TYPE ").append(_name).append(" summary\n");
+            for (double quantile : _QUANTILES)
+                out.append(_name).append("{quantile=\"").append(quantile).append("\"} ")
+                   .append(quantile(counts, total, quantile)).append('\n');
+            out.append(_name).append("_sum ").append(_sum.sum()).append('\n');
+            out.append(_name).append("_count ").append(total).append('\n');
+        }
+    }
+
+    /**
+     * Checks if counting is enabled
+     * @return True if counting is enabled
+     */
+    public static boolean isEnabled()
+    {
+        return _enabled;
+    }
+
+    /**
+     * Turns counting on or off
+     * @param enabled True to count, false to stop counting
+     */
+    public static void setEnabled(boolean enabled)
+    {
+        _enabled = enabled;
+    }
+
+    /**
+     * Returns the start time of a measurement
+     * @return The current time in nanoseconds, or 0 if counting is disabled
+     */
+    public static long start()
+    {
+        return _enabled ? System.nanoTime() | 1 : 0; // never 0 when enabled
+    }
+
+    /**
+     * Returns the histogram of Rent.getPrice durations
+     * @return Latency histogram
+     */
+    public static LatencyHistogram priceLatency()
+    {
+        return _PRICE;
+    }
+
+    /**
+     * Returns the histogram of Rent.upgrade durations
+     * @return Latency histogram
+     */
+    public static LatencyHistogram upgradeLatency()
+    {
+        return _UPGRADE;
+    }
+
+    /**
+     * Returns the histogram of Rent.overlap durations
+     * @return Latency histogram
+     */
+    public static LatencyHistogram overlapLatency()
+    {
+        return _OVERLAP;
+    }
+
+    /**
+     * Returns the counter of dates that were set to 1/1/2000 because they were not valid
+     * @return Counter
+     */
+    public static Counter invalidDates()
+    {
+        return _INVALID_DATES;
+    }
+
+    /**
+     * Returns the counter of cars whose id was set to 9999999 because it was not valid
+     * @return Counter
+     */
+    public static Counter invalidCarIds()
+    {
+        return _INVALID_IDS;
+    }
+
+    /**
+     * Returns the counter of cars whose type was set to 'A' because it was not valid
+     * @return Counter
+     */
+    public static Counter invalidCarTypes()
+    {
+        return _INVALID_TYPES;
+    }
+
+    /**
+     * Returns all the metrics in the Prometheus text format
+     * @return Text of all the metrics
+     */
+    public static String export()
+    {
+        StringBuilder out = new StringBuilder();
+        _PRICE.export(out);
+        _UPGRADE.export(out);
+        _OVERLAP.export(out);
+        _INVALID_DATES.export(out);
+        _INVALID_IDS.export(out);
+        _INVALID_TYPES.export(out);
+        return out.toString();
+    }
+
+    /**
+     * Writes all the metrics in the Prometheus text format to a file (replacing it if it exists)
+     * @param file File to write
+     * @throws IOException If the file could not be written
+     */
+    public static void exportTo(Path file) throws IOException
+    {
+        Files.write(file, export().getBytes(StandardCharsets.UTF_8));
+    }
+}
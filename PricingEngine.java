@@ -0,0 +1,36 @@
+
+/**
+ * Calculates rental prices
+ * Rent uses a pricing engine for getPrice and upgrade, see Rent.setPricingEngine
+ * @author (agent)
+ * @version (18/10/2026)
+ */
+public interface PricingEngine
+{
+    /**
+     * Returns the base price of a rental, without any date dependent changes
+     * @param type Rented car type
+     * @param numOfRentDays Number of rent days
+     * @return Rent total price
+     */
+    int getPrice(char type, int numOfRentDays);
+
+    /**
+     * Returns the price of a rental for its actual dates
+     * @param type Rented car type
+     * @param pickDay Pickup day number (see Date.toEpochDay)
+     * @param returnDay Return day number (see Date.toEpochDay)
+     * @return Rent total price
+     */
+    int getPrice(char type, int pickDay, int returnDay);
+
+    /**
+     * Returns a number that changes whenever the prices of the engine change,
+     * so prices that were saved before can be recognized as out of date
+     * @return Version of the prices (engines whose prices never change return 0)
+     */
+    default int getVersion()
+    {
+        return 0;
+    }
+}
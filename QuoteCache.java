@@ -0,0 +1,175 @@
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A pricing engine that remembers the prices of another pricing engine.
+ * Prices are kept by car type, pickup day and return day in a fixed number of entries,
+ * and when the cache is full the least recently used price of the same group of 8 entries
+ * is replaced. The entries are kept in primitive arrays, so a repeated quote creates no objects.
+ * Saved prices are dropped whenever the version of the engine changes (see PricingEngine.getVersion).
+ * To put the cache in front of Rent.getPrice:
+ * <pre>
+ * Rent.setPricingEngine(new QuoteCache(Rent.getPricingEngine(), 100000));
+ * </pre>
+ * @author (agent)
+ * @version (18/10/2026)
+ */
+public class QuoteCache implements PricingEngine
+{
+    private static final int _WAYS = 8; // entries in each group
+    private static final int _NUM_OF_LOCKS = 64;
+    private static final int _MAX_DAY = (1 << 24) - 1; // larger day numbers are not cached
+
+    private final PricingEngine _engine;
+    private final int _setMask; // number of groups - 1 (the number of groups is a power of 2)
+    private final long[] _keys; // 0 for an empty entry
+    private final int[] _prices;
+    private final int[] _versions; // engine version of each price
+    private final long[] _lastUsed;
+    private final long[] _clocks; // use counter of each group
+    private final Object[] _locks;
+    private final LongAdder _hits;
+    private final LongAdder _misses;
+
+    /**
+     * Initialize a cache in front of a pricing engine
+     * @param engine Pricing engine to calculate the prices that are not in the cache
+     * @param maxEntries Maximum number of saved prices (rounded up to a power of 2, at least 8)
+     */
+    public QuoteCache(PricingEngine engine, int maxEntries)
+    {
+        int numOfSets = Math.max(Integer.highestOneBit(Math.max(maxEntries, 1) - 1) << 1, _WAYS) / _WAYS;
+        _engine = engine;
+        _setMask = numOfSets - 1;
+        _keys = new long[numOfSets * _WAYS];
+        _prices = new int[numOfSets * _WAYS];
+        _versions = new int[numOfSets * _WAYS];
+        _lastUsed = new long[numOfSets * _WAYS];
+        _clocks = new long[numOfSets];
+        _locks = new Object[_NUM_OF_LOCKS];
+        for (int i = 0; i < _NUM_OF_LOCKS; i++)
+            _locks[i] = new Object();
+        _hits = new LongAdder();
+        _misses = new LongAdder();
+    }
+
+    /**
+     * Returns the base price of a rental from the engine (the engine already keeps these in a table)
+     * @param type Rented car type
+     * @param numOfRentDays Number of rent days
+     * @return Rent total price
+     */
+    public int getPrice(char type, int numOfRentDays)
+    {
+        return _engine.getPrice(type, numOfRentDays);
+    }
+
+    /**
+     * Returns the price of a rental, from the cache if it was calculated before
+     * @param type Rented car type
+     * @param pickDay Pickup day number (see Date.toEpochDay)
+     * @param returnDay Return day number (see Date.toEpochDay)
+     * @return Rent total price
+     */
+    public int getPrice(char type, int pickDay, int returnDay)
+    {
+        if (type == 0 || pickDay < 0 || pickDay > _MAX_DAY || returnDay < 0 || returnDay > _MAX_DAY)
+            return _engine.getPrice(type, pickDay, returnDay);
+
+        long key = ((long)type << 48) | ((long)pickDay << 24) | returnDay;
+        int version = _engine.getVersion(); // read before calculating, so a change during it is noticed
+        int set = setOf(key);
+        int first = set * _WAYS;
+
+        synchronized (_locks[set & (_NUM_OF_LOCKS - 1)])
+        {
+            for (int i = first; i < first + _WAYS; i++)
+                if (_keys[i] == key && _versions[i] == version)
+                {
+                    _lastUsed[i] = ++_clocks[set];
+                    _hits.increment();
+                    return _prices[i];
+                }
+        }
+
+        _misses.increment();
+        int price = _engine.getPrice(type, pickDay, returnDay);
+
+        synchronized (_locks[set & (_NUM_OF_LOCKS - 1)])
+        {
+            // replace the same key, an out of date price, or the least recently used price
+            int victim = first;
+            for (int i = first; i < first + _WAYS; i++)
+            {
+                if (_keys[i] == key || _keys[i] == 0 || _versions[i] != version)
+                {
+                    victim = i;
+                    break;
+                }
+                if (_lastUsed[i] < _lastUsed[victim])
+                    victim = i;
+            }
+            _keys[victim] = key;
+            _prices[victim] = price;
+            _versions[victim] = version;
+            _lastUsed[victim] = ++_clocks[set];
+        }
+        return price;
+    }
+
+    /**
+     * Returns the version of the prices of the engine
+     * @return Version of the prices
+     */
+    public int getVersion()
+    {
+        return _engine.getVersion();
+    }
+
+    /**
+     * Drops all the saved prices
+     */
+    public void clear()
+    {
+        for (int set = 0; set <= _setMask; set++)
+            synchronized (_locks[set & (_NUM_OF_LOCKS - 1)])
+            {
+                for (int i = set * _WAYS; i < (set + 1) * _WAYS; i++)
+                    _keys[i] = 0;
+            }
+    }
+
+    /**
+     * Returns the number of prices found in the cache
+     * @return Number of hits
+     */
+    public long getHits()
+    {
+        return _hits.sum();
+    }
+
+    /**
+     * Returns the number of prices that were not in the cache
+     * @return Number of misses
+     */
+    public long getMisses()
+    {
+        return _misses.sum();
+    }
+
+    /**
+     * Returns the part of the prices that were found in the cache
+     * @return Hit rate between 0 and 1 (0 if there were no requests)
+     */
+    public double getHitRate()
+    {
+        long hits = getHits();
+        long total = hits + getMisses();
+        return (total == 0) ? 0 : (double)hits / total;
+    }
+
+    private int setOf(long key)
+    {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int)(hash >>> 32) & _setMask;
+    }
+}
@@ -0,0 +1,333 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A small HTTP server for quotes, upgrades and overlap checks, built on the JDK HTTP server.
+ * All the requests are GET requests with query parameters, and the answers are plain text:
+ * <ul>
+ * <li>/quote?type=B&amp;pick=30/10/2022&amp;return=12/11/2022 - the price of a rental (Rent.getPrice)</li>
+ * <li>/upgrade?type=B&amp;brand=Mazda&amp;gear=manual&amp;pick=..&amp;return=..&amp;newType=C&amp;newBrand=Kia&amp;newGear=auto
+ * - the upgrade cost (Rent.upgrade)</li>
+ * <li>/overlap?name=..&amp;type=..&amp;brand=..&amp;gear=..&amp;pick=..&amp;return=..&amp;otherName=..&amp;otherPick=..&amp;otherReturn=..
+ * - the unified rental (Rent.overlap) or "none"; the other rental uses the same car unless
+ * otherType, otherBrand or otherGear are given</li>
+ * <li>/metrics - the counters and latency histograms of Metrics, in the Prometheus text format</li>
+ * </ul>
+ * Every request runs on its own virtual thread when the JDK supports them (JDK 21 and later),
+ * otherwise on a bounded pool of threads with a bounded queue; requests that arrive when both
+ * are full are rejected and their connections closed. Parsed dates and cars are cached and
+ * reused between requests. Invalid parameters are answered with 400, and any other failure
+ * with 500.
+ * @author (agent)
+ * @version (18/10/2026)
+ */
+public class QuoteServer
+{
+    private static final int _MAX_CACHE_SIZE = 100000;
+    private static final int _CAR_ID = 1000000; // cars of requests only describe a class, not a real car
+    private static final int _NUM_OF_TYPES = 4; // types 'A' to 'D'
+    private static final int _MAX_THREADS = 64; // threads of the pool used without virtual threads
+    private static final int _MAX_QUEUED = 1024; // requests waiting for a thread of the pool
+
+    private HttpServer _server;
+    private ExecutorService _executor;
+    private ConcurrentHashMap<String, Date> _dates;
+    private ConcurrentHashMap<String, Car[]> _cars; // by brand, the car of each type and gear
+
+    /**
+     * Initialize a server on a port of the local host (the server is not started yet)
+     * @param port Port to listen on (0 for any free port)
+     * @throws IOException If the port could not be used
+     */
+    public QuoteServer(int port) throws IOException
+    {
+        _server = HttpServer.create(new InetSocketAddress("localhost", port), 0);
+        _dates = new ConcurrentHashMap<String, Date>();
+        _cars = new ConcurrentHashMap<String, Car[]>();
+
+        _server.createContext("/quote", new Handler() {
+            String answer(HashMap<String, String> params) { return quote(params); } });
+        _server.createContext("/upgrade", new Handler() {
+            String answer(HashMap<String, String> params) { return upgrade(params); } });
+        _server.createContext("/overlap", new Handler() {
+            String answer(HashMap<String, String> params) { return overlap(params); } });
+        _server.createContext("/metrics", new Handler() {
+            String answer(HashMap<String, String> params) { return Metrics.export(); } });
+    }
+
+    /**
+     * Starts a server
+     * @param args Optional port number (default 8080)
+     * @throws IOException If the port could not be used
+     */
+    public static void main(String[] args) throws IOException
+    {
+        QuoteServer server = new QuoteServer((args.length > 0) ? Integer.parseInt(args[0]) : 8080);
+        server.start();
+        System.out.println("Listening on port " + server.getPort());
+    }
+
+    /**
+     * Starts handling requests
+     */
+    public void start()
+    {
+        _executor = newExecutor();
+        _server.setExecutor(_executor);
+        _server.start();
+    }
+
+    /**
+     * Stops the server
+     */
+    public void stop()
+    {
+        _server.stop(0);
+        if (_executor != null)
+            _executor.shutdown();
+    }
+
+    /**
+     * Returns the port the server listens on
+     * @return Port number
+     */
+    public int getPort()
+    {
+        return _server.getAddress().getPort();
+    }
+
+    /**
+     * Answers a quote request
+     */
+    private String quote(HashMap<String, String> params)
+    {
+        char type = parseType(params.get("type"));
+        Date pick = parseDate(params.get("pick"));
+        Date ret = parseDate(params.get("return"));
+
+        // the same return date rule as the Rent constructor
+        if (!ret.after(pick))
+            ret = pick.tomorrow();
+        return String.valueOf(Rent.getPricingEngine().getPrice(type, pick.toEpochDay(), ret.toEpochDay()));
+    }
+
+    /**
+     * Answers an upgrade request
+     */
+    private String upgrade(HashMap<String, String> params)
+    {
+        Car car = parseCar(params.get("type"), params.get("brand"), params.get("gear"));
+        Car newCar = parseCar(params.get("newType"), params.get("newBrand"), params.get("newGear"));
+        Rent rent = new Rent("", car, parseDate(params.get("pick")), parseDate(params.get("return")));
+        return String.valueOf(rent.upgrade(newCar));
+    }
+
+    /**
+     * Answers an overlap request
+     */
+    private String overlap(HashMap<String, String> params)
+    {
+        String type = params.get("type");
+        String brand = params.get("brand");
+        String gear = params.get("gear");
+        Car car = parseCar(type, brand, gear);
+        Car otherCar = parseCar(params.getOrDefault("otherType", type), params.getOrDefault("otherBrand", brand),
+                                params.getOrDefault("otherGear", gear));
+
+        Rent rent = new Rent(required(params.get("name"), "name"), car,
+                             parseDate(params.get("pick")), parseDate(params.get("return")));
+        Rent other = new Rent(required(params.get("otherName"), "otherName"), otherCar,
+                              parseDate(params.get("otherPick")), parseDate(params.get("otherReturn")));
+        Rent unified = rent.overlap(other);
+        return (unified == null) ? "none" : unified.toString();
+    }
+
+    /**
+     * Returns the date of a dd/mm/yyyy text, from the cache if it was parsed before
+     * The cached dates are shared, so they must never be changed
+     */
+    private Date parseDate(String text)
+    {
+        required(text, "date");
+        Date date = _dates.get(text);
+        if (date != null)
+            return date;
+
+        String[] parts = text.split("/");
+        if (parts.length != 3)
+            throw new IllegalArgumentException("Invalid date: " + text);
+        int day = parseInt(parts[0], text);
+        int month = parseInt(parts[1], text);
+        int year = parseInt(parts[2], text);
+        if (!Date.isValidDate(day, month, year))
+            throw new IllegalArgumentException("Invalid date: " + text);
+
+        date = new Date(day, month, year);
+        cache(_dates, text, date);
+        return date;
+    }
+
+    /**
+     * Returns the car of a type, brand and gear, from the cache if its brand was parsed before
+     * The cached cars are shared, so they must never be changed
+     */
+    private Car parseCar(String type, String brand, String gear)
+    {
+        char carType = parseType(type);
+        required(brand, "brand");
+        boolean isManual = required(gear, "gear").equals("manual");
+        if (!isManual && !gear.equals("auto"))
+            throw new IllegalArgumentException("Invalid gear: " + gear);
+
+        Car[] cars = _cars.get(brand);
+        if (cars == null)
+        {
+            // all the cars of a brand are created together, so a cached array is never changed
+            cars = new Car[_NUM_OF_TYPES * 2];
+            for (int i = 0; i < cars.length; i++)
+                cars[i] = new Car(_CAR_ID, (char)('A' + i / 2), brand, i % 2 == 1);
+            cache(_cars, brand, cars);
+        }
+        return cars[(carType - 'A') * 2 + (isManual ? 1 : 0)];
+    }
+
+    private static char parseType(String type)
+    {
+        required(type, "type");
+        if (type.length() != 1 || !Car.isValidType(type.charAt(0)))
+            throw new IllegalArgumentException("Invalid type: " + type);
+        return type.charAt(0);
+    }
+
+    private static int parseInt(String text, String value)
+    {
+        try
+        {
+            return Integer.parseInt(text);
+        }
+        catch (NumberFormatException e)
+        {
+            throw new IllegalArgumentException("Invalid date: " + value);
+        }
+    }
+
+    private static String required(String value, String name)
+    {
+        if (value == null)
+            throw new IllegalArgumentException("Missing parameter: " + name);
+        return value;
+    }
+
+    /**
+     * Adds a value to a cache, clearing the cache first if it is full
+     */
+    private static <T> void cache(ConcurrentHashMap<String, T> cache, String key, T value)
+    {
+        if (cache.size() >= _MAX_CACHE_SIZE)
+            cache.clear();
+        cache.put(key, value);
+    }
+
+    /**
+     * Returns an executor with a virtual thread per task if the JDK has them, otherwise a bounded
+     * thread pool that rejects requests when its threads and its queue are full
+     */
+    private static ExecutorService newExecutor()
+    {
+        try
+        {
+            return (ExecutorService)Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        }
+        catch (ReflectiveOperationException e)
+        {
+            ThreadPoolExecutor pool = new ThreadPoolExecutor(_MAX_THREADS, _MAX_THREADS, 60, TimeUnit.SECONDS,
+                                                             new ArrayBlockingQueue<Runnable>(_MAX_QUEUED),
+                                                             new ThreadPoolExecutor.AbortPolicy());
+            pool.allowCoreThreadTimeOut(true); // an idle server keeps no threads
+            return pool;
+        }
+    }
+
+    /**
+     * Handles a request by parsing its query parameters and writing the answer as plain text
+     */
+    private abstract static class Handler implements HttpHandler
+    {
+        /**
+         * Returns the answer to a request
+         * @param params Query parameters of the request
+         * @return Answer text
+         */
+        abstract String answer(HashMap<String, String> params);
+
+        public void handle(HttpExchange exchange) throws IOException
+        {
+            int status = 200;
+            String answer;
+            try
+            {
+                if (!exchange.getRequestMethod().equals("GET"))
+                {
+                    status = 405;
+                    answer = "Only GET is supported";
+                }
+                else
+                    answer = answer(parseQuery(exchange.getRequestURI().getRawQuery()));
+            }
+            catch (IllegalArgumentException e)
+            {
+                status = 400;
+                answer = e.getMessage();
+            }
+            catch (RuntimeException e)
+            {
+                status = 500;
+                answer = "Internal error";
+            }
+
+            try
+            {
+                byte[] body = answer.getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+                exchange.sendResponseHeaders(status, body.length);
+                try (OutputStream out = exchange.getResponseBody())
+                {
+                    out.write(body);
+                }
+            }
+            finally
+            {
+                exchange.close();
+            }
+        }
+
+        private static HashMap<String, String> parseQuery(String query)
+        {
+            HashMap<String, String> params = new HashMap<String, String>();
+            if (query == null)
+                return params;
+
+            for (String pair : query.split("&"))
+            {
+                int equals = pair.indexOf('=');
+                if (equals > 0)
+                    params.put(URLDecoder.decode(pair.substring(0, equals), StandardCharsets.UTF_8),
+                               URLDecoder.decode(pair.substring(equals + 1), StandardCharsets.UTF_8));
+            }
+            return params;
+        }
+    }
+}
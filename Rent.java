@@ -1,3 +1,5 @@
+import java.nio.ByteBuffer;
+
 
 /**
  * Represents a car rental
@@ -11,6 +13,8 @@ public class Rent
     private Date _pickDate;
     private Date _returnDate;
     
+    private static volatile PricingEngine _pricingEngine = new TablePricingEngine(); // prices all the rents
+    
     /**
      * Initialize a Rent object
      * The return date must be at least one day after the pickup date, 
@@ -22,7 +26,7 @@ public class Rent
      */
     public Rent (String name, Car car, Date pick, Date ret)
     {
-        _name = name;
+        _name = Interner.names().intern(name); // equal names share a single String
         _car = new Car (car);
         _pickDate = new Date (pick);
         
@@ -45,6 +49,52 @@ public class Rent
         _pickDate = new Date (other._pickDate);
         _returnDate = new Date (other._returnDate);
     }
+
+    /**
+     * Initialize an empty Rent, for adopt only
+     */
+    private Rent ()
+    {
+    }
+
+    /**
+     * Returns a rent that keeps the given car and dates instead of copying them
+     * Only for callers that created the car and the dates for this rent and never use them again
+     * (for example RentalImporter, which creates them for every line it reads)
+     * @param name Customer name
+     * @param car Rented car
+     * @param pick Rent pick up date
+     * @param ret Rent return date, which must be after the pick up date
+     * @return The rent
+     */
+    static Rent adopt (String name, Car car, Date pick, Date ret)
+    {
+        Rent rent = new Rent();
+        rent._name = Interner.names().intern(name);
+        rent._car = car;
+        rent._pickDate = pick;
+        rent._returnDate = ret;
+        return rent;
+    }
+
+    /**
+     * Returns the pricing engine used by all the rents
+     * @return Pricing engine
+     */
+    public static PricingEngine getPricingEngine ()
+    {
+        return _pricingEngine;
+    }
+    
+    /**
+     * Sets the pricing engine used by all the rents
+     * @param pricingEngine New pricing engine (ignored if null)
+     */
+    public static void setPricingEngine (PricingEngine pricingEngine)
+    {
+        if (pricingEngine != null)
+            _pricingEngine = pricingEngine;
+    }
     
     /**
      * Returns the customer's name
@@ -82,13 +132,31 @@ public class Rent
         return new Date(_returnDate);
     }
     
+    /**
+     * Returns the day number of the pickup date, without copying the date
+     * @return Pickup day number (see Date.toEpochDay)
+     */
+    int getPickDay ()
+    {
+        return _pickDate.toEpochDay();
+    }
+    
+    /**
+     * Returns the day number of the return date, without copying the date
+     * @return Return day number (see Date.toEpochDay)
+     */
+    int getReturnDay ()
+    {
+        return _returnDate.toEpochDay();
+    }
+    
     /**
      * Sets the customer name
      * @param name Customer name 
      */
     public void setName (String name)
     {
-        _name = name;
+        _name = Interner.names().intern(name);
     }
     
     /**
@@ -131,10 +199,36 @@ public class Rent
      */
     public boolean equals (Rent other)
     {
-        return _name.equals(other._name) && _car.equals(other._car) &&
+        // names are interned, so equal names are almost always the same String
+        return Interner.same(_name, other._name) && _car.equals(other._car) &&
         _pickDate.equals(other._pickDate) && _returnDate.equals(other._returnDate);
     }
     
+    /**
+     * Checks if this rent is the same as another object
+     * The rules are the same of the "equals" method that receives a rent
+     * @param obj Object to compare this rent to
+     * @return True if the object is the same rent
+     */
+    public boolean equals (Object obj)
+    {
+        return (obj instanceof Rent) && equals((Rent)obj);
+    }
+    
+    /**
+     * Returns a hash code of this rent, based on the same fields as equals
+     * (name, car type, brand and gear, pickup and return date)
+     * The hash code changes when the rent is changed, so a rent should not be changed
+     * while it is a key of a hash table
+     * @return Hash code of this rent
+     */
+    public int hashCode ()
+    {
+        int hash = 31 * ((_name == null) ? 0 : _name.hashCode()) + _car.hashCode();
+        hash = 31 * hash + _pickDate.hashCode();
+        return 31 * hash + _returnDate.hashCode();
+    }
+    
     /**
      * Returns the number of rent days
      * @return Number of rent days
@@ -151,38 +245,10 @@ public class Rent
      */
     public int getPrice()
     {
-        // daily price for each car type
-        final int DAILY_PRICE_A_TYPE = 100;
-        final int DAILY_PRICE_B_TYPE = 150;
-        final int DAILY_PRICE_C_TYPE = 180;
-        final int DAILY_PRICE_D_TYPE = 240;
-        final int WEEK_DISCOUNT_PERCENTAGE = 10; //10% off for a full week rental
-        final int DAYS_PER_WEEK = 7;
-        
-        int rentDailyRate; // rent daily rate based on the type
-        
-        // assign the daily price to the rentDailyRate according to the type parameter 
-        switch (_car.getType())
-        {   
-            case 'A': rentDailyRate = DAILY_PRICE_A_TYPE;
-                      break;
-            case 'B': rentDailyRate = DAILY_PRICE_B_TYPE;
-                      break;
-            case 'C': rentDailyRate = DAILY_PRICE_C_TYPE;
-                      break;
-            case 'D': rentDailyRate = DAILY_PRICE_D_TYPE;
-                      break;
-            
-            default : rentDailyRate = DAILY_PRICE_A_TYPE;
-        }
-        // rent weekly rate based on the daily rate including the week discount
-        int rentWeeklyRate = DAYS_PER_WEEK * rentDailyRate * (100 - WEEK_DISCOUNT_PERCENTAGE)/100;
-        int numOfRentDays = howManyDays();
-        
-        // calculate the total price for the rental's days and weeks
-        int totalPrice = (((numOfRentDays / DAYS_PER_WEEK) * rentWeeklyRate) + 
-                           (numOfRentDays % DAYS_PER_WEEK) * rentDailyRate);
-        return totalPrice;
+        long start = Metrics.start();
+        int price = _pricingEngine.getPrice(_car.getType(), _pickDate.toEpochDay(), _returnDate.toEpochDay());
+        Metrics.priceLatency().recordSince(start);
+        return price;
     }
     
     /**
@@ -194,13 +260,19 @@ public class Rent
      */
     public int upgrade (Car newCar)
     {
-        int basicPrice = this.getPrice();
+        long start = Metrics.start();
+        int cost = 0;
         if (newCar.better(_car))
         {   
+            int pick = _pickDate.toEpochDay();
+            int ret = _returnDate.toEpochDay();
+            PricingEngine pricingEngine = _pricingEngine; // both prices from the same engine
+            int basicPrice = pricingEngine.getPrice(_car.getType(), pick, ret);
             _car = new Car (newCar);
-            return  this.getPrice() - basicPrice;
+            cost = pricingEngine.getPrice(_car.getType(), pick, ret) - basicPrice;
         }
-        return 0;
+        Metrics.upgradeLatency().recordSince(start);
+        return cost;
     }
     
     /**
@@ -212,7 +284,9 @@ public class Rent
      */
     public Rent overlap (Rent other)
     {
-        if (_name.equals(other._name) && _car.equals(other._car))
+        long start = Metrics.start();
+        Rent unified = null;
+        if (Interner.same(_name, other._name) && _car.equals(other._car))
         {    
             // checks if the dates are overlapping
             if (!_pickDate.after(other._returnDate) && !_returnDate.before(other._pickDate)) 
@@ -224,10 +298,11 @@ public class Rent
                 Date newReturnDate = (_returnDate.after (other._returnDate))?
                                       new Date (_returnDate) : new Date (other._returnDate) ;
                 
-                return new Rent (_name, _car, newPickDate, newReturnDate);
+                unified = new Rent (_name, _car, newPickDate, newReturnDate);
             }
         }
-        return null;
+        Metrics.overlapLatency().recordSince(start);
+        return unified;
     }
     
     /**
@@ -237,8 +312,53 @@ public class Rent
      */
     public String toString()
     {
-        return "Name:" + getName() + " From:" + _pickDate.toString() + " To:" + 
-        _returnDate.toString() + " Type:" + _car.getType() + " Days:" + howManyDays()
-        + " Price:" + getPrice();
+        StringBuilder out = new StringBuilder(80);
+        formatTo(out);
+        return out.toString();
+    }
+    
+    /**
+     * Appends this rent in the format of toString, without creating Strings for its parts
+     * @param out Builder to append to
+     */
+    public void formatTo(StringBuilder out)
+    {
+        out.append("Name:").append(_name).append(" From:");
+        _pickDate.formatTo(out);
+        out.append(" To:");
+        _returnDate.formatTo(out);
+        out.append(" Type:").append(_car.getType()).append(" Days:").append(howManyDays());
+        out.append(" Price:").append(getPrice());
+    }
+    
+    /**
+     * Returns the largest number of bytes formatTo may write for this rent
+     * @return Maximum length of this rent as UTF-8 bytes
+     */
+    int maxFormattedLength ()
+    {
+        // 2 dates of 10 chars, a type char and 2 numbers of up to 11 chars, with their labels
+        return "Name: From: To: Type: Days: Price:".length() + TextFormat.utf8Length(_name) + 2 * 10 + 1 + 2 * 11;
+    }
+    
+    /**
+     * Writes this rent in the format of toString, as UTF-8 bytes
+     * @param out Buffer to write to
+     * @throws java.nio.BufferOverflowException If the buffer is too small
+     */
+    public void formatTo(ByteBuffer out)
+    {
+        TextFormat.putString(out, "Name:");
+        TextFormat.putString(out, _name);
+        TextFormat.putString(out, " From:");
+        _pickDate.formatTo(out);
+        TextFormat.putString(out, " To:");
+        _returnDate.formatTo(out);
+        TextFormat.putString(out, " Type:");
+        out.put((byte)_car.getType());
+        TextFormat.putString(out, " Days:");
+        TextFormat.putInt(out, howManyDays());
+        TextFormat.putString(out, " Price:");
+        TextFormat.putInt(out, getPrice());
     }
 }
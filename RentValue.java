@@ -0,0 +1,246 @@
+
+/**
+ * Represents an immutable car rental
+ * A RentValue and the car and dates it holds never change, so its getters return them
+ * without copying. Instead of setters it has "with" methods that return a changed copy.
+ * @author (agent)
+ * @version (18/10/2026)
+ */
+public final class RentValue
+{
+    private final String _name; // Customer name
+    private final CarValue _car;
+    private final DateValue _pickDate;
+    private final DateValue _returnDate;
+
+    /**
+     * Initialize a rent value
+     * The return date must be at least one day after the pickup date,
+     * otherwise set it to one day after the pick up date.
+     * @param name Customer name
+     * @param car Rented car
+     * @param pick Rent pick up date
+     * @param ret Rent return date
+     */
+    public RentValue(String name, CarValue car, DateValue pick, DateValue ret)
+    {
+        _name = Interner.names().intern(name);
+        _car = car;
+        _pickDate = pick;
+        _returnDate = ret.after(pick) ? ret : pick.tomorrow();
+    }
+
+    /**
+     * Initialize a rent value with the same details as a mutable rent
+     * @param rent Rent to be copied
+     */
+    public RentValue(Rent rent)
+    {
+        this(rent.getName(), new CarValue(rent.getCar()),
+             new DateValue(rent.getPickDate()), new DateValue(rent.getReturnDate()));
+    }
+
+    /**
+     * Returns a new mutable rent with the same details
+     * @return Rent with the same details
+     */
+    public Rent toRent()
+    {
+        return new Rent(_name, _car.toCar(), _pickDate.toDate(), _returnDate.toDate());
+    }
+
+    /**
+     * Returns the customer's name
+     * @return Customer's name
+     */
+    public String getName()
+    {
+        return _name;
+    }
+
+    /**
+     * Returns the rented car
+     * @return Car
+     */
+    public CarValue getCar()
+    {
+        return _car;
+    }
+
+    /**
+     * Returns the pickup date
+     * @return Pickup date
+     */
+    public DateValue getPickDate()
+    {
+        return _pickDate;
+    }
+
+    /**
+     * Returns the return date
+     * @return Return date
+     */
+    public DateValue getReturnDate()
+    {
+        return _returnDate;
+    }
+
+    /**
+     * Returns a rent with a different customer name
+     * @param name Customer name
+     * @return Rent with the new name
+     */
+    public RentValue withName(String name)
+    {
+        return new RentValue(name, _car, _pickDate, _returnDate);
+    }
+
+    /**
+     * Returns a rent with a different car
+     * @param car New rented car
+     * @return Rent with the new car
+     */
+    public RentValue withCar(CarValue car)
+    {
+        return new RentValue(_name, car, _pickDate, _returnDate);
+    }
+
+    /**
+     * Returns a rent with a different pickup date
+     * The pickup date must be at least one day before the return date,
+     * otherwise the new pickup date won't be assigned
+     * @param pickDate New pickup date
+     * @return Rent with the new pickup date, or this rent if the date is not before the return date
+     */
+    public RentValue withPickDate(DateValue pickDate)
+    {
+        if (!pickDate.before(_returnDate))
+            return this;
+        return new RentValue(_name, _car, pickDate, _returnDate);
+    }
+
+    /**
+     * Returns a rent with a different return date
+     * The return date must be at least one day after the pickup date,
+     * otherwise the new return date won't be assigned
+     * @param returnDate New return date
+     * @return Rent with the new return date, or this rent if the date is not after the pickup date
+     */
+    public RentValue withReturnDate(DateValue returnDate)
+    {
+        if (!returnDate.after(_pickDate))
+            return this;
+        return new RentValue(_name, _car, _pickDate, returnDate);
+    }
+
+    /**
+     * Checks if 2 rents are the same
+     * rents are considered the same if they have the same name, car, pickup and return date
+     * @param other Rent to compare this rent to
+     * @return True if the rents are the same
+     */
+    public boolean equals(RentValue other)
+    {
+        return Interner.same(_name, other._name) && _car.equals(other._car) &&
+        _pickDate.equals(other._pickDate) && _returnDate.equals(other._returnDate);
+    }
+
+    /**
+     * Checks if this rent is the same as another object
+     * The rules are the same of the "equals" method that receives a rent
+     * @param obj Object to compare this rent to
+     * @return True if the object is the same rent
+     */
+    public boolean equals(Object obj)
+    {
+        return (obj instanceof RentValue) && equals((RentValue)obj);
+    }
+
+    /**
+     * Returns a hash code of this rent, based on the same fields as equals
+     * (name, car type, brand and gear, pickup and return date)
+     * The hash code is the same as the hash code of the same Rent
+     * @return Hash code of this rent
+     */
+    public int hashCode()
+    {
+        int hash = 31 * ((_name == null) ? 0 : _name.hashCode()) + _car.hashCode();
+        hash = 31 * hash + _pickDate.hashCode();
+        return 31 * hash + _returnDate.hashCode();
+    }
+
+    /**
+     * Returns the number of rent days
+     * @return Number of rent days
+     */
+    public int howManyDays()
+    {
+        return _pickDate.difference(_returnDate);
+    }
+
+    /**
+     * Returns the rent total price
+     * @return Rent total price
+     */
+    public int getPrice()
+    {
+        return Rent.getPricingEngine().getPrice(_car.getType(), _pickDate.toEpochDay(), _returnDate.toEpochDay());
+    }
+
+    /**
+     * Returns the additional cost of upgrading this rent to another car
+     * @param newCar New car to upgrade to
+     * @return Upgrade cost, or 0 if the given car is not better than the current car
+     */
+    public int upgradeCost(CarValue newCar)
+    {
+        if (!newCar.better(_car))
+            return 0;
+        PricingEngine pricing = Rent.getPricingEngine();
+        int pick = _pickDate.toEpochDay();
+        int ret = _returnDate.toEpochDay();
+        return pricing.getPrice(newCar.getType(), pick, ret) - pricing.getPrice(_car.getType(), pick, ret);
+    }
+
+    /**
+     * Tries to upgrade the car to a better car
+     * @param newCar New car to upgrade to
+     * @return Rent with the new car if it is better than the current car, otherwise this rent
+     */
+    public RentValue upgrade(CarValue newCar)
+    {
+        if (!newCar.better(_car))
+            return this;
+        return new RentValue(_name, newCar, _pickDate, _returnDate);
+    }
+
+    /**
+     * Checks if there is a double listing of a rent for the same person and car with an overlap
+     * in the rental days
+     * If there is - returns a rent with the unified dates, otherwise - returns null
+     * @param other Another rent
+     * @return Unified rent or null - if there is no overlapping
+     */
+    public RentValue overlap(RentValue other)
+    {
+        if (Interner.same(_name, other._name) && _car.equals(other._car)
+            && !_pickDate.after(other._returnDate) && !_returnDate.before(other._pickDate))
+        {
+            DateValue newPickDate = _pickDate.before(other._pickDate) ? _pickDate : other._pickDate;
+            DateValue newReturnDate = _returnDate.after(other._returnDate) ? _returnDate : other._returnDate;
+            return new RentValue(_name, _car, newPickDate, newReturnDate);
+        }
+        return null;
+    }
+
+    /**
+     * Returns a String that represents this rent
+     * @return String that represents this rent in the following format:
+     * Name:Rama From:30/10/2022 To:12/11/2022 Type:B Days:13 Price:1845
+     */
+    public String toString()
+    {
+        return "Name:" + _name + " From:" + _pickDate + " To:" + _returnDate
+        + " Type:" + _car.getType() + " Days:" + howManyDays() + " Price:" + getPrice();
+    }
+}
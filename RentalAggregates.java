@@ -0,0 +1,274 @@
+import java.util.HashMap;
+
+/**
+ * Running totals of revenue, rental days and upgrades, by car type, brand and month.
+ * The totals are updated for every change of a rental in O(1) time, so reading them never
+ * goes over the rentals again. The aggregates can listen to a BookingJournal, or be told
+ * about the changes directly.
+ * A rental is counted in the month (and year) of its pickup date. Its revenue is its price
+ * when it was added or last changed; that same price is kept by rental id and subtracted when
+ * the rental changes again or is removed, so the totals stay right when the pricing engine
+ * changes in between.
+ * @author (agent)
+ * @version (18/10/2026)
+ */
+public class RentalAggregates implements BookingJournal.Listener
+{
+    private static final int _NUM_OF_TYPES = 4; // types 'A' to 'D'
+
+    private final Totals _total;
+    private final Totals[] _byType;
+    private final HashMap<String, Totals> _byBrand;
+    private final HashMap<Integer, Totals> _byMonth; // year * 12 + month - 1
+    private final HashMap<Long, Integer> _prices; // the price each rental was counted with, by id
+
+    /**
+     * The totals of a group of rentals
+     */
+    public static class Totals
+    {
+        private long _count;
+        private long _revenue;
+        private long _days;
+        private long _upgrades;
+        private long _upgradeRevenue;
+
+        private Totals()
+        {
+        }
+
+        private Totals(Totals other)
+        {
+            _count = other._count;
+            _revenue = other._revenue;
+            _days = other._days;
+            _upgrades = other._upgrades;
+            _upgradeRevenue = other._upgradeRevenue;
+        }
+
+        /**
+         * Returns the number of rentals
+         * @return Number of rentals
+         */
+        public long getCount()
+        {
+            return _count;
+        }
+
+        /**
+         * Returns the total price of the rentals (including upgrades)
+         * @return Total revenue
+         */
+        public long getRevenue()
+        {
+            return _revenue;
+        }
+
+        /**
+         * Returns the total number of rent days
+         * @return Total rent days
+         */
+        public long getDays()
+        {
+            return _days;
+        }
+
+        /**
+         * Returns the number of upgrades so far (including upgrades of rentals that were removed later)
+         * @return Number of upgrades
+         */
+        public long getUpgrades()
+        {
+            return _upgrades;
+        }
+
+        /**
+         * Returns the total cost of the upgrades so far (including upgrades of rentals that were removed later)
+         * @return Upgrade revenue
+         */
+        public long getUpgradeRevenue()
+        {
+            return _upgradeRevenue;
+        }
+
+        private void add(int sign, int price, int days)
+        {
+            _count += sign;
+            _revenue += sign * price;
+            _days += sign * days;
+        }
+    }
+
+    /**
+     * Initialize empty aggregates
+     */
+    public RentalAggregates()
+    {
+        _total = new Totals();
+        _byType = new Totals[_NUM_OF_TYPES];
+        for (int i = 0; i < _NUM_OF_TYPES; i++)
+            _byType[i] = new Totals();
+        _byBrand = new HashMap<String, Totals>();
+        _byMonth = new HashMap<Integer, Totals>();
+        _prices = new HashMap<Long, Integer>();
+    }
+
+    /**
+     * Adds a new rental
+     * @param id Rental id
+     * @param rent The new rental
+     */
+    public synchronized void created(long id, Rent rent)
+    {
+        add(id, rent);
+    }
+
+    /**
+     * Replaces a rental whose dates or car changed
+     * @param id Rental id
+     * @param before The rental before the change
+     * @param after The rental after the change
+     */
+    public synchronized void changed(long id, Rent before, Rent after)
+    {
+        subtract(id, before);
+        add(id, after);
+    }
+
+    /**
+     * Replaces a rental that was upgraded, and adds the upgrade cost
+     * @param id Rental id
+     * @param before The rental before the upgrade
+     * @param after The rental after the upgrade
+     * @param cost Upgrade cost returned by Rent.upgrade
+     */
+    public synchronized void upgraded(long id, Rent before, Rent after, int cost)
+    {
+        subtract(id, before);
+        add(id, after);
+
+        Car car = after.getCar();
+        Date pick = after.getPickDate();
+        Totals[] groups = {_total, _byType[car.getType() - 'A'], totalsOf(_byBrand, car.getBrand()),
+                           totalsOf(_byMonth, monthKey(pick.getMonth(), pick.getYear()))};
+        for (Totals totals : groups)
+        {
+            totals._upgrades++;
+            totals._upgradeRevenue += cost;
+        }
+    }
+
+    /**
+     * Removes a rental
+     * @param id Rental id
+     * @param rent The removed rental
+     */
+    public synchronized void removed(long id, Rent rent)
+    {
+        subtract(id, rent);
+    }
+
+    /**
+     * Returns the totals of all the rentals
+     * @return Copy of the totals
+     */
+    public synchronized Totals totals()
+    {
+        return new Totals(_total);
+    }
+
+    /**
+     * Returns the totals of the rentals of a car type
+     * @param type Car type ('A' to 'D')
+     * @return Copy of the totals (empty for an invalid type)
+     */
+    public synchronized Totals totalsOfType(char type)
+    {
+        return Car.isValidType(type) ? new Totals(_byType[type - 'A']) : new Totals();
+    }
+
+    /**
+     * Returns the totals of the rentals of a car brand
+     * @param brand Car brand
+     * @return Copy of the totals (empty if there are no such rentals)
+     */
+    public synchronized Totals totalsOfBrand(String brand)
+    {
+        Totals totals = _byBrand.get(brand);
+        return (totals == null) ? new Totals() : new Totals(totals);
+    }
+
+    /**
+     * Returns the totals of the rentals picked up in a month
+     * @param month Month (1 to 12)
+     * @param year Year
+     * @return Copy of the totals (empty if there are no such rentals)
+     */
+    public synchronized Totals totalsOfMonth(int month, int year)
+    {
+        Totals totals = _byMonth.get(monthKey(month, year));
+        return (totals == null) ? new Totals() : new Totals(totals);
+    }
+
+    /**
+     * Returns the totals of every brand
+     * @return Copies of the totals by brand
+     */
+    public synchronized HashMap<String, Totals> totalsByBrand()
+    {
+        HashMap<String, Totals> copy = new HashMap<String, Totals>();
+        for (String brand : _byBrand.keySet())
+            copy.put(brand, new Totals(_byBrand.get(brand)));
+        return copy;
+    }
+
+    /**
+     * Adds a rental to all its groups with its current price, and keeps that price
+     */
+    private void add(long id, Rent rent)
+    {
+        int price = rent.getPrice();
+        _prices.put(id, price);
+        add(1, rent, price);
+    }
+
+    /**
+     * Subtracts a rental from all its groups with the price it was added with
+     */
+    private void subtract(long id, Rent rent)
+    {
+        Integer price = _prices.remove(id);
+        add(-1, rent, (price == null) ? rent.getPrice() : price); // an unknown id was never added
+    }
+
+    /**
+     * Adds (sign 1) or subtracts (sign -1) a rental from all its groups
+     */
+    private void add(int sign, Rent rent, int price)
+    {
+        Car car = rent.getCar();
+        Date pick = rent.getPickDate();
+        int days = rent.howManyDays();
+
+        _total.add(sign, price, days);
+        _byType[car.getType() - 'A'].add(sign, price, days);
+        totalsOf(_byBrand, car.getBrand()).add(sign, price, days);
+        totalsOf(_byMonth, monthKey(pick.getMonth(), pick.getYear())).add(sign, price, days);
+    }
+
+    private static <K> Totals totalsOf(HashMap<K, Totals> groups, K key)
+    {
+        Totals totals = groups.get(key);
+        if (totals == null)
+        {
+            totals = new Totals();
+            groups.put(key, totals);
+        }
+        return totals;
+    }
+
+    private static int monthKey(int month, int year)
+    {
+        return year * 12 + month - 1;
+    }
+}
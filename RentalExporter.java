@@ -0,0 +1,90 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Exports rentals as text lines, one rental per line in the format of Rent.toString.
+ * Every rental is written straight into a reusable direct buffer with Rent.formatTo,
+ * and the buffer is written to the channel whenever the next line might not fit, so the
+ * export creates no Strings.
+ * An exporter is not thread safe, use one exporter per thread.
+ * @author (agent)
+ * @version (18/10/2026)
+ */
+public class RentalExporter
+{
+    private static final int _BUFFER_SIZE = 1 << 16;
+
+    private ByteBuffer _buffer;
+
+    /**
+     * Initialize an exporter
+     */
+    public RentalExporter()
+    {
+        _buffer = ByteBuffer.allocateDirect(_BUFFER_SIZE);
+    }
+
+    /**
+     * Exports rentals to a file (replacing the file if it exists)
+     * @param file File to write
+     * @param rents Rentals to export
+     * @return Number of exported rentals
+     * @throws IOException If the file could not be written
+     */
+    public long exportFile(Path file, Iterable<Rent> rents) throws IOException
+    {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                                    StandardOpenOption.TRUNCATE_EXISTING))
+        {
+            return exportTo(channel, rents);
+        }
+    }
+
+    /**
+     * Exports rentals to a channel
+     * @param channel Channel to write to (it is not closed)
+     * @param rents Rentals to export
+     * @return Number of exported rentals
+     * @throws IOException If the channel could not be written
+     */
+    public long exportTo(WritableByteChannel channel, Iterable<Rent> rents) throws IOException
+    {
+        long count = 0;
+        _buffer.clear();
+        for (Rent rent : rents)
+        {
+            write(channel, rent);
+            count++;
+        }
+        flush(channel);
+        return count;
+    }
+
+    /**
+     * Adds a line of a rental to the buffer, writing the buffer first if the line might not fit
+     */
+    private void write(WritableByteChannel channel, Rent rent) throws IOException
+    {
+        int maxLength = rent.maxFormattedLength() + 1; // and the new line
+        if (_buffer.remaining() < maxLength)
+        {
+            flush(channel);
+            if (_buffer.capacity() < maxLength) // the line is longer than the whole buffer
+                _buffer = ByteBuffer.allocateDirect(Math.max(_buffer.capacity() * 2, maxLength));
+        }
+        rent.formatTo(_buffer);
+        _buffer.put((byte)'\n');
+    }
+
+    private void flush(WritableByteChannel channel) throws IOException
+    {
+        _buffer.flip();
+        while (_buffer.hasRemaining())
+            channel.write(_buffer);
+        _buffer.clear();
+    }
+}
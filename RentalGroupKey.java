@@ -0,0 +1,68 @@
+/**
+ * The key of a group of rentals of the same customer and the same kind of car.
+ * Cars are compared the way Car.equals compares them (type, brand and gear), so the key of a
+ * rental equals the key of every rental of the same customer with an equal car.
+ * @author (agent)
+ * @version (18/10/2026)
+ */
+final class RentalGroupKey
+{
+    private final String _name;
+    private final char _type;
+    private final String _brand;
+    private final boolean _isManual;
+
+    /**
+     * Initialize the key of a customer and a car
+     * @param name Customer name
+     * @param car Rented car
+     */
+    RentalGroupKey(String name, Car car)
+    {
+        _name = name;
+        _type = car.getType();
+        _brand = car.getBrand();
+        _isManual = car.isManual();
+    }
+
+    /**
+     * Initialize the key of a rental
+     * @param rent Rental
+     */
+    RentalGroupKey(Rent rent)
+    {
+        this(rent.getName(), rent.getCar());
+    }
+
+    /**
+     * Checks if two keys are of the same group
+     * @param other Key to compare this key to
+     * @return True if the keys have the same name, car type, brand and gear
+     */
+    public boolean equals(RentalGroupKey other)
+    {
+        return _type == other._type && _isManual == other._isManual
+               && Interner.same(_name, other._name) && Interner.same(_brand, other._brand);
+    }
+
+    /**
+     * Checks if this key is the same as another object
+     * @param obj Object to compare this key to
+     * @return True if the object is a key of the same group
+     */
+    public boolean equals(Object obj)
+    {
+        return (obj instanceof RentalGroupKey) && equals((RentalGroupKey)obj);
+    }
+
+    /**
+     * Returns a hash code of this key, based on the same fields as equals
+     * @return Hash code of this key
+     */
+    public int hashCode()
+    {
+        int hash = 31 * ((_name == null) ? 0 : _name.hashCode()) + _type;
+        hash = 31 * hash + ((_brand == null) ? 0 : _brand.hashCode());
+        return 31 * hash + (_isManual ? 1 : 0);
+    }
+}
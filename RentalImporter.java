@@ -0,0 +1,739 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Imports rentals from a file, one rental per line, in one of two formats:
+ * CSV - name,id,type,brand,gear,pick,return - for example: Rama,1234567,B,Mazda,manual,30/10/2022,12/11/2022
+ * The name and the brand may be written in double quotes, with a quote inside written as two quotes
+ * (for example "Cohen, Dan"); a quoted field cannot hold a line break.
+ * NDJSON - a JSON object per line with the same fields, in any order, for example:
+ * {"name":"Rama","id":1234567,"type":"B","brand":"Mazda","gear":"manual","pick":"30/10/2022","return":"12/11/2022"}
+ * The id is a JSON number and the other fields are JSON strings. Other fields with a string,
+ * number, true, false or null value are skipped; objects and arrays are not supported.
+ * The gear is "manual" or "auto" and the dates are in the dd/mm/yyyy format.
+ * The file is read in large blocks and the numbers and dates are parsed directly from the bytes.
+ * A line is accepted only if it passes the checks of Car and Date and the return date is after
+ * the pickup date; other lines are reported as rejected instead of being set to default values.
+ * Accepted rentals are handed over in batches, and the next block is read only after the
+ * listener returns, so a slow listener slows down the reading.
+ * An importer is not thread safe, use one importer per thread.
+ * @author (agent)
+ * @version (18/10/2026)
+ */
+public class RentalImporter
+{
+    /** Format of comma separated lines */
+    public static final int CSV = 0;
+    /** Format of a JSON object per line */
+    public static final int NDJSON = 1;
+
+    private static final int _BUFFER_SIZE = 1 << 16;
+    private static final int _BRAND_TABLE_SIZE = 1 << 10; // a power of two
+    private static final int _MAX_CACHED_BRANDS = _BRAND_TABLE_SIZE / 2; // the table is at most half full
+    private static final String[] _FIELDS = {"name", "id", "type", "brand", "gear", "pick", "return"};
+
+    private int _format;
+    private int _batchSize;
+    private boolean _hasHeader; // true if the first line holds the column names
+    private long _accepted;
+    private long _rejected;
+
+    private int _pos; // current position while parsing a line
+    private String _error; // reason the last line was rejected
+    private byte[][] _brandBytes; // hash table of the brands seen so far, to avoid creating the same String again
+    private String[] _brands; // the String of each brand in _brandBytes
+    private int _numOfBrands;
+
+    // the last text field read: _textBytes from _textStart to _textEnd, or _textString if it had JSON escapes
+    private byte[] _textBytes;
+    private int _textStart;
+    private int _textEnd;
+    private String _textString;
+    private byte[] _unquoted; // a quoted CSV field without its doubled quotes
+
+    /**
+     * Receives the results of an import
+     */
+    public interface Listener
+    {
+        /**
+         * Receives a batch of accepted rentals
+         * @param batch Accepted rentals, in the order of the file
+         */
+        void accept(ArrayList<Rent> batch);
+
+        /**
+         * Receives a rejected line
+         * @param lineNumber Number of the line in the file (starting from 1)
+         * @param line Content of the line
+         * @param reason Reason the line was rejected
+         */
+        void reject(long lineNumber, String line, String reason);
+    }
+
+    /**
+     * Initialize an importer of CSV files
+     * @param batchSize Number of rentals in each batch (at least 1)
+     * @param hasHeader True if the first line of the file holds the column names and should be skipped
+     */
+    public RentalImporter(int batchSize, boolean hasHeader)
+    {
+        this(CSV, batchSize, hasHeader);
+    }
+
+    /**
+     * Initialize an importer
+     * @param format CSV or NDJSON (any other value is read as CSV)
+     * @param batchSize Number of rentals in each batch (at least 1)
+     * @param hasHeader True if the first line of the file holds the column names and should be skipped
+     */
+    public RentalImporter(int format, int batchSize, boolean hasHeader)
+    {
+        _format = (format == NDJSON) ? NDJSON : CSV;
+        _batchSize = Math.max(batchSize, 1);
+        _hasHeader = hasHeader;
+        _brandBytes = new byte[_BRAND_TABLE_SIZE][];
+        _brands = new String[_BRAND_TABLE_SIZE];
+        _unquoted = new byte[_BUFFER_SIZE];
+    }
+
+    /**
+     * Returns the number of rentals accepted by the last import
+     * @return Number of accepted rentals
+     */
+    public long getAccepted()
+    {
+        return _accepted;
+    }
+
+    /**
+     * Returns the number of lines rejected by the last import
+     * @return Number of rejected lines
+     */
+    public long getRejected()
+    {
+        return _rejected;
+    }
+
+    /**
+     * Imports all the rentals of a file
+     * @param file File to import
+     * @param listener Listener to hand the results to
+     * @return Number of accepted rentals
+     * @throws IOException If the file could not be read
+     */
+    public long importFile(Path file, Listener listener) throws IOException
+    {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ))
+        {
+            return importFrom(channel, listener);
+        }
+    }
+
+    /**
+     * Imports all the rentals that can be read from a channel
+     * @param channel Channel to read from (it is not closed)
+     * @param listener Listener to hand the results to
+     * @return Number of accepted rentals
+     * @throws IOException If the channel could not be read
+     */
+    public long importFrom(ReadableByteChannel channel, Listener listener) throws IOException
+    {
+        _accepted = 0;
+        _rejected = 0;
+        ByteBuffer buffer = ByteBuffer.allocate(_BUFFER_SIZE);
+        byte[] bytes = buffer.array();
+        ArrayList<Rent> batch = new ArrayList<Rent>(_batchSize);
+        long lineNumber = 0;
+        boolean skipping = false; // true while skipping the rest of a line that is too long
+        boolean end = false;
+
+        while (!end)
+        {
+            end = channel.read(buffer) < 0;
+            int limit = buffer.position();
+            int start = 0;
+
+            for (int i = 0; i < limit; i++)
+            {
+                if (bytes[i] != '\n')
+                    continue;
+                if (skipping)
+                    skipping = false;
+                else
+                    handleLine(bytes, start, i, ++lineNumber, batch, listener);
+                start = i + 1;
+            }
+
+            // the last line of the file may have no line break
+            if (end && start < limit && !skipping)
+            {
+                handleLine(bytes, start, limit, ++lineNumber, batch, listener);
+                start = limit;
+            }
+
+            if (skipping)
+                start = limit;
+            else if (start == 0 && limit == bytes.length)
+            {
+                // the line does not fit in the buffer, report its beginning and skip the rest
+                report(listener, ++lineNumber, bytes, 0, 80, "line too long");
+                skipping = true;
+                start = limit;
+            }
+
+            // keep the unfinished line at the beginning of the buffer
+            System.arraycopy(bytes, start, bytes, 0, limit - start);
+            buffer.position(limit - start);
+        }
+
+        if (!batch.isEmpty())
+            listener.accept(batch);
+        return _accepted;
+    }
+
+    /**
+     * Parses a line and adds its rental to the batch, or reports it as rejected
+     */
+    private void handleLine(byte[] bytes, int start, int end, long lineNumber, ArrayList<Rent> batch,
+                            Listener listener)
+    {
+        if (end > start && bytes[end - 1] == '\r')
+            end--;
+        if (end == start || (_hasHeader && lineNumber == 1))
+            return;
+
+        Rent rent = (_format == NDJSON) ? parseJson(bytes, start, end) : parseCsv(bytes, start, end);
+        if (rent == null)
+        {
+            report(listener, lineNumber, bytes, start, end, _error);
+            return;
+        }
+
+        _accepted++;
+        batch.add(rent);
+        if (batch.size() == _batchSize)
+        {
+            listener.accept(new ArrayList<Rent>(batch));
+            batch.clear();
+        }
+    }
+
+    private void report(Listener listener, long lineNumber, byte[] bytes, int start, int end, String reason)
+    {
+        _rejected++;
+        listener.reject(lineNumber, new String(bytes, start, end - start, StandardCharsets.UTF_8), reason);
+    }
+
+    /**
+     * Parses a CSV line
+     * @return The rental of the line, or null if it is not valid (and then _error holds the reason)
+     */
+    private Rent parseCsv(byte[] bytes, int start, int end)
+    {
+        _pos = start;
+
+        if (!parseCsvText(bytes, end))
+            return reject("invalid name");
+        if (_textEnd == _textStart)
+            return reject("missing name");
+        String name = text();
+        if (!skipComma(bytes, end))
+            return reject("invalid id");
+
+        int id = parseNumber(bytes, fieldEnd(bytes, end), 7);
+        if (!Car.isValidId(id) || !skipComma(bytes, end))
+            return reject("invalid id");
+
+        char type = (_pos < end) ? (char)bytes[_pos++] : ' ';
+        if (!Car.isValidType(type) || !skipComma(bytes, end))
+            return reject("invalid type");
+
+        if (!parseCsvText(bytes, end))
+            return reject("invalid brand");
+        String brand = brandOfText();
+        if (!skipComma(bytes, end))
+            return reject("missing brand");
+
+        boolean isManual;
+        int gearEnd = fieldEnd(bytes, end);
+        if (matches(bytes, _pos, gearEnd, "manual"))
+            isManual = true;
+        else if (matches(bytes, _pos, gearEnd, "auto"))
+            isManual = false;
+        else
+            return reject("invalid gear");
+        _pos = gearEnd;
+        if (!skipComma(bytes, end))
+            return reject("missing pickup date");
+
+        Date pick = parseDate(bytes, fieldEnd(bytes, end));
+        if (pick == null || !skipComma(bytes, end))
+            return reject("invalid pickup date");
+
+        Date ret = parseDate(bytes, end);
+        if (ret == null)
+            return reject("invalid return date");
+        if (!ret.after(pick))
+            return reject("return date is not after pickup date");
+
+        // the car and the dates were created for this line only, so the rent can keep them
+        return Rent.adopt(name, new Car(id, type, brand, isManual), pick, ret);
+    }
+
+    /**
+     * Reads a CSV text field at the current position, which may be in double quotes, and moves
+     * to the comma after it (see text and brandOfText)
+     * @return False if the quotes are not closed or more text follows them
+     */
+    private boolean parseCsvText(byte[] bytes, int end)
+    {
+        _textString = null;
+        if (_pos >= end || bytes[_pos] != '"')
+        {
+            int fieldEnd = fieldEnd(bytes, end);
+            setText(bytes, _pos, fieldEnd);
+            _pos = fieldEnd;
+            return true;
+        }
+
+        int start = _pos + 1;
+        int i = start;
+        int length = -1; // length in _unquoted, once a doubled quote was found
+        while (true)
+        {
+            if (i >= end)
+                return false;
+            if (bytes[i] == '"')
+            {
+                if (i + 1 >= end || bytes[i + 1] != '"')
+                    break;
+                // a doubled quote, so the field is copied without the second quote
+                if (length < 0)
+                {
+                    length = i - start;
+                    System.arraycopy(bytes, start, _unquoted, 0, length);
+                }
+                _unquoted[length++] = '"';
+                i += 2;
+                continue;
+            }
+            if (length >= 0)
+                _unquoted[length++] = bytes[i];
+            i++;
+        }
+
+        if (length < 0)
+            setText(bytes, start, i);
+        else
+            setText(_unquoted, 0, length);
+        _pos = i + 1;
+        return _pos == end || bytes[_pos] == ',';
+    }
+
+    /**
+     * Parses an NDJSON line
+     * @return The rental of the line, or null if it is not valid (and then _error holds the reason)
+     */
+    private Rent parseJson(byte[] bytes, int start, int end)
+    {
+        _pos = start;
+        String name = null;
+        int id = -1;
+        char type = ' ';
+        String brand = null;
+        int gear = -1; // 1 for manual, 0 for auto
+        Date pick = null;
+        Date ret = null;
+
+        skipSpaces(bytes, end);
+        if (_pos >= end || bytes[_pos] != '{')
+            return reject("not a JSON object");
+        _pos++;
+        skipSpaces(bytes, end);
+        boolean empty = (_pos < end && bytes[_pos] == '}');
+        if (empty)
+            _pos++;
+
+        while (!empty)
+        {
+            // the field name
+            skipSpaces(bytes, end);
+            if (!parseJsonText(bytes, end) || _textString != null)
+                return reject("invalid field name");
+            int field = -1;
+            for (int i = 0; i < _FIELDS.length && field < 0; i++)
+                if (matches(_textBytes, _textStart, _textEnd, _FIELDS[i]))
+                    field = i;
+            skipSpaces(bytes, end);
+            if (_pos >= end || bytes[_pos] != ':')
+                return reject("not a JSON object");
+            _pos++;
+            skipSpaces(bytes, end);
+
+            switch (field)
+            {
+                case 0: if (name != null || !parseJsonText(bytes, end))
+                            return reject("invalid name");
+                        name = text();
+                        break;
+                case 1: if (id >= 0)
+                            return reject("invalid id");
+                        id = parseNumber(bytes, valueEnd(bytes, end), 7);
+                        if (!Car.isValidId(id))
+                            return reject("invalid id");
+                        break;
+                case 2: if (type != ' ' || !parseJsonText(bytes, end) || _textString != null
+                            || _textEnd - _textStart != 1 || !Car.isValidType((char)_textBytes[_textStart]))
+                            return reject("invalid type");
+                        type = (char)_textBytes[_textStart];
+                        break;
+                case 3: if (brand != null || !parseJsonText(bytes, end))
+                            return reject("invalid brand");
+                        brand = brandOfText();
+                        break;
+                case 4: if (gear >= 0 || !parseJsonText(bytes, end) || _textString != null)
+                            return reject("invalid gear");
+                        if (matches(_textBytes, _textStart, _textEnd, "manual"))
+                            gear = 1;
+                        else if (matches(_textBytes, _textStart, _textEnd, "auto"))
+                            gear = 0;
+                        else
+                            return reject("invalid gear");
+                        break;
+                case 5: if (pick != null || (pick = parseJsonDate(bytes, end)) == null)
+                            return reject("invalid pickup date");
+                        break;
+                case 6: if (ret != null || (ret = parseJsonDate(bytes, end)) == null)
+                            return reject("invalid return date");
+                        break;
+                default: if (!skipJsonValue(bytes, end))
+                             return reject("unsupported value");
+            }
+
+            skipSpaces(bytes, end);
+            if (_pos >= end)
+                return reject("not a JSON object");
+            byte next = bytes[_pos++];
+            if (next == '}')
+                break;
+            if (next != ',')
+                return reject("not a JSON object");
+        }
+        skipSpaces(bytes, end);
+        if (_pos != end)
+            return reject("text after the JSON object");
+
+        if (name == null || name.isEmpty())
+            return reject("missing name");
+        if (id < 0)
+            return reject("invalid id");
+        if (type == ' ')
+            return reject("invalid type");
+        if (brand == null)
+            return reject("missing brand");
+        if (gear < 0)
+            return reject("invalid gear");
+        if (pick == null)
+            return reject("invalid pickup date");
+        if (ret == null)
+            return reject("invalid return date");
+        if (!ret.after(pick))
+            return reject("return date is not after pickup date");
+
+        return Rent.adopt(name, new Car(id, type, brand, gear == 1), pick, ret);
+    }
+
+    /**
+     * Reads a JSON string at the current position and moves after it (see text and brandOfText)
+     * @return False if there is no string at the current position or it is not valid
+     */
+    private boolean parseJsonText(byte[] bytes, int end)
+    {
+        _textString = null;
+        if (_pos >= end || bytes[_pos] != '"')
+            return false;
+
+        int start = _pos + 1;
+        boolean escaped = false;
+        int i = start;
+        while (i < end && bytes[i] != '"')
+        {
+            if (bytes[i] >= 0 && bytes[i] < ' ')
+                return false;
+            if (bytes[i] == '\\')
+            {
+                escaped = true;
+                i++;
+            }
+            i++;
+        }
+        if (i >= end)
+            return false;
+
+        _pos = i + 1;
+        if (!escaped)
+        {
+            setText(bytes, start, i);
+            return true;
+        }
+        // escapes are rare, so they are decoded from a String
+        _textString = unescape(new String(bytes, start, i - start, StandardCharsets.UTF_8));
+        return _textString != null;
+    }
+
+    /**
+     * Returns a JSON string without its escapes, or null if an escape is not valid
+     */
+    private static String unescape(String text)
+    {
+        StringBuilder out = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++)
+        {
+            char c = text.charAt(i);
+            if (c != '\\')
+            {
+                out.append(c);
+                continue;
+            }
+            c = text.charAt(++i); // the string ends with a quote, so an escape is never last
+            switch (c)
+            {
+                case '"': case '\\': case '/': out.append(c);
+                                               break;
+                case 'b': out.append('\b');
+                          break;
+                case 'f': out.append('\f');
+                          break;
+                case 'n': out.append('\n');
+                          break;
+                case 'r': out.append('\r');
+                          break;
+                case 't': out.append('\t');
+                          break;
+                case 'u': if (i + 4 >= text.length())
+                              return null;
+                          int code = 0;
+                          for (int j = i + 1; j <= i + 4; j++)
+                          {
+                              int digit = Character.digit(text.charAt(j), 16);
+                              if (digit < 0)
+                                  return null;
+                              code = code * 16 + digit;
+                          }
+                          out.append((char)code);
+                          i += 4;
+                          break;
+                default : return null;
+            }
+        }
+        return out.toString();
+    }
+
+    /**
+     * Reads a JSON string holding a dd/mm/yyyy date at the current position and moves after it
+     * @return The date, or null if it is not a valid date
+     */
+    private Date parseJsonDate(byte[] bytes, int end)
+    {
+        if (!parseJsonText(bytes, end) || _textString != null)
+            return null;
+        int pos = _pos;
+        _pos = _textStart;
+        Date date = parseDate(bytes, _textEnd);
+        _pos = pos;
+        return date;
+    }
+
+    /**
+     * Moves over a JSON string, number, true, false or null at the current position
+     * @return False if there is no such value at the current position
+     */
+    private boolean skipJsonValue(byte[] bytes, int end)
+    {
+        if (_pos < end && bytes[_pos] == '"')
+            return parseJsonText(bytes, end);
+
+        int valueEnd = valueEnd(bytes, end);
+        boolean valid = valueEnd > _pos;
+        if (!matches(bytes, _pos, valueEnd, "true") && !matches(bytes, _pos, valueEnd, "false")
+            && !matches(bytes, _pos, valueEnd, "null"))
+            for (int i = _pos; i < valueEnd && valid; i++)
+                valid = (bytes[i] >= '0' && bytes[i] <= '9') || bytes[i] == '-' || bytes[i] == '+'
+                        || bytes[i] == '.' || bytes[i] == 'e' || bytes[i] == 'E';
+        _pos = valueEnd;
+        return valid;
+    }
+
+    /**
+     * Returns the position after a JSON value that is not a string: the next comma, closing brace,
+     * space or end
+     */
+    private int valueEnd(byte[] bytes, int end)
+    {
+        int i = _pos;
+        while (i < end && bytes[i] != ',' && bytes[i] != '}' && !isSpace(bytes[i]))
+            i++;
+        return i;
+    }
+
+    private void skipSpaces(byte[] bytes, int end)
+    {
+        while (_pos < end && isSpace(bytes[_pos]))
+            _pos++;
+    }
+
+    private static boolean isSpace(byte b)
+    {
+        return b == ' ' || b == '\t';
+    }
+
+    private void setText(byte[] bytes, int start, int end)
+    {
+        _textBytes = bytes;
+        _textStart = start;
+        _textEnd = end;
+    }
+
+    /**
+     * Returns the last text field read
+     */
+    private String text()
+    {
+        if (_textString != null)
+            return _textString;
+        return new String(_textBytes, _textStart, _textEnd - _textStart, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns the last text field read as a brand, reusing the String of a brand seen before
+     */
+    private String brandOfText()
+    {
+        return (_textString != null) ? _textString : brand(_textBytes, _textStart, _textEnd);
+    }
+
+    private Rent reject(String reason)
+    {
+        _error = reason;
+        return null;
+    }
+
+    /**
+     * Returns the position of the next comma, or end if there is none
+     */
+    private int fieldEnd(byte[] bytes, int end)
+    {
+        int i = _pos;
+        while (i < end && bytes[i] != ',')
+            i++;
+        return i;
+    }
+
+    /**
+     * Moves over the comma at the current position
+     * @return True if there was a comma
+     */
+    private boolean skipComma(byte[] bytes, int end)
+    {
+        if (_pos >= end || bytes[_pos] != ',')
+            return false;
+        _pos++;
+        return true;
+    }
+
+    /**
+     * Parses the digits from the current position up to end, and moves to end
+     * @return The number, or -1 if there are no digits, other characters or too many digits
+     */
+    private int parseNumber(byte[] bytes, int end, int maxDigits)
+    {
+        if (end == _pos || end - _pos > maxDigits)
+            return -1;
+
+        int value = 0;
+        for (; _pos < end; _pos++)
+        {
+            int digit = bytes[_pos] - '0';
+            if (digit < 0 || digit > 9)
+                return -1;
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    /**
+     * Parses a dd/mm/yyyy date from the current position up to end, and moves to end
+     * @return The date, or null if it is not a valid date
+     */
+    private Date parseDate(byte[] bytes, int end)
+    {
+        int day = parseNumber(bytes, slashOrEnd(bytes, end), 2);
+        if (day < 0 || _pos >= end)
+            return null;
+        _pos++;
+        int month = parseNumber(bytes, slashOrEnd(bytes, end), 2);
+        if (month < 0 || _pos >= end)
+            return null;
+        _pos++;
+        int year = parseNumber(bytes, end, 4);
+        if (year < 0 || !Date.isValidDate(day, month, year))
+            return null;
+        return new Date(day, month, year);
+    }
+
+    private int slashOrEnd(byte[] bytes, int end)
+    {
+        int i = _pos;
+        while (i < end && bytes[i] != '/')
+            i++;
+        return i;
+    }
+
+    private static boolean matches(byte[] bytes, int start, int end, String word)
+    {
+        if (end - start != word.length())
+            return false;
+        for (int i = 0; i < word.length(); i++)
+            if (bytes[start + i] != word.charAt(i))
+                return false;
+        return true;
+    }
+
+    /**
+     * Returns the brand written in the given bytes, reusing the String of a brand seen before
+     * The brands are kept in a hash table with linear probing, which is never more than half full
+     */
+    private String brand(byte[] bytes, int start, int end)
+    {
+        int hash = 0;
+        for (int i = start; i < end; i++)
+            hash = 31 * hash + bytes[i];
+        int mask = _BRAND_TABLE_SIZE - 1;
+        int slot = (hash ^ (hash >>> 16)) & mask;
+        int length = end - start;
+        while (_brandBytes[slot] != null)
+        {
+            byte[] known = _brandBytes[slot];
+            if (known.length == length && Arrays.equals(known, 0, length, bytes, start, end))
+                return _brands[slot];
+            slot = (slot + 1) & mask;
+        }
+
+        String brand = new String(bytes, start, length, StandardCharsets.UTF_8);
+        if (_numOfBrands < _MAX_CACHED_BRANDS)
+        {
+            _brandBytes[slot] = Arrays.copyOfRange(bytes, start, end);
+            _brands[slot] = brand;
+            _numOfBrands++;
+        }
+        return brand;
+    }
+}
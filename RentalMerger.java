@@ -0,0 +1,159 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Merges all the overlapping rentals of a large set of rentals.
+ * The rentals are grouped by customer name and car (compared like Car.equals), each group
+ * is sorted by pickup date and its overlapping runs are merged in a single pass.
+ * The groups are merged in parallel on a fork-join pool.
+ * The result is the same as calling Rent.overlap again and again until no two rentals overlap,
+ * including its rule that rentals that only share a single day overlap.
+ * A merged rental gets the car of the rental of its run that was picked up first.
+ * @author (agent)
+ * @version (18/10/2026)
+ */
+public class RentalMerger
+{
+    private static final int _GROUPS_PER_TASK = 256; // groups merged by a single task without splitting
+
+    private ForkJoinPool _pool;
+
+    /**
+     * Initialize a merger that uses the common fork-join pool
+     */
+    public RentalMerger()
+    {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Initialize a merger that uses a given fork-join pool
+     * @param pool Pool to run the merging on
+     */
+    public RentalMerger(ForkJoinPool pool)
+    {
+        _pool = pool;
+    }
+
+    /**
+     * Merges the overlapping rentals
+     * @param rents Rentals to merge (they are not changed)
+     * @return The merged rentals, grouped by customer and car and ordered by pickup date in each group
+     */
+    public ArrayList<Rent> merge(Collection<Rent> rents)
+    {
+        HashMap<RentalGroupKey, ArrayList<Rent>> byKey = new HashMap<RentalGroupKey, ArrayList<Rent>>();
+        for (Rent rent : rents)
+        {
+            RentalGroupKey key = new RentalGroupKey(rent);
+            ArrayList<Rent> group = byKey.get(key);
+            if (group == null)
+            {
+                group = new ArrayList<Rent>();
+                byKey.put(key, group);
+            }
+            group.add(rent);
+        }
+
+        ArrayList<ArrayList<Rent>> groups = new ArrayList<ArrayList<Rent>>(byKey.values());
+        ArrayList<ArrayList<Rent>> merged = new ArrayList<ArrayList<Rent>>(groups.size());
+        for (int i = 0; i < groups.size(); i++)
+            merged.add(null);
+        _pool.invoke(new MergeTask(groups, merged, 0, groups.size()));
+
+        ArrayList<Rent> result = new ArrayList<Rent>();
+        for (ArrayList<Rent> group : merged)
+            result.addAll(group);
+        return result;
+    }
+
+    /**
+     * Merges a range of groups, splitting it in two while it is large
+     */
+    private static class MergeTask extends RecursiveAction
+    {
+        private static final long serialVersionUID = 1L;
+
+        private ArrayList<ArrayList<Rent>> _groups;
+        private ArrayList<ArrayList<Rent>> _merged;
+        private int _from;
+        private int _to;
+
+        private MergeTask(ArrayList<ArrayList<Rent>> groups, ArrayList<ArrayList<Rent>> merged, int from, int to)
+        {
+            _groups = groups;
+            _merged = merged;
+            _from = from;
+            _to = to;
+        }
+
+        protected void compute()
+        {
+            if (_to - _from <= _GROUPS_PER_TASK)
+            {
+                for (int i = _from; i < _to; i++)
+                    _merged.set(i, mergeGroup(_groups.get(i)));
+                return;
+            }
+
+            int middle = (_from + _to) >>> 1;
+            invokeAll(new MergeTask(_groups, _merged, _from, middle),
+                      new MergeTask(_groups, _merged, middle, _to));
+        }
+    }
+
+    /**
+     * Merges the rentals of a single customer and car
+     * @param group Rentals of the same customer and car
+     * @return The merged rentals, ordered by pickup date
+     */
+    static ArrayList<Rent> mergeGroup(ArrayList<Rent> group)
+    {
+        int count = group.size();
+        int[] picks = new int[count];
+        int[] returns = new int[count];
+        long[] order = new long[count]; // pickup day in the high 32 bits, position in the low bits
+        for (int i = 0; i < count; i++)
+        {
+            picks[i] = group.get(i).getPickDate().toEpochDay();
+            returns[i] = group.get(i).getReturnDate().toEpochDay();
+            order[i] = ((long)picks[i] << 32) | i;
+        }
+        Arrays.sort(order);
+
+        ArrayList<Rent> result = new ArrayList<Rent>();
+        int first = (int)order[0]; // first rental of the current run
+        int runSize = 1;
+        int runReturn = returns[first];
+        for (int k = 1; k <= count; k++)
+        {
+            int next = (k < count) ? (int)order[k] : -1;
+            // the dates overlap if the next pickup is not after the return of the run
+            if (next >= 0 && picks[next] <= runReturn)
+            {
+                runReturn = Math.max(runReturn, returns[next]);
+                runSize++;
+                continue;
+            }
+
+            Rent rent = group.get(first);
+            if (runSize == 1)
+                result.add(new Rent(rent));
+            else
+                result.add(new Rent(rent.getName(), rent.getCar(), Date.fromEpochDay(picks[first]),
+                                    Date.fromEpochDay(runReturn)));
+
+            if (next >= 0)
+            {
+                first = next;
+                runSize = 1;
+                runReturn = returns[next];
+            }
+        }
+        return result;
+    }
+}
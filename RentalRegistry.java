@@ -0,0 +1,144 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+
+/**
+ * A registry of distinct rentals with hash based lookup.
+ * Rentals are the same when Rent.equals says so (the same name, car type, brand and gear,
+ * pickup and return date), so adding, finding, and removing a rental take O(1) time.
+ * The registry also indexes its rentals by customer name and by car id.
+ * The registry keeps its own copies of the rentals, so changing a rental after adding it
+ * does not affect the registry.
+ * @author (agent)
+ * @version (18/10/2026)
+ */
+public class RentalRegistry
+{
+    private HashMap<Rent, Rent> _rents; // every rental is mapped to the copy kept in the registry
+    private HashMap<String, LinkedHashSet<Rent>> _byName;
+    private HashMap<Integer, LinkedHashSet<Rent>> _byCarId;
+
+    /**
+     * Initialize an empty registry
+     */
+    public RentalRegistry()
+    {
+        _rents = new HashMap<Rent, Rent>();
+        _byName = new HashMap<String, LinkedHashSet<Rent>>();
+        _byCarId = new HashMap<Integer, LinkedHashSet<Rent>>();
+    }
+
+    /**
+     * Returns the number of rentals in the registry
+     * @return Number of rentals
+     */
+    public int size()
+    {
+        return _rents.size();
+    }
+
+    /**
+     * Adds a rental, only if the same rental is not in the registry yet
+     * @param rent Rental to add
+     * @return True if the rental was added, false if it is a duplicate
+     */
+    public boolean add(Rent rent)
+    {
+        if (_rents.containsKey(rent))
+            return false;
+
+        Rent copy = new Rent(rent);
+        _rents.put(copy, copy);
+        indexOf(_byName, copy.getName()).add(copy);
+        indexOf(_byCarId, copy.getCar().getId()).add(copy);
+        return true;
+    }
+
+    /**
+     * Checks if the same rental is in the registry
+     * @param rent Rental to look for
+     * @return True if the registry has the same rental
+     */
+    public boolean contains(Rent rent)
+    {
+        return _rents.containsKey(rent);
+    }
+
+    /**
+     * Returns the rental of the registry that is the same as a given rental
+     * @param rent Rental to look for
+     * @return Copy of the registered rental (its car id may differ), or null if there is none
+     */
+    public Rent find(Rent rent)
+    {
+        Rent found = _rents.get(rent);
+        return (found == null) ? null : new Rent(found);
+    }
+
+    /**
+     * Removes the rental that is the same as a given rental
+     * @param rent Rental to remove
+     * @return True if a rental was removed
+     */
+    public boolean remove(Rent rent)
+    {
+        Rent removed = _rents.remove(rent);
+        if (removed == null)
+            return false;
+
+        removeFromIndex(_byName, removed.getName(), removed);
+        removeFromIndex(_byCarId, removed.getCar().getId(), removed);
+        return true;
+    }
+
+    /**
+     * Returns the rentals of a customer
+     * @param name Customer name
+     * @return List of the rentals, in the order they were added (empty if there are none)
+     */
+    public ArrayList<Rent> rentalsOf(String name)
+    {
+        return copies(_byName.get(name));
+    }
+
+    /**
+     * Returns the rentals of a car
+     * @param carId Car license number
+     * @return List of the rentals, in the order they were added (empty if there are none)
+     */
+    public ArrayList<Rent> rentalsOfCar(int carId)
+    {
+        return copies(_byCarId.get(carId));
+    }
+
+    private static <K> LinkedHashSet<Rent> indexOf(HashMap<K, LinkedHashSet<Rent>> index, K key)
+    {
+        LinkedHashSet<Rent> rents = index.get(key);
+        if (rents == null)
+        {
+            rents = new LinkedHashSet<Rent>();
+            index.put(key, rents);
+        }
+        return rents;
+    }
+
+    private static <K> void removeFromIndex(HashMap<K, LinkedHashSet<Rent>> index, K key, Rent rent)
+    {
+        LinkedHashSet<Rent> rents = index.get(key);
+        if (rents != null)
+        {
+            rents.remove(rent);
+            if (rents.isEmpty())
+                index.remove(key);
+        }
+    }
+
+    private static ArrayList<Rent> copies(LinkedHashSet<Rent> rents)
+    {
+        ArrayList<Rent> result = new ArrayList<Rent>();
+        if (rents != null)
+            for (Rent rent : rents)
+                result.add(new Rent(rent));
+        return result;
+    }
+}
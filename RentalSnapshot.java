@@ -0,0 +1,326 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+
+/**
+ * A binary snapshot file of rentals, read through a memory mapping.
+ * The file starts with a header and the brand and customer name dictionaries,
+ * followed by one fixed-width record per rental:
+ * car id (int), type (byte), manual flag (byte), 2 unused bytes, brand index (int),
+ * name index (int), pickup day number (int) and return day number (int).
+ * Opening a snapshot only reads the header and the dictionaries; a record becomes a
+ * Rent object only when it is asked for. The brand and name indexes of a record are checked
+ * when it is read, so a corrupted record is found then, not when the snapshot is opened.
+ * A snapshot is written to a temporary file that then replaces the file, so a failed write
+ * leaves the previous snapshot as it was.
+ * Files are limited to 2GB, the size of a single memory mapping.
+ * @author (agent)
+ * @version (18/10/2026)
+ */
+public class RentalSnapshot
+{
+    private static final int _MAGIC = 0x52454E54; // "RENT"
+    private static final int _VERSION = 1;
+    private static final int _HEADER_SIZE = 20; // magic, version, records, brands, names
+    private static final int _RECORD_SIZE = 24;
+    private static final int _RECORDS_PER_CHUNK = 4096; // records written at a time
+    private static final int _NULL_LENGTH = -1; // dictionary length of a null value
+
+    private MappedByteBuffer _records;
+    private int _recordsStart; // position of the first record in the file
+    private int _size; // number of records
+    private String[] _brands;
+    private String[] _names;
+
+    /**
+     * Writes a snapshot file of the given rentals (replacing the file if it exists)
+     * @param file File to write
+     * @param rents Rentals to write
+     * @throws IOException If the file could not be written or would be larger than 2GB
+     */
+    public static void write(Path file, Collection<Rent> rents) throws IOException
+    {
+        // the dictionaries come before the records, so they are collected first
+        ArrayList<String> brands = new ArrayList<String>();
+        HashMap<String, Integer> brandIndex = new HashMap<String, Integer>();
+        ArrayList<String> names = new ArrayList<String>();
+        HashMap<String, Integer> nameIndex = new HashMap<String, Integer>();
+        for (Rent rent : rents)
+        {
+            index(rent.getCar().getBrand(), brands, brandIndex);
+            index(rent.getName(), names, nameIndex);
+        }
+
+        ByteBuffer brandBytes = dictionary(brands);
+        ByteBuffer nameBytes = dictionary(names);
+        long fileSize = _HEADER_SIZE + (long)brandBytes.remaining() + nameBytes.remaining()
+                        + (long)rents.size() * _RECORD_SIZE;
+        if (fileSize > Integer.MAX_VALUE)
+            throw new IOException("Snapshot would be larger than 2GB: " + fileSize + " bytes");
+
+        ByteBuffer header = ByteBuffer.allocate(_HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(_MAGIC).putInt(_VERSION).putInt(rents.size()).putInt(brands.size()).putInt(names.size());
+        header.flip();
+
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try
+        {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                                        StandardOpenOption.TRUNCATE_EXISTING))
+            {
+                writeFully(channel, header);
+                writeFully(channel, brandBytes);
+                writeFully(channel, nameBytes);
+                writeRecords(channel, rents, brandIndex, nameIndex);
+                channel.force(true);
+            }
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        }
+        catch (IOException e)
+        {
+            try
+            {
+                Files.deleteIfExists(temp);
+            }
+            catch (IOException deleteFailure)
+            {
+                e.addSuppressed(deleteFailure);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Writes the records of the rentals through a buffer of a few thousand records
+     */
+    private static void writeRecords(FileChannel channel, Collection<Rent> rents, HashMap<String, Integer> brandIndex,
+                                     HashMap<String, Integer> nameIndex) throws IOException
+    {
+        ByteBuffer records = ByteBuffer.allocate(_RECORDS_PER_CHUNK * _RECORD_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        for (Rent rent : rents)
+        {
+            if (!records.hasRemaining())
+            {
+                records.flip();
+                writeFully(channel, records);
+                records.clear();
+            }
+            Car car = rent.getCar();
+            records.putInt(car.getId());
+            records.put((byte)car.getType());
+            records.put((byte)(car.isManual() ? 1 : 0));
+            records.putShort((short)0);
+            records.putInt(brandIndex.get(car.getBrand()));
+            records.putInt(nameIndex.get(rent.getName()));
+            records.putInt(rent.getPickDate().toEpochDay());
+            records.putInt(rent.getReturnDate().toEpochDay());
+        }
+        records.flip();
+        writeFully(channel, records);
+    }
+
+    /**
+     * Opens a snapshot file
+     * @param file File to open
+     * @throws IOException If the file could not be read or is not a snapshot file
+     */
+    public RentalSnapshot(Path file) throws IOException
+    {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ))
+        {
+            if (channel.size() > Integer.MAX_VALUE)
+                throw new IOException("Snapshot file is larger than 2GB: " + file);
+
+            MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            map.order(ByteOrder.LITTLE_ENDIAN);
+            if (map.remaining() < _HEADER_SIZE || map.getInt() != _MAGIC || map.getInt() != _VERSION)
+                throw new IOException("Not a rental snapshot file: " + file);
+
+            _size = map.getInt();
+            int numOfBrands = map.getInt();
+            int numOfNames = map.getInt();
+            // every record and every dictionary value takes at least 4 bytes of the file
+            if (_size < 0 || numOfBrands < 0 || numOfNames < 0
+                || (long)numOfBrands + numOfNames > map.remaining() / 4)
+                throw new IOException("Snapshot header is corrupted: " + file);
+            _brands = new String[numOfBrands];
+            _names = new String[numOfNames];
+            readDictionary(map, _brands);
+            readDictionary(map, _names);
+            _recordsStart = map.position();
+
+            if ((long)_size * _RECORD_SIZE > map.limit() - _recordsStart)
+                throw new IOException("Snapshot file is truncated: " + file);
+            _records = map;
+        }
+    }
+
+    /**
+     * Returns the number of rentals in the snapshot
+     * @return Number of rentals
+     */
+    public int size()
+    {
+        return _size;
+    }
+
+    /**
+     * Returns a rental of the snapshot as a new Rent object
+     * @param i Position of the rental
+     * @return Rent with the details of the rental
+     * @throws IllegalStateException If the record of the rental is corrupted
+     */
+    public Rent get(int i)
+    {
+        int pos = position(i);
+        Car car = new Car(_records.getInt(pos), (char)_records.get(pos + 4), lookup(_brands, pos + 8, i, "brand"),
+                          _records.get(pos + 5) != 0);
+        return new Rent(lookup(_names, pos + 12, i, "name"), car, Date.fromEpochDay(_records.getInt(pos + 16)),
+                        Date.fromEpochDay(_records.getInt(pos + 20)));
+    }
+
+    /**
+     * Returns the car id of a rental without creating a Rent object
+     * @param i Position of the rental
+     * @return Car license number
+     */
+    public int getCarId(int i)
+    {
+        return _records.getInt(position(i));
+    }
+
+    /**
+     * Returns the car type of a rental without creating a Rent object
+     * @param i Position of the rental
+     * @return Car category type
+     */
+    public char getType(int i)
+    {
+        return (char)_records.get(position(i) + 4);
+    }
+
+    /**
+     * Returns the customer name of a rental without creating a Rent object
+     * @param i Position of the rental
+     * @return Customer name
+     * @throws IllegalStateException If the record of the rental is corrupted
+     */
+    public String getName(int i)
+    {
+        return lookup(_names, position(i) + 12, i, "name");
+    }
+
+    /**
+     * Returns the pickup day number of a rental without creating a Rent object
+     * @param i Position of the rental
+     * @return Pickup day number (see Date.toEpochDay)
+     */
+    public int getPickDay(int i)
+    {
+        return _records.getInt(position(i) + 16);
+    }
+
+    /**
+     * Returns the return day number of a rental without creating a Rent object
+     * @param i Position of the rental
+     * @return Return day number (see Date.toEpochDay)
+     */
+    public int getReturnDay(int i)
+    {
+        return _records.getInt(position(i) + 20);
+    }
+
+    private int position(int i)
+    {
+        if (i < 0 || i >= _size)
+            throw new IndexOutOfBoundsException("Rental " + i + " out of " + _size);
+        return _recordsStart + i * _RECORD_SIZE;
+    }
+
+    /**
+     * Returns the dictionary value whose index is at a position of the records
+     * @throws IllegalStateException If the index is not in the dictionary
+     */
+    private String lookup(String[] dictionary, int pos, int i, String field)
+    {
+        int index = _records.getInt(pos);
+        if (index < 0 || index >= dictionary.length)
+            throw new IllegalStateException("Snapshot record " + i + " is corrupted: " + field + " index " + index
+                                            + " out of " + dictionary.length);
+        return dictionary[index];
+    }
+
+    private static int index(String value, ArrayList<String> values, HashMap<String, Integer> index)
+    {
+        Integer id = index.get(value);
+        if (id == null)
+        {
+            id = values.size();
+            values.add(value);
+            index.put(value, id);
+        }
+        return id;
+    }
+
+    /**
+     * Encodes a dictionary as a length (int) and UTF-8 bytes for each value
+     * (a null value has the length -1 and no bytes)
+     */
+    private static ByteBuffer dictionary(ArrayList<String> values) throws IOException
+    {
+        ArrayList<byte[]> encoded = new ArrayList<byte[]>();
+        long size = 0;
+        for (String value : values)
+        {
+            byte[] bytes = (value == null) ? null : value.getBytes(StandardCharsets.UTF_8);
+            encoded.add(bytes);
+            size += 4 + ((bytes == null) ? 0 : bytes.length);
+        }
+        if (size > Integer.MAX_VALUE)
+            throw new IOException("Snapshot dictionary is larger than 2GB");
+
+        ByteBuffer buffer = ByteBuffer.allocate((int)size).order(ByteOrder.LITTLE_ENDIAN);
+        for (byte[] bytes : encoded)
+        {
+            if (bytes == null)
+                buffer.putInt(_NULL_LENGTH);
+            else
+                buffer.putInt(bytes.length).put(bytes);
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    private static void readDictionary(ByteBuffer buffer, String[] values) throws IOException
+    {
+        for (int i = 0; i < values.length; i++)
+        {
+            if (buffer.remaining() < 4)
+                throw new IOException("Snapshot dictionary is corrupted");
+            int length = buffer.getInt();
+            if (length == _NULL_LENGTH)
+                continue; // values[i] stays null
+            if (length < 0 || length > buffer.remaining())
+                throw new IOException("Snapshot dictionary is corrupted");
+            byte[] bytes = new byte[length];
+            buffer.get(bytes);
+            values[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException
+    {
+        while (buffer.hasRemaining())
+            channel.write(buffer);
+    }
+}
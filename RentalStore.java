@@ -0,0 +1,301 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Represents a large collection of rentals stored column by column.
+ * Instead of keeping a Rent object (with its own Car and Date objects) for every rental,
+ * each detail is kept in its own primitive array, and customer names and brands are
+ * kept once in a dictionary. Bulk calculations then run as simple loops over the arrays.
+ * @author (agent)
+ * @version (18/10/2026)
+ */
+public class RentalStore
+{
+    private static final int _NUM_OF_TYPES = 4; // types 'A' to 'D'
+    private static final int _INITIAL_CAPACITY = 16;
+
+    private int _size; // number of rentals in the store
+    private byte[] _types; // car type, 0 for 'A' up to 3 for 'D'
+    private int[] _carIds;
+    private boolean[] _isManual;
+    private int[] _brandIds; // index of the brand in _brands
+    private int[] _nameIds; // index of the customer name in _names
+    private int[] _picks; // pickup day number
+    private int[] _returns; // return day number
+
+    private ArrayList<String> _names;
+    private HashMap<String, Integer> _nameIndex;
+    private ArrayList<String> _brands;
+    private HashMap<String, Integer> _brandIndex;
+
+    /**
+     * Initialize an empty store
+     */
+    public RentalStore()
+    {
+        _size = 0;
+        _types = new byte[_INITIAL_CAPACITY];
+        _carIds = new int[_INITIAL_CAPACITY];
+        _isManual = new boolean[_INITIAL_CAPACITY];
+        _brandIds = new int[_INITIAL_CAPACITY];
+        _nameIds = new int[_INITIAL_CAPACITY];
+        _picks = new int[_INITIAL_CAPACITY];
+        _returns = new int[_INITIAL_CAPACITY];
+
+        _names = new ArrayList<String>();
+        _nameIndex = new HashMap<String, Integer>();
+        _brands = new ArrayList<String>();
+        _brandIndex = new HashMap<String, Integer>();
+    }
+
+    /**
+     * Returns the number of rentals in the store
+     * @return Number of rentals
+     */
+    public int size()
+    {
+        return _size;
+    }
+
+    /**
+     * Adds a rental to the store
+     * @param rent Rental to add
+     * @return Position of the rental in the store
+     */
+    public int add(Rent rent)
+    {
+        Car car = rent.getCar();
+        return add(rent.getName(), car.getId(), car.getType(), car.getBrand(), car.isManual(),
+                   rent.getPickDate().toEpochDay(), rent.getReturnDate().toEpochDay());
+    }
+
+    /**
+     * Adds a rental to the store without creating Rent, Car or Date objects
+     * The details are expected to be valid, as they are in a Rent object
+     * @param name Customer name
+     * @param carId Car license number
+     * @param type Car category type
+     * @param brand Car's brand
+     * @param isManual Car gear-type, true if gear is manual
+     * @param pick Pickup day number (see Date.toEpochDay)
+     * @param ret Return day number (see Date.toEpochDay)
+     * @return Position of the rental in the store
+     * @throws IllegalArgumentException If the type is not 'A' to 'D'
+     */
+    public int add(String name, int carId, char type, String brand, boolean isManual, int pick, int ret)
+    {
+        if (!Car.isValidType(type))
+            throw new IllegalArgumentException("Invalid type: " + type);
+        if (_size == _types.length)
+            grow();
+
+        _types[_size] = (byte)(type - 'A');
+        _carIds[_size] = carId;
+        _isManual[_size] = isManual;
+        _brandIds[_size] = intern(brand, _brands, _brandIndex);
+        _nameIds[_size] = intern(name, _names, _nameIndex);
+        _picks[_size] = pick;
+        _returns[_size] = ret;
+        return _size++;
+    }
+
+    /**
+     * Returns a rental of the store as a new Rent object
+     * @param i Position of the rental
+     * @return Rent with the details of the rental
+     */
+    public Rent get(int i)
+    {
+        checkIndex(i);
+        Car car = new Car(_carIds[i], (char)('A' + _types[i]), _brands.get(_brandIds[i]), _isManual[i]);
+        return new Rent(_names.get(_nameIds[i]), car, Date.fromEpochDay(_picks[i]),
+                        Date.fromEpochDay(_returns[i]));
+    }
+
+    /**
+     * Returns the car type of a rental without creating a Rent object
+     * @param i Position of the rental
+     * @return Car category type
+     */
+    public char getType(int i)
+    {
+        checkIndex(i);
+        return (char)('A' + _types[i]);
+    }
+
+    /**
+     * Returns the car brand of a rental without creating a Rent object
+     * @param i Position of the rental
+     * @return Car's brand
+     */
+    public String getBrand(int i)
+    {
+        checkIndex(i);
+        return _brands.get(_brandIds[i]);
+    }
+
+    /**
+     * Returns the pickup day number of a rental without creating a Rent object
+     * @param i Position of the rental
+     * @return Pickup day number (see Date.toEpochDay)
+     */
+    public int getPickDay(int i)
+    {
+        checkIndex(i);
+        return _picks[i];
+    }
+
+    /**
+     * Returns the return day number of a rental without creating a Rent object
+     * @param i Position of the rental
+     * @return Return day number (see Date.toEpochDay)
+     */
+    public int getReturnDay(int i)
+    {
+        checkIndex(i);
+        return _returns[i];
+    }
+
+    /**
+     * Returns the number of rent days of a rental
+     * @param i Position of the rental
+     * @return Number of rent days
+     */
+    public int howManyDays(int i)
+    {
+        checkIndex(i);
+        return _returns[i] - _picks[i];
+    }
+
+    /**
+     * Returns the total price of a rental, the same as Rent.getPrice
+     * @param i Position of the rental
+     * @return Rent total price
+     */
+    public int getPrice(int i)
+    {
+        checkIndex(i);
+        return price(Rent.getPricingEngine(), i);
+    }
+
+    /**
+     * Calculates the price of every rental in the store
+     * @return Array with the price of each rental, by position
+     */
+    public int[] priceAll()
+    {
+        PricingEngine engine = Rent.getPricingEngine(); // the same engine for all the rentals
+        int[] prices = new int[_size];
+        for (int i = 0; i < _size; i++)
+            prices[i] = price(engine, i);
+        return prices;
+    }
+
+    /**
+     * Returns the total price of all the rentals in the store
+     * @return Total revenue
+     */
+    public long totalRevenue()
+    {
+        PricingEngine engine = Rent.getPricingEngine();
+        long total = 0;
+        for (int i = 0; i < _size; i++)
+            total += price(engine, i);
+        return total;
+    }
+
+    /**
+     * Returns the total number of rent days of all the rentals in the store
+     * @return Total rent days
+     */
+    public long totalDays()
+    {
+        long total = 0;
+        for (int i = 0; i < _size; i++)
+            total += _returns[i] - _picks[i];
+        return total;
+    }
+
+    /**
+     * Returns the total price of the rentals of each car type
+     * @return Array of 4 totals, for types 'A' to 'D'
+     */
+    public long[] revenueByType()
+    {
+        PricingEngine engine = Rent.getPricingEngine();
+        long[] totals = new long[_NUM_OF_TYPES];
+        for (int i = 0; i < _size; i++)
+            totals[_types[i]] += price(engine, i);
+        return totals;
+    }
+
+    /**
+     * Returns the total number of rent days of each car type
+     * @return Array of 4 totals, for types 'A' to 'D'
+     */
+    public long[] daysByType()
+    {
+        long[] totals = new long[_NUM_OF_TYPES];
+        for (int i = 0; i < _size; i++)
+            totals[_types[i]] += _returns[i] - _picks[i];
+        return totals;
+    }
+
+    /**
+     * Returns the number of rentals of each car type
+     * @return Array of 4 counts, for types 'A' to 'D'
+     */
+    public int[] countByType()
+    {
+        int[] counts = new int[_NUM_OF_TYPES];
+        for (int i = 0; i < _size; i++)
+            counts[_types[i]]++;
+        return counts;
+    }
+
+    /**
+     * Calculates the price of a rental the same way Rent.getPrice does, including the
+     * date dependent prices of the engine
+     */
+    private int price(PricingEngine engine, int i)
+    {
+        return engine.getPrice((char)('A' + _types[i]), _picks[i], _returns[i]);
+    }
+
+    /**
+     * Returns the index of a String in a dictionary, adding it if it is not there yet
+     */
+    private static int intern(String value, ArrayList<String> values, HashMap<String, Integer> index)
+    {
+        Integer id = index.get(value);
+        if (id == null)
+        {
+            id = values.size();
+            values.add(value);
+            index.put(value, id);
+        }
+        return id;
+    }
+
+    private void checkIndex(int i)
+    {
+        if (i < 0 || i >= _size)
+            throw new IndexOutOfBoundsException("Rental " + i + " out of " + _size);
+    }
+
+    /**
+     * Doubles the capacity of all the arrays
+     */
+    private void grow()
+    {
+        int capacity = _types.length * 2;
+        _types = Arrays.copyOf(_types, capacity);
+        _carIds = Arrays.copyOf(_carIds, capacity);
+        _isManual = Arrays.copyOf(_isManual, capacity);
+        _brandIds = Arrays.copyOf(_brandIds, capacity);
+        _nameIds = Arrays.copyOf(_nameIds, capacity);
+        _picks = Arrays.copyOf(_picks, capacity);
+        _returns = Arrays.copyOf(_returns, capacity);
+    }
+}
@@ -0,0 +1,253 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * Represents an index of rentals, grouped by customer name and car.
+ * Each group keeps its rental periods in an interval tree, so finding the rentals that
+ * overlap a given period takes O(log n + k) instead of calling overlap on every pair.
+ * Rentals of the same group that overlap are merged on insertion the same way Rent.overlap does.
+ * @author (agent)
+ * @version (18/10/2026)
+ */
+public class ReservationIndex
+{
+    private HashMap<RentalGroupKey, Node> _trees; // interval tree of each (name, car) group
+    private int _size; // number of rentals stored in the index
+
+    /**
+     * Represents a single rental period in the interval tree
+     */
+    private static class Node
+    {
+        private int _pick; // pickup day number, the key of the tree
+        private int _ret; // return day number
+        private int _max; // latest return day number in this subtree
+        private int _height;
+        private Rent _rent;
+        private Node _left;
+        private Node _right;
+
+        private Node(Rent rent, int pick, int ret)
+        {
+            _rent = rent;
+            _pick = pick;
+            _ret = ret;
+            _max = ret;
+            _height = 1;
+        }
+    }
+
+    /**
+     * Initialize an empty index
+     */
+    public ReservationIndex()
+    {
+        _trees = new HashMap<RentalGroupKey, Node>();
+        _size = 0;
+    }
+
+    /**
+     * Returns the number of rentals stored in the index
+     * @return Number of rentals
+     */
+    public int size()
+    {
+        return _size;
+    }
+
+    /**
+     * Adds a rental to the index
+     * If the rental overlaps other rentals of the same customer and car, they are all removed
+     * and replaced by a single rental from the earliest pickup date to the latest return date
+     * @param rent Rental to add
+     * @return The rental that was stored in the index (the unified rental if there was an overlap)
+     */
+    public Rent add(Rent rent)
+    {
+        RentalGroupKey key = new RentalGroupKey(rent);
+        Node root = _trees.get(key);
+        int pick = rent.getPickDate().toEpochDay();
+        int ret = rent.getReturnDate().toEpochDay();
+
+        ArrayList<Node> found = new ArrayList<Node>();
+        search(root, pick, ret, found);
+
+        Rent stored = new Rent(rent);
+        for (Node node : found)
+        {
+            // unify the dates exactly like the overlap method does
+            stored = stored.overlap(node._rent);
+            root = delete(root, node._pick);
+            _size--;
+        }
+
+        root = insert(root, new Node(stored, stored.getPickDate().toEpochDay(),
+                                     stored.getReturnDate().toEpochDay()));
+        _size++;
+        _trees.put(key, root);
+        return new Rent(stored);
+    }
+
+    /**
+     * Returns all the rentals of the given rent's customer and car that overlap its rental days
+     * @param rent Rent to look overlaps for
+     * @return List of the overlapping rentals (empty if there are none)
+     */
+    public ArrayList<Rent> overlapping(Rent rent)
+    {
+        return overlapping(rent.getName(), rent.getCar(), rent.getPickDate(), rent.getReturnDate());
+    }
+
+    /**
+     * Returns all the rentals of a customer and car that overlap the given dates
+     * The dates are inclusive, like in the overlap method of Rent
+     * @param name Customer name
+     * @param car Rented car (compared like Car.equals does)
+     * @param pick First day of the period
+     * @param ret Last day of the period
+     * @return List of the overlapping rentals, ordered by pickup date (empty if there are none)
+     */
+    public ArrayList<Rent> overlapping(String name, Car car, Date pick, Date ret)
+    {
+        ArrayList<Node> found = new ArrayList<Node>();
+        search(_trees.get(new RentalGroupKey(name, car)), pick.toEpochDay(), ret.toEpochDay(), found);
+
+        ArrayList<Rent> result = new ArrayList<Rent>();
+        for (Node node : found)
+            result.add(new Rent(node._rent));
+        return result;
+    }
+
+    /**
+     * Collects in order the nodes of the subtree that overlap the period [pick, ret]
+     */
+    private static void search(Node node, int pick, int ret, ArrayList<Node> found)
+    {
+        // no period in this subtree ends on or after the requested pickup day
+        if (node == null || node._max < pick)
+            return;
+
+        search(node._left, pick, ret, found);
+
+        // the right subtree starts even later, so only go on if this node starts in time
+        if (node._pick <= ret)
+        {
+            if (node._ret >= pick)
+                found.add(node);
+            search(node._right, pick, ret, found);
+        }
+    }
+
+    private static int height(Node node)
+    {
+        return (node == null) ? 0 : node._height;
+    }
+
+    private static int max(Node node)
+    {
+        return (node == null) ? Integer.MIN_VALUE : node._max;
+    }
+
+    /**
+     * Updates the height and the latest return day of a node from its children
+     */
+    private static void update(Node node)
+    {
+        node._height = 1 + Math.max(height(node._left), height(node._right));
+        node._max = Math.max(node._ret, Math.max(max(node._left), max(node._right)));
+    }
+
+    private static Node rotateRight(Node node)
+    {
+        Node left = node._left;
+        node._left = left._right;
+        left._right = node;
+        update(node);
+        update(left);
+        return left;
+    }
+
+    private static Node rotateLeft(Node node)
+    {
+        Node right = node._right;
+        node._right = right._left;
+        right._left = node;
+        update(node);
+        update(right);
+        return right;
+    }
+
+    /**
+     * Restores the AVL balance of a node after one of its subtrees changed
+     */
+    private static Node balance(Node node)
+    {
+        update(node);
+        int diff = height(node._left) - height(node._right);
+
+        if (diff > 1)
+        {
+            if (height(node._left._left) < height(node._left._right))
+                node._left = rotateLeft(node._left);
+            return rotateRight(node);
+        }
+        if (diff < -1)
+        {
+            if (height(node._right._right) < height(node._right._left))
+                node._right = rotateRight(node._right);
+            return rotateLeft(node);
+        }
+        return node;
+    }
+
+    private static Node insert(Node node, Node added)
+    {
+        if (node == null)
+            return added;
+
+        if (added._pick < node._pick)
+            node._left = insert(node._left, added);
+        else
+            node._right = insert(node._right, added);
+        return balance(node);
+    }
+
+    /**
+     * Removes the node with the given pickup day
+     * Periods of the same group never overlap, so the pickup day identifies a single node
+     */
+    private static Node delete(Node node, int pick)
+    {
+        if (node == null)
+            return null;
+
+        if (pick < node._pick)
+            node._left = delete(node._left, pick);
+        else if (pick > node._pick)
+            node._right = delete(node._right, pick);
+        else
+        {
+            if (node._left == null)
+                return node._right;
+            if (node._right == null)
+                return node._left;
+
+            // replace the node with the first node of its right subtree
+            Node next = node._right;
+            while (next._left != null)
+                next = next._left;
+            next._right = deleteFirst(node._right);
+            next._left = node._left;
+            return balance(next);
+        }
+        return balance(node);
+    }
+
+    private static Node deleteFirst(Node node)
+    {
+        if (node._left == null)
+            return node._right;
+        node._left = deleteFirst(node._left);
+        return balance(node);
+    }
+}
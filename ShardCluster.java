@@ -0,0 +1,517 @@
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Spreads bookings over several ShardNode nodes.
+ * Bookings are owned by the node of their car id, and the customer index (the car ids of the
+ * bookings of each customer) by the node of the customer name. Quotes, availability checks and
+ * bookings go to the node of their car; the rentals of a customer are gathered in parallel from
+ * the nodes of the customer's cars.
+ * Ids and names are assigned to nodes by jump consistent hashing, so when the number of nodes
+ * changes only the keys that must move to the new nodes are moved (see rebalance).
+ * The nodes are reached through a Transport; LoopbackTransport runs all of them in this process.
+ * Like BookingService, a car can not be booked twice on overlapping days.
+ * The parallel requests run on threads of the cluster, which are stopped by close.
+ * @author (agent)
+ * @version (18/10/2026)
+ */
+public class ShardCluster implements Closeable
+{
+    private final Transport _transport;
+    private final ExecutorService _executor; // runs the parallel requests of gathered queries
+    private final ReentrantReadWriteLock _lock; // requests share it, rebalancing takes it alone
+    private int _numOfNodes;
+
+    /**
+     * Sends requests to the nodes of a cluster
+     */
+    public interface Transport
+    {
+        /**
+         * Sends a request to a node and waits for its response
+         * @param node Node number, from 0 to the number of nodes - 1
+         * @param request Request bytes
+         * @return Response bytes
+         * @throws IOException If the node could not be reached or failed to handle the request
+         */
+        byte[] send(int node, byte[] request) throws IOException;
+    }
+
+    /**
+     * Initialize a cluster
+     * @param transport Transport that reaches the nodes
+     * @param numOfNodes Number of nodes (at least 1)
+     */
+    public ShardCluster(Transport transport, int numOfNodes)
+    {
+        _transport = transport;
+        _executor = Executors.newCachedThreadPool(new ThreadFactory() {
+            public Thread newThread(Runnable task)
+            {
+                Thread thread = new Thread(task, "shard-cluster");
+                thread.setDaemon(true); // a cluster that is not closed does not keep the program running
+                return thread;
+            } });
+        _lock = new ReentrantReadWriteLock();
+        _numOfNodes = Math.max(numOfNodes, 1);
+    }
+
+    /**
+     * Returns the number of nodes
+     * @return Number of nodes
+     */
+    public int getNumOfNodes()
+    {
+        _lock.readLock().lock();
+        try
+        {
+            return _numOfNodes;
+        }
+        finally
+        {
+            _lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the node that owns the bookings of a car
+     * @param carId Car license number
+     * @param numOfNodes Number of nodes
+     * @return Node number
+     */
+    public static int nodeOfCar(int carId, int numOfNodes)
+    {
+        return jumpHash(carId, numOfNodes);
+    }
+
+    /**
+     * Returns the node that owns the customer index of a customer
+     * @param name Customer name
+     * @param numOfNodes Number of nodes
+     * @return Node number
+     */
+    public static int nodeOfCustomer(String name, int numOfNodes)
+    {
+        // String.hashCode is the same in every JVM, so every node finds the same owner
+        return jumpHash(((long)name.hashCode() << 32) ^ 0x5DEECE66DL, numOfNodes);
+    }
+
+    /**
+     * Returns the price of a rental, calculated by the node of the car
+     * The return date rule is the same as the Rent constructor
+     * @param car Rented car
+     * @param pick Pickup date
+     * @param ret Return date
+     * @return Rent total price
+     * @throws IOException If the node could not be reached
+     */
+    public int quote(Car car, Date pick, Date ret) throws IOException
+    {
+        Rent rent = new Rent("", car, pick, ret);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(ShardNode.QUOTE);
+        out.writeChar(car.getType());
+        out.writeInt(rent.getPickDate().toEpochDay());
+        out.writeInt(rent.getReturnDate().toEpochDay());
+        return sendToCar(car.getId(), bytes).readInt();
+    }
+
+    /**
+     * Checks if a car is free for a whole period
+     * @param carId Car license number
+     * @param pick Pickup date
+     * @param ret Return date
+     * @return True if the car has no booking that overlaps the period
+     * @throws IOException If the node could not be reached
+     */
+    public boolean isAvailable(int carId, Date pick, Date ret) throws IOException
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(ShardNode.AVAILABLE);
+        out.writeInt(carId);
+        out.writeInt(pick.toEpochDay());
+        out.writeInt(ret.toEpochDay());
+        return sendToCar(carId, bytes).readBoolean();
+    }
+
+    /**
+     * Books a car, only if it is free for the whole rental
+     * The booking is added to the node of the car, and then to the customer index; if the index
+     * could not be changed the booking is canceled again
+     * @param name Customer name
+     * @param car Car to book
+     * @param pick Pickup date
+     * @param ret Return date
+     * @return The booked rent, or null if it overlaps another booking of the car
+     * @throws IOException If a node could not be reached
+     */
+    public Rent book(String name, Car car, Date pick, Date ret) throws IOException
+    {
+        Rent rent = new Rent(name, car, pick, ret);
+        _lock.readLock().lock();
+        try
+        {
+            if (!sendRent(ShardNode.BOOK, rent))
+                return null;
+            try
+            {
+                sendIndex(ShardNode.INDEX_ADD, rent);
+            }
+            catch (IOException e)
+            {
+                undo(ShardNode.CANCEL, rent, e);
+                throw e;
+            }
+            return rent;
+        }
+        finally
+        {
+            _lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Cancels a booking
+     * The booking is removed from the node of the car, and then from the customer index; if the
+     * index could not be changed the booking is added back
+     * @param rent Booked rent (the same car id and dates)
+     * @return True if the booking was found and canceled
+     * @throws IOException If a node could not be reached
+     */
+    public boolean cancel(Rent rent) throws IOException
+    {
+        _lock.readLock().lock();
+        try
+        {
+            if (!sendRent(ShardNode.CANCEL, rent))
+                return false;
+            try
+            {
+                sendIndex(ShardNode.INDEX_REMOVE, rent);
+            }
+            catch (IOException e)
+            {
+                undo(ShardNode.BOOK, rent, e);
+                throw e;
+            }
+            return true;
+        }
+        finally
+        {
+            _lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the bookings of a car
+     * @param carId Car license number
+     * @return List of the bookings, ordered by pickup date (empty if there are none)
+     * @throws IOException If the node could not be reached
+     */
+    public ArrayList<Rent> bookingsOf(int carId) throws IOException
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(ShardNode.CAR_BOOKINGS);
+        out.writeInt(carId);
+        return ShardNode.readRents(sendToCar(carId, bytes));
+    }
+
+    /**
+     * Returns all the bookings of a customer
+     * The car ids of the customer are taken from the customer index, and the bookings are
+     * gathered in parallel from the nodes of those cars.
+     * @param name Customer name
+     * @return List of the bookings, ordered by pickup date (empty if there are none)
+     * @throws IOException If a node could not be reached
+     */
+    public ArrayList<Rent> rentalsOf(final String name) throws IOException
+    {
+        _lock.readLock().lock();
+        try
+        {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeByte(ShardNode.INDEX_CARS);
+            out.writeUTF(name);
+            ArrayList<Integer> carIds = ShardNode.readInts(send(nodeOfCustomer(name, _numOfNodes), bytes));
+
+            // the distinct cars of each node
+            HashMap<Integer, TreeSet<Integer>> carsByNode = new HashMap<Integer, TreeSet<Integer>>();
+            for (int carId : carIds)
+            {
+                int node = nodeOfCar(carId, _numOfNodes);
+                if (!carsByNode.containsKey(node))
+                    carsByNode.put(node, new TreeSet<Integer>());
+                carsByNode.get(node).add(carId);
+            }
+
+            ArrayList<Future<ArrayList<Rent>>> parts = new ArrayList<Future<ArrayList<Rent>>>();
+            for (final int node : carsByNode.keySet())
+            {
+                final ByteArrayOutputStream request = new ByteArrayOutputStream();
+                DataOutputStream requestOut = new DataOutputStream(request);
+                requestOut.writeByte(ShardNode.CUSTOMER_BOOKINGS);
+                requestOut.writeUTF(name);
+                ShardNode.writeInts(requestOut, new ArrayList<Integer>(carsByNode.get(node)));
+                parts.add(_executor.submit(new Callable<ArrayList<Rent>>() {
+                    public ArrayList<Rent> call() throws IOException
+                    {
+                        return ShardNode.readRents(send(node, request));
+                    } }));
+            }
+
+            ArrayList<Rent> result = new ArrayList<Rent>();
+            for (Future<ArrayList<Rent>> part : parts)
+                result.addAll(get(part));
+            Collections.sort(result, new Comparator<Rent>() {
+                public int compare(Rent a, Rent b)
+                {
+                    return Integer.compare(a.getPickDate().toEpochDay(), b.getPickDate().toEpochDay());
+                } });
+            return result;
+        }
+        finally
+        {
+            _lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Changes the number of nodes, moving bookings and customer index entries to their new nodes
+     * The transport must already reach all the new nodes, and after shrinking the removed nodes
+     * are empty. Other requests wait until the rebalancing ends.
+     * What moves is first copied to its new nodes, and dropped from its old nodes only after all
+     * the copies were added, so a failure leaves every booking on its old node; the copies that
+     * were already added are dropped again and rebalancing can be retried.
+     * @param numOfNodes New number of nodes (at least 1)
+     * @throws IOException If a node could not be reached
+     */
+    public void rebalance(int numOfNodes) throws IOException
+    {
+        numOfNodes = Math.max(numOfNodes, 1);
+        _lock.writeLock().lock();
+        try
+        {
+            int oldNumOfNodes = _numOfNodes;
+            int allNodes = Math.max(oldNumOfNodes, numOfNodes);
+
+            // copies left by a rebalancing that failed to drop them are not owned by their nodes
+            dropNotOwned(oldNumOfNodes, allNodes);
+
+            // copy from every old node what it no longer owns
+            ArrayList<Rent> movedRents = new ArrayList<Rent>();
+            HashMap<String, ArrayList<Integer>> movedIndex = new HashMap<String, ArrayList<Integer>>();
+            for (int node = 0; node < oldNumOfNodes; node++)
+            {
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                DataOutputStream out = new DataOutputStream(bytes);
+                out.writeByte(ShardNode.EXPORT);
+                out.writeInt(node);
+                out.writeInt(numOfNodes);
+                DataInputStream in = send(node, bytes);
+
+                movedRents.addAll(ShardNode.readRents(in));
+                int numOfNames = in.readInt();
+                for (int i = 0; i < numOfNames; i++)
+                    movedIndex.put(in.readUTF(), ShardNode.readInts(in));
+            }
+
+            // give every node what it now owns, undoing the copies if a node fails
+            try
+            {
+                importMoved(movedRents, movedIndex, numOfNodes);
+            }
+            catch (IOException e)
+            {
+                try
+                {
+                    dropNotOwned(oldNumOfNodes, allNodes);
+                }
+                catch (IOException undoFailure)
+                {
+                    e.addSuppressed(undoFailure);
+                }
+                throw e;
+            }
+
+            // every key is on its new node, the old copies can go
+            _numOfNodes = numOfNodes;
+            dropNotOwned(numOfNodes, oldNumOfNodes);
+        }
+        finally
+        {
+            _lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Sends moved bookings and customer index entries to the nodes that own them
+     */
+    private void importMoved(ArrayList<Rent> movedRents, HashMap<String, ArrayList<Integer>> movedIndex,
+                             int numOfNodes) throws IOException
+    {
+        ArrayList<ArrayList<Rent>> rentsByNode = new ArrayList<ArrayList<Rent>>();
+        ArrayList<HashMap<String, ArrayList<Integer>>> indexByNode = new ArrayList<HashMap<String, ArrayList<Integer>>>();
+        for (int node = 0; node < numOfNodes; node++)
+        {
+            rentsByNode.add(new ArrayList<Rent>());
+            indexByNode.add(new HashMap<String, ArrayList<Integer>>());
+        }
+        for (Rent rent : movedRents)
+            rentsByNode.get(nodeOfCar(rent.getCar().getId(), numOfNodes)).add(rent);
+        for (String name : movedIndex.keySet())
+            indexByNode.get(nodeOfCustomer(name, numOfNodes)).put(name, movedIndex.get(name));
+
+        for (int node = 0; node < numOfNodes; node++)
+        {
+            if (rentsByNode.get(node).isEmpty() && indexByNode.get(node).isEmpty())
+                continue;
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeByte(ShardNode.IMPORT);
+            ShardNode.writeRents(out, rentsByNode.get(node));
+            out.writeInt(indexByNode.get(node).size());
+            for (String name : indexByNode.get(node).keySet())
+            {
+                out.writeUTF(name);
+                ShardNode.writeInts(out, indexByNode.get(node).get(name));
+            }
+            send(node, bytes);
+        }
+    }
+
+    /**
+     * Tells the first nodes to drop the bookings and customer index entries that they do not own
+     * for a number of nodes
+     */
+    private void dropNotOwned(int numOfNodes, int numOfNodesToTell) throws IOException
+    {
+        for (int node = 0; node < numOfNodesToTell; node++)
+        {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeByte(ShardNode.DROP);
+            out.writeInt(node);
+            out.writeInt(numOfNodes);
+            send(node, bytes);
+        }
+    }
+
+    /**
+     * Stops the threads of the cluster (the nodes and the transport are not closed)
+     */
+    public void close()
+    {
+        _executor.shutdown();
+    }
+
+    /**
+     * Sends a booking request that undoes a booking change whose index change failed
+     */
+    private void undo(byte kind, Rent rent, IOException failure)
+    {
+        try
+        {
+            sendRent(kind, rent);
+        }
+        catch (IOException e)
+        {
+            failure.addSuppressed(e);
+        }
+    }
+
+    private boolean sendRent(byte kind, Rent rent) throws IOException
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(kind);
+        ShardNode.writeRent(out, rent);
+        return send(nodeOfCar(rent.getCar().getId(), _numOfNodes), bytes).readBoolean();
+    }
+
+    private void sendIndex(byte kind, Rent rent) throws IOException
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(kind);
+        out.writeUTF(rent.getName());
+        out.writeInt(rent.getCar().getId());
+        send(nodeOfCustomer(rent.getName(), _numOfNodes), bytes);
+    }
+
+    /**
+     * Sends a request to the node of a car, holding the shared lock
+     */
+    private DataInputStream sendToCar(int carId, ByteArrayOutputStream request) throws IOException
+    {
+        _lock.readLock().lock();
+        try
+        {
+            return send(nodeOfCar(carId, _numOfNodes), request);
+        }
+        finally
+        {
+            _lock.readLock().unlock();
+        }
+    }
+
+    private DataInputStream send(int node, ByteArrayOutputStream request) throws IOException
+    {
+        return new DataInputStream(new ByteArrayInputStream(_transport.send(node, request.toByteArray())));
+    }
+
+    private static <T> T get(Future<T> future) throws IOException
+    {
+        try
+        {
+            return future.get();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for a node", e);
+        }
+        catch (ExecutionException e)
+        {
+            if (e.getCause() instanceof IOException)
+                throw (IOException)e.getCause();
+            throw new IOException("Node request failed", e.getCause());
+        }
+    }
+
+    /**
+     * Jump consistent hash (Lamping and Veach): maps a key to one of a number of buckets, so that
+     * adding a bucket moves only the keys that go to the new bucket
+     */
+    private static int jumpHash(long key, int numOfBuckets)
+    {
+        long bucket = -1;
+        long next = 0;
+        while (next < numOfBuckets)
+        {
+            bucket = next;
+            key = key * 2862933555777941757L + 1;
+            next = (long)((bucket + 1) * ((double)(1L << 31) / (double)((key >>> 33) + 1)));
+        }
+        return (int)bucket;
+    }
+}
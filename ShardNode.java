@@ -0,0 +1,284 @@
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A single node of a ShardCluster.
+ * A node keeps the bookings of the cars it owns (by car id) and the customer index of the
+ * customers it owns (by name): for every customer, the car ids of the customer's bookings.
+ * Nodes receive binary requests from the cluster through a ShardCluster.Transport and answer
+ * with binary responses, so a node can run in the same process or behind a network.
+ * @author (agent)
+ * @version (18/10/2026)
+ */
+public class ShardNode
+{
+    // request kinds, the first byte of every request
+    static final byte QUOTE = 1;
+    static final byte AVAILABLE = 2;
+    static final byte BOOK = 3;
+    static final byte CANCEL = 4;
+    static final byte CAR_BOOKINGS = 5;
+    static final byte CUSTOMER_BOOKINGS = 6;
+    static final byte INDEX_ADD = 7;
+    static final byte INDEX_REMOVE = 8;
+    static final byte INDEX_CARS = 9;
+    static final byte EXPORT = 10;
+    static final byte IMPORT = 11;
+    static final byte DROP = 12;
+
+    private final BookingService _bookings;
+    private final Set<Integer> _carIds; // cars that may have bookings on this node
+    private final HashMap<String, ArrayList<Integer>> _customerCars; // name -> car id of each booking
+
+    /**
+     * Initialize an empty node
+     */
+    public ShardNode()
+    {
+        _bookings = new BookingService();
+        _carIds = ConcurrentHashMap.newKeySet();
+        _customerCars = new HashMap<String, ArrayList<Integer>>();
+    }
+
+    /**
+     * Returns the number of bookings kept by this node
+     * @return Number of bookings
+     */
+    public int size()
+    {
+        return _bookings.size();
+    }
+
+    /**
+     * Handles a request of the cluster
+     * @param request Request bytes
+     * @return Response bytes
+     * @throws IOException If the request is not valid
+     */
+    public byte[] handle(byte[] request) throws IOException
+    {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(request));
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+
+        byte kind = in.readByte();
+        if (kind == QUOTE)
+            out.writeInt(Rent.getPricingEngine().getPrice(in.readChar(), in.readInt(), in.readInt()));
+        else if (kind == AVAILABLE)
+            out.writeBoolean(_bookings.isAvailable(in.readInt(), Date.fromEpochDay(in.readInt()),
+                                                   Date.fromEpochDay(in.readInt())));
+        else if (kind == BOOK)
+            out.writeBoolean(book(readRent(in)));
+        else if (kind == CANCEL)
+            out.writeBoolean(_bookings.cancel(readRent(in)));
+        else if (kind == CAR_BOOKINGS)
+            writeRents(out, _bookings.bookingsOf(in.readInt()));
+        else if (kind == CUSTOMER_BOOKINGS)
+            writeRents(out, customerBookings(in));
+        else if (kind == INDEX_ADD)
+            indexAdd(in.readUTF(), in.readInt());
+        else if (kind == INDEX_REMOVE)
+            indexRemove(in.readUTF(), in.readInt());
+        else if (kind == INDEX_CARS)
+            writeInts(out, indexCars(in.readUTF()));
+        else if (kind == EXPORT)
+            export(in.readInt(), in.readInt(), out);
+        else if (kind == IMPORT)
+            importFrom(in);
+        else if (kind == DROP)
+            drop(in.readInt(), in.readInt());
+        else
+            throw new IOException("Unknown request kind: " + kind);
+
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    private boolean book(Rent rent)
+    {
+        _carIds.add(rent.getCar().getId());
+        return _bookings.book(rent.getName(), rent.getCar(), rent.getPickDate(), rent.getReturnDate()) != null;
+    }
+
+    /**
+     * Returns the bookings of a customer among the bookings of given cars
+     */
+    private ArrayList<Rent> customerBookings(DataInputStream in) throws IOException
+    {
+        String name = in.readUTF();
+        ArrayList<Rent> result = new ArrayList<Rent>();
+        for (int carId : readInts(in))
+            for (Rent rent : _bookings.bookingsOf(carId))
+                if (rent.getName().equals(name))
+                    result.add(rent);
+        return result;
+    }
+
+    private void indexAdd(String name, int carId)
+    {
+        synchronized (_customerCars)
+        {
+            ArrayList<Integer> carIds = _customerCars.get(name);
+            if (carIds == null)
+            {
+                carIds = new ArrayList<Integer>();
+                _customerCars.put(name, carIds);
+            }
+            carIds.add(carId);
+        }
+    }
+
+    private void indexRemove(String name, int carId)
+    {
+        synchronized (_customerCars)
+        {
+            ArrayList<Integer> carIds = _customerCars.get(name);
+            if (carIds != null && carIds.remove(Integer.valueOf(carId)) && carIds.isEmpty())
+                _customerCars.remove(name);
+        }
+    }
+
+    private ArrayList<Integer> indexCars(String name)
+    {
+        synchronized (_customerCars)
+        {
+            ArrayList<Integer> carIds = _customerCars.get(name);
+            return (carIds == null) ? new ArrayList<Integer>() : new ArrayList<Integer>(carIds);
+        }
+    }
+
+    /**
+     * Writes (without removing them) the bookings and customer index entries that another node
+     * owns after the cluster changes to a new number of nodes
+     */
+    private void export(int self, int numOfNodes, DataOutputStream out) throws IOException
+    {
+        ArrayList<Rent> moved = new ArrayList<Rent>();
+        for (Integer carId : _carIds)
+            if (ShardCluster.nodeOfCar(carId, numOfNodes) != self)
+                moved.addAll(_bookings.bookingsOf(carId));
+        writeRents(out, moved);
+
+        synchronized (_customerCars)
+        {
+            ArrayList<String> names = new ArrayList<String>();
+            for (String name : _customerCars.keySet())
+                if (ShardCluster.nodeOfCustomer(name, numOfNodes) != self)
+                    names.add(name);
+
+            out.writeInt(names.size());
+            for (String name : names)
+            {
+                out.writeUTF(name);
+                writeInts(out, _customerCars.get(name));
+            }
+        }
+    }
+
+    /**
+     * Removes the bookings and customer index entries that another node owns
+     * for a number of nodes
+     */
+    private void drop(int self, int numOfNodes)
+    {
+        for (Integer carId : _carIds)
+        {
+            if (ShardCluster.nodeOfCar(carId, numOfNodes) == self)
+                continue;
+            for (Rent rent : _bookings.bookingsOf(carId))
+                _bookings.cancel(rent);
+            _carIds.remove(carId);
+        }
+
+        synchronized (_customerCars)
+        {
+            Iterator<String> names = _customerCars.keySet().iterator();
+            while (names.hasNext())
+                if (ShardCluster.nodeOfCustomer(names.next(), numOfNodes) != self)
+                    names.remove();
+        }
+    }
+
+    /**
+     * Adds bookings and customer index entries written by export
+     * @throws IOException If a booking overlaps a booking of this node
+     */
+    private void importFrom(DataInputStream in) throws IOException
+    {
+        for (Rent rent : readRents(in))
+            if (!book(rent))
+                throw new IOException("Imported booking overlaps a booking of car " + rent.getCar().getId());
+
+        int numOfNames = in.readInt();
+        for (int i = 0; i < numOfNames; i++)
+        {
+            String name = in.readUTF();
+            for (int carId : readInts(in))
+                indexAdd(name, carId);
+        }
+    }
+
+    static void writeRent(DataOutputStream out, Rent rent) throws IOException
+    {
+        Car car = rent.getCar();
+        out.writeUTF(rent.getName());
+        out.writeInt(car.getId());
+        out.writeChar(car.getType());
+        out.writeUTF(car.getBrand());
+        out.writeBoolean(car.isManual());
+        out.writeInt(rent.getPickDate().toEpochDay());
+        out.writeInt(rent.getReturnDate().toEpochDay());
+    }
+
+    static Rent readRent(DataInputStream in) throws IOException
+    {
+        String name = in.readUTF();
+        int id = in.readInt();
+        char type = in.readChar();
+        String brand = in.readUTF();
+        boolean isManual = in.readBoolean();
+        Date pick = Date.fromEpochDay(in.readInt());
+        Date ret = Date.fromEpochDay(in.readInt());
+        return new Rent(name, new Car(id, type, brand, isManual), pick, ret);
+    }
+
+    static void writeRents(DataOutputStream out, ArrayList<Rent> rents) throws IOException
+    {
+        out.writeInt(rents.size());
+        for (Rent rent : rents)
+            writeRent(out, rent);
+    }
+
+    static ArrayList<Rent> readRents(DataInputStream in) throws IOException
+    {
+        int size = in.readInt();
+        ArrayList<Rent> rents = new ArrayList<Rent>();
+        for (int i = 0; i < size; i++)
+            rents.add(readRent(in));
+        return rents;
+    }
+
+    static void writeInts(DataOutputStream out, ArrayList<Integer> values) throws IOException
+    {
+        out.writeInt(values.size());
+        for (int value : values)
+            out.writeInt(value);
+    }
+
+    static ArrayList<Integer> readInts(DataInputStream in) throws IOException
+    {
+        int size = in.readInt();
+        ArrayList<Integer> values = new ArrayList<Integer>();
+        for (int i = 0; i < size; i++)
+            values.add(in.readInt());
+        return values;
+    }
+}
@@ -0,0 +1,188 @@
+
+/**
+ * The default pricing engine, based on a table of rates for each car type.
+ * Prices for up to a given number of days are calculated once, when the engine is created,
+ * so most price requests are a single table lookup.
+ * Optional seasonal (per month) and weekend percentages change the price of each rent day;
+ * without them the prices are the basic prices of Rent.
+ * The percentages may be changed while other threads request prices.
+ * @author (agent)
+ * @version (18/10/2026)
+ */
+public class TablePricingEngine implements PricingEngine
+{
+    private static final int _NUM_OF_TYPES = 4; // types 'A' to 'D'
+    private static final int _DAYS_PER_WEEK = 7;
+    private static final int _DEFAULT_MAX_DAYS = 366;
+    private static final int[] _DEFAULT_DAILY_RATES = {100, 150, 180, 240};
+    private static final int _DEFAULT_WEEK_DISCOUNT_PERCENTAGE = 10; //10% off for a full week rental
+
+    // day of the week of day number 0, counting from Sunday = 0 (1/1/2000 was a Saturday)
+    private static final int _FIRST_DAY_OF_WEEK = Math.floorMod(6 - Date.toEpochDay(1, 1, 2000), 7);
+
+    private final int[] _dailyRates;
+    private final int[] _weeklyRates;
+    private final int[][] _prices; // _prices[type][days] for up to _maxDays days
+    private final int _maxDays;
+
+    private volatile DatePricing _datePricing; // replaced as a whole by every change of the percentages
+
+    /**
+     * The month and weekend percentages and their version, never changed after they are created,
+     * so a price request reads a consistent set of percentages while another thread changes them
+     */
+    private static class DatePricing
+    {
+        private final int[] _monthPercentages; // percentage of the price for each month, 100 means no change
+        private final int _weekendPercentage; // percentage of the price on Saturdays and Sundays
+        private final boolean _hasDatePricing; // true if any of the percentages is not 100
+        private final int _version; // one more than the version of the percentages it replaced
+
+        private DatePricing(int[] monthPercentages, int weekendPercentage, int version)
+        {
+            _version = version;
+            _monthPercentages = monthPercentages;
+            _weekendPercentage = weekendPercentage;
+            boolean hasDatePricing = weekendPercentage != 100;
+            for (int month = 0; month < 12; month++)
+                if (monthPercentages[month] != 100)
+                    hasDatePricing = true;
+            _hasDatePricing = hasDatePricing;
+        }
+    }
+
+    /**
+     * Initialize an engine with the basic rates of Rent
+     * (100, 150, 180 and 240 a day for types 'A' to 'D', 10% off for a full week)
+     */
+    public TablePricingEngine()
+    {
+        this(_DEFAULT_DAILY_RATES, _DEFAULT_WEEK_DISCOUNT_PERCENTAGE, _DEFAULT_MAX_DAYS);
+    }
+
+    /**
+     * Initialize an engine with given rates
+     * @param dailyRates Daily price for types 'A' to 'D'
+     * @param weekDiscountPercentage Discount for each full week of the rental
+     * @param maxDays Number of rent days up to which the prices are calculated in advance
+     */
+    public TablePricingEngine(int[] dailyRates, int weekDiscountPercentage, int maxDays)
+    {
+        _dailyRates = new int[_NUM_OF_TYPES];
+        _weeklyRates = new int[_NUM_OF_TYPES];
+        _maxDays = Math.max(maxDays, 0);
+        _prices = new int[_NUM_OF_TYPES][_maxDays + 1];
+
+        for (int type = 0; type < _NUM_OF_TYPES; type++)
+        {
+            _dailyRates[type] = dailyRates[type];
+            // rent weekly rate based on the daily rate including the week discount
+            _weeklyRates[type] = _DAYS_PER_WEEK * dailyRates[type] * (100 - weekDiscountPercentage)/100;
+            for (int days = 0; days <= _maxDays; days++)
+                _prices[type][days] = calculate(type, days);
+        }
+
+        int[] monthPercentages = new int[12];
+        for (int month = 0; month < 12; month++)
+            monthPercentages[month] = 100;
+        _datePricing = new DatePricing(monthPercentages, 100, 0);
+    }
+
+    /**
+     * Sets the percentage of the price for rent days in a month (100 means no change)
+     * @param month Month (1 to 12)
+     * @param percentage Percentage of the price, for example 120 for 20% more
+     */
+    public synchronized void setMonthPercentage(int month, int percentage)
+    {
+        if (month >= 1 && month <= 12 && percentage >= 0)
+        {
+            int[] monthPercentages = _datePricing._monthPercentages.clone();
+            monthPercentages[month - 1] = percentage;
+            _datePricing = new DatePricing(monthPercentages, _datePricing._weekendPercentage,
+                                           _datePricing._version + 1);
+        }
+    }
+
+    /**
+     * Sets the percentage of the price for rent days on Saturdays and Sundays (100 means no change)
+     * @param percentage Percentage of the price, for example 120 for 20% more
+     */
+    public synchronized void setWeekendPercentage(int percentage)
+    {
+        if (percentage >= 0)
+        {
+            _datePricing = new DatePricing(_datePricing._monthPercentages, percentage,
+                                           _datePricing._version + 1);
+        }
+    }
+
+    /**
+     * Returns the base price of a rental, without the month and weekend percentages
+     * @param type Rented car type (an invalid type is priced as type 'A')
+     * @param numOfRentDays Number of rent days
+     * @return Rent total price
+     */
+    public int getPrice(char type, int numOfRentDays)
+    {
+        int index = Car.isValidType(type) ? type - 'A' : 0;
+        if (numOfRentDays >= 0 && numOfRentDays <= _maxDays)
+            return _prices[index][numOfRentDays];
+        return calculate(index, numOfRentDays);
+    }
+
+    /**
+     * Returns the price of a rental, including the month and weekend percentages of its days
+     * The base price is spread evenly over the rent days, and each day gets its own percentage.
+     * The return day is not a rent day. Rentals with days outside the valid years of Date
+     * get the base price.
+     * @param type Rented car type (an invalid type is priced as type 'A')
+     * @param pickDay Pickup day number (see Date.toEpochDay)
+     * @param returnDay Return day number (see Date.toEpochDay)
+     * @return Rent total price
+     */
+    public int getPrice(char type, int pickDay, int returnDay)
+    {
+        DatePricing datePricing = _datePricing; // the same percentages for all the days
+        int day = Math.min(pickDay, returnDay);
+        int lastDay = Math.max(pickDay, returnDay);
+        if (!datePricing._hasDatePricing || day == lastDay || !Date.isValidEpochDay(day) || !Date.isValidEpochDay(lastDay - 1))
+            return getPrice(type, Math.abs(returnDay - pickDay));
+
+        int numOfRentDays = lastDay - day;
+        long totalPercentage = 0;
+        for (int month = Date.monthCountOf(day); day < lastDay; month++)
+        {
+            // handle the rent days month by month
+            int end = Math.min(Date.firstDayOfMonthCount(month + 1), lastDay);
+            int monthPercentage = datePricing._monthPercentages[month % 12];
+            for (; day < end; day++)
+            {
+                int dayOfWeek = Math.floorMod(_FIRST_DAY_OF_WEEK + day, _DAYS_PER_WEEK);
+                if (dayOfWeek == 0 || dayOfWeek == 6)
+                    totalPercentage += monthPercentage * datePricing._weekendPercentage / 100;
+                else
+                    totalPercentage += monthPercentage;
+            }
+        }
+        return (int)(getPrice(type, numOfRentDays) * totalPercentage / (100L * numOfRentDays));
+    }
+
+    /**
+     * Returns a number that changes whenever the month or weekend percentages change
+     * @return Version of the prices
+     */
+    public int getVersion()
+    {
+        return _datePricing._version;
+    }
+
+    /**
+     * Calculates the total price for the rental's days and weeks
+     */
+    private int calculate(int type, int numOfRentDays)
+    {
+        return (numOfRentDays / _DAYS_PER_WEEK) * _weeklyRates[type] +
+               (numOfRentDays % _DAYS_PER_WEEK) * _dailyRates[type];
+    }
+}
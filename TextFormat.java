@@ -0,0 +1,122 @@
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * Writes text and numbers into byte buffers without creating Strings.
+ * Used by the formatTo methods of Date, Car and Rent. Text is written as UTF-8.
+ * @author (agent)
+ * @version (18/10/2026)
+ */
+class TextFormat
+{
+    private TextFormat()
+    {
+    }
+
+    /**
+     * Writes a String as UTF-8 ("null" for null), char by char
+     * Like String.getBytes, a surrogate char that is not part of a pair is written as '?'.
+     * @param out Buffer to write to
+     * @param text Text to write
+     */
+    static void putString(ByteBuffer out, String text)
+    {
+        if (text == null)
+            text = "null";
+        if (out.remaining() < utf8Length(text))
+            throw new BufferOverflowException();
+
+        int length = text.length();
+        for (int i = 0; i < length; i++)
+        {
+            char c = text.charAt(i);
+            if (c < 0x80)
+                out.put((byte)c);
+            else if (c < 0x800)
+                out.put((byte)(0xC0 | c >> 6)).put((byte)(0x80 | c & 0x3F));
+            else if (!Character.isSurrogate(c))
+                out.put((byte)(0xE0 | c >> 12)).put((byte)(0x80 | c >> 6 & 0x3F)).put((byte)(0x80 | c & 0x3F));
+            else if (isPair(text, i))
+            {
+                int code = Character.toCodePoint(c, text.charAt(++i));
+                out.put((byte)(0xF0 | code >> 18)).put((byte)(0x80 | code >> 12 & 0x3F));
+                out.put((byte)(0x80 | code >> 6 & 0x3F)).put((byte)(0x80 | code & 0x3F));
+            }
+            else
+                out.put((byte)'?');
+        }
+    }
+
+    /**
+     * Returns the number of bytes putString writes for a String
+     * @param text Text to measure
+     * @return Number of UTF-8 bytes
+     */
+    static int utf8Length(String text)
+    {
+        if (text == null)
+            return 4; // "null"
+
+        int length = text.length();
+        int bytes = length;
+        for (int i = 0; i < length; i++)
+        {
+            char c = text.charAt(i);
+            if (c < 0x80)
+                continue;
+            if (c < 0x800)
+                bytes += 1;
+            else if (!Character.isSurrogate(c))
+                bytes += 2;
+            else if (isPair(text, i))
+            {
+                bytes += 2; // 4 bytes for the 2 chars of the pair
+                i++;
+            }
+        }
+        return bytes;
+    }
+
+    private static boolean isPair(String text, int i)
+    {
+        return Character.isHighSurrogate(text.charAt(i)) && i + 1 < text.length()
+               && Character.isLowSurrogate(text.charAt(i + 1));
+    }
+
+    /**
+     * Writes a number in decimal digits
+     * If the number does not fit, nothing is written and a BufferOverflowException is thrown
+     * @param out Buffer to write to
+     * @param number Number to write
+     */
+    static void putInt(ByteBuffer out, int number)
+    {
+        long value = Math.abs((long)number);
+        int digits = 1;
+        for (long rest = value / 10; rest > 0; rest /= 10)
+            digits++;
+        // nothing is written unless the sign and all the digits fit
+        if (out.remaining() < digits + (number < 0 ? 1 : 0))
+            throw new BufferOverflowException();
+
+        if (number < 0)
+            out.put((byte)'-');
+        int start = out.position();
+        for (int i = start + digits - 1; i >= start; i--)
+        {
+            out.put(i, (byte)('0' + value % 10));
+            value /= 10;
+        }
+        out.position(start + digits);
+    }
+
+    /**
+     * Writes a number from 0 to 99 as exactly 2 digits
+     * @param out Buffer to write to
+     * @param number Number to write
+     */
+    static void putTwoDigits(ByteBuffer out, int number)
+    {
+        out.put((byte)('0' + number / 10)).put((byte)('0' + number % 10));
+    }
+}
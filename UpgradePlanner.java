@@ -0,0 +1,372 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Finds the cheapest free car that is better than the car of a rental, for example to replace
+ * a car that broke down.
+ * The fleet is kept in 8 classes ordered by Car.better: types 'A' to 'D', and in every type
+ * manual before auto, so a car is better than another car exactly when its class is higher.
+ * The days each car is booked are kept by a FleetAvailability, and the free periods of the cars
+ * of every class are kept ordered by their first day (see FreeGaps), so finding a free car of a
+ * class takes a single query no matter how many cars the class has.
+ * The upgrade cost of a class depends only on its type (like Rent.upgrade), so a rental is
+ * checked against at most 7 classes, cheapest first.
+ * @author (agent)
+ * @version (18/10/2026)
+ */
+public class UpgradePlanner
+{
+    private static final int _NUM_OF_CLASSES = 8; // 2 gears for each of the types 'A' to 'D'
+
+    private FleetAvailability _availability;
+    private int _firstDay; // day number of the first day of the horizon
+    private int _numOfDays; // length of the horizon
+    private HashMap<Integer, Car> _cars; // cars by id
+    private HashMap<Integer, TreeMap<Integer, Integer>> _gapsOfCar; // first day -> last day of each free period
+    private FreeGaps[] _gapsByClass;
+
+    /**
+     * Represents a car chosen for a rental
+     */
+    public static class Plan
+    {
+        private Rent _rent;
+        private Car _car;
+        private int _cost;
+
+        private Plan(Rent rent, Car car, int cost)
+        {
+            _rent = rent;
+            _car = car;
+            _cost = cost;
+        }
+
+        /**
+         * Returns the rental
+         * @return Rental
+         */
+        public Rent getRent()
+        {
+            return _rent;
+        }
+
+        /**
+         * Returns the chosen car
+         * @return Car
+         */
+        public Car getCar()
+        {
+            return new Car(_car);
+        }
+
+        /**
+         * Returns the upgrade cost, as Rent.upgrade would return it
+         * @return Upgrade cost
+         */
+        public int getCost()
+        {
+            return _cost;
+        }
+    }
+
+    /**
+     * Initialize a planner with no cars
+     * @param start First day of the horizon
+     * @param numOfDays Number of days in the horizon (for example 730 for 2 years)
+     */
+    public UpgradePlanner(Date start, int numOfDays)
+    {
+        _availability = new FleetAvailability(start, numOfDays);
+        _firstDay = start.toEpochDay();
+        _numOfDays = Math.max(numOfDays, 1);
+        _cars = new HashMap<Integer, Car>();
+        _gapsOfCar = new HashMap<Integer, TreeMap<Integer, Integer>>();
+        _gapsByClass = new FreeGaps[_NUM_OF_CLASSES];
+        for (int i = 0; i < _NUM_OF_CLASSES; i++)
+            _gapsByClass[i] = new FreeGaps(_numOfDays);
+    }
+
+    /**
+     * Adds a car to the fleet (only if there is no car with the same id)
+     * @param car Car to add
+     * @return True if the car was added
+     */
+    public boolean addCar(Car car)
+    {
+        if (!_availability.addCar(car))
+            return false;
+        _cars.put(car.getId(), new Car(car));
+        _gapsOfCar.put(car.getId(), new TreeMap<Integer, Integer>());
+        addGap(car.getId(), 0, _numOfDays - 1);
+        return true;
+    }
+
+    /**
+     * Books the car of a rental for the rental days
+     * @param rent Rental to book
+     * @return True if the car was booked, false if it is unknown, busy or out of the horizon
+     */
+    public boolean book(Rent rent)
+    {
+        return book(rent.getCar().getId(), rent.getPickDate(), rent.getReturnDate());
+    }
+
+    /**
+     * Frees the days of a period of a car
+     * @param carId Car license number
+     * @param pick Pickup date
+     * @param ret Return date
+     */
+    public void release(int carId, Date pick, Date ret)
+    {
+        _availability.release(carId, pick, ret);
+
+        // the released days join the free periods they touch
+        TreeMap<Integer, Integer> gaps = _gapsOfCar.get(carId);
+        int from = Math.max(pick.toEpochDay() - _firstDay, 0);
+        int to = Math.min(ret.toEpochDay() - _firstDay, _numOfDays - 1);
+        if (gaps == null || from > to)
+            return;
+        int first = from;
+        int last = to;
+        for (Map.Entry<Integer, Integer> gap = gaps.floorEntry(to + 1); gap != null && gap.getValue() >= from - 1;
+             gap = gaps.floorEntry(to + 1))
+        {
+            first = Math.min(first, gap.getKey());
+            last = Math.max(last, gap.getValue());
+            removeGap(carId, gap.getKey(), gap.getValue());
+        }
+        addGap(carId, first, last);
+    }
+
+    /**
+     * Finds the cheapest car that is better than the car of a rental and free for the rental days
+     * Among cars of the same cost, a car of a lower class is chosen.
+     * The car is not booked.
+     * @param rent Rental to upgrade
+     * @return The chosen car and its upgrade cost, or null if there is no such car
+     */
+    public Plan plan(Rent rent)
+    {
+        Car current = rent.getCar();
+        Date pick = rent.getPickDate();
+        Date ret = rent.getReturnDate();
+        int pickDay = pick.toEpochDay();
+        int returnDay = ret.toEpochDay();
+        int from = pickDay - _firstDay;
+        int to = returnDay - _firstDay;
+        if (from < 0 || from > to || to >= _numOfDays)
+            return null; // out of the horizon
+
+        // the upgrade cost of every better class
+        PricingEngine engine = Rent.getPricingEngine();
+        int basicPrice = engine.getPrice(current.getType(), pickDay, returnDay);
+        int first = classOf(current) + 1;
+        int numOfCandidates = _NUM_OF_CLASSES - first;
+        int[] candidates = new int[numOfCandidates];
+        int[] costs = new int[_NUM_OF_CLASSES];
+        for (int i = 0; i < numOfCandidates; i++)
+        {
+            int carClass = first + i;
+            candidates[i] = carClass;
+            costs[carClass] = engine.getPrice(typeOf(carClass), pickDay, returnDay) - basicPrice;
+        }
+
+        // cheapest class first (insertion sort keeps lower classes first on equal costs)
+        for (int i = 1; i < numOfCandidates; i++)
+        {
+            int carClass = candidates[i];
+            int j = i - 1;
+            while (j >= 0 && costs[candidates[j]] > costs[carClass])
+            {
+                candidates[j + 1] = candidates[j];
+                j--;
+            }
+            candidates[j + 1] = carClass;
+        }
+
+        for (int carClass : candidates)
+        {
+            int carId = _gapsByClass[carClass].find(from, to);
+            if (carId != FreeGaps.NONE)
+                return new Plan(rent, _cars.get(carId), costs[carClass]);
+        }
+        return null;
+    }
+
+    /**
+     * Finds the cheapest better free car for a rental (see plan) and books it
+     * @param rent Rental to upgrade
+     * @return The booked car and its upgrade cost, or null if there is no such car
+     */
+    public Plan assign(Rent rent)
+    {
+        Plan plan = plan(rent);
+        if (plan != null)
+            book(plan._car.getId(), rent.getPickDate(), rent.getReturnDate());
+        return plan;
+    }
+
+    /**
+     * Finds and books better cars for many rentals at once, for example all the rentals of
+     * cars that broke down
+     * Rentals of higher classes are handled first, since fewer classes are better than them,
+     * and rentals of the same class by pickup date.
+     * @param rents Rentals to upgrade
+     * @return The plans, in the order of the given rentals (null for a rental with no free better car)
+     */
+    public ArrayList<Plan> reaccommodate(Collection<Rent> rents)
+    {
+        Rent[] order = rents.toArray(new Rent[0]);
+        final int[] classes = new int[order.length];
+        final int[] pickDays = new int[order.length];
+        Integer[] indexes = new Integer[order.length];
+        for (int i = 0; i < order.length; i++)
+        {
+            classes[i] = classOf(order[i].getCar());
+            pickDays[i] = order[i].getPickDate().toEpochDay();
+            indexes[i] = i;
+        }
+        Arrays.sort(indexes, new Comparator<Integer>() {
+            public int compare(Integer a, Integer b)
+            {
+                if (classes[a] != classes[b])
+                    return Integer.compare(classes[b], classes[a]);
+                return Integer.compare(pickDays[a], pickDays[b]);
+            } });
+
+        Plan[] plans = new Plan[order.length];
+        for (int i : indexes)
+            plans[i] = assign(order[i]);
+        return new ArrayList<Plan>(Arrays.asList(plans));
+    }
+
+    /**
+     * Books a car and splits the free period that contains the booked days
+     */
+    private boolean book(int carId, Date pick, Date ret)
+    {
+        if (!_availability.book(carId, pick, ret))
+            return false;
+
+        int from = pick.toEpochDay() - _firstDay;
+        int to = ret.toEpochDay() - _firstDay;
+        Map.Entry<Integer, Integer> gap = _gapsOfCar.get(carId).floorEntry(from);
+        int first = gap.getKey();
+        int last = gap.getValue();
+        removeGap(carId, first, last);
+        if (first < from)
+            addGap(carId, first, from - 1);
+        if (to < last)
+            addGap(carId, to + 1, last);
+        return true;
+    }
+
+    private void addGap(int carId, int first, int last)
+    {
+        _gapsOfCar.get(carId).put(first, last);
+        _gapsByClass[classOf(_cars.get(carId))].add(first, last, carId);
+    }
+
+    private void removeGap(int carId, int first, int last)
+    {
+        _gapsOfCar.get(carId).remove(first);
+        _gapsByClass[classOf(_cars.get(carId))].remove(first, last, carId);
+    }
+
+    /**
+     * The free periods of the cars of a class
+     * A segment tree over the first days of the periods keeps, for every range of first days,
+     * the period that ends last, so the cars free for a whole rental are found with one query
+     * over the periods that start on or before the pickup day.
+     * A period is kept as a single long of its last day and car id, so a larger long is a
+     * period that ends later.
+     */
+    private static class FreeGaps
+    {
+        static final int NONE = -1;
+
+        private int _leaves; // a power of 2, at least the number of days
+        private long[] _tree; // _tree[1] is the root, day i is leaf _leaves + i, -1 for no period
+        private ArrayList<TreeSet<Long>> _byFirstDay; // the periods that start on each day
+
+        private FreeGaps(int numOfDays)
+        {
+            _leaves = Integer.highestOneBit(Math.max(numOfDays - 1, 1)) << 1;
+            _tree = new long[2 * _leaves];
+            Arrays.fill(_tree, -1);
+            _byFirstDay = new ArrayList<TreeSet<Long>>();
+            for (int i = 0; i < numOfDays; i++)
+                _byFirstDay.add(null);
+        }
+
+        private void add(int first, int last, int carId)
+        {
+            TreeSet<Long> periods = _byFirstDay.get(first);
+            if (periods == null)
+            {
+                periods = new TreeSet<Long>();
+                _byFirstDay.set(first, periods);
+            }
+            periods.add(encode(last, carId));
+            update(first, periods.last());
+        }
+
+        private void remove(int first, int last, int carId)
+        {
+            TreeSet<Long> periods = _byFirstDay.get(first);
+            periods.remove(encode(last, carId));
+            update(first, periods.isEmpty() ? -1 : periods.last());
+        }
+
+        /**
+         * Returns the id of a car that is free from day from to day to (both included),
+         * or NONE if there is no such car
+         */
+        private int find(int from, int to)
+        {
+            // the period that ends last among the periods that start on day 0 to day from
+            long best = -1;
+            for (int lo = _leaves, hi = _leaves + from + 1; lo < hi; lo >>= 1, hi >>= 1)
+            {
+                if ((lo & 1) != 0)
+                    best = Math.max(best, _tree[lo++]);
+                if ((hi & 1) != 0)
+                    best = Math.max(best, _tree[--hi]);
+            }
+            return (best >= 0 && (int)(best >>> 32) >= to) ? (int)best : NONE;
+        }
+
+        private void update(int day, long value)
+        {
+            int node = _leaves + day;
+            _tree[node] = value;
+            for (node >>= 1; node > 0; node >>= 1)
+                _tree[node] = Math.max(_tree[2 * node], _tree[2 * node + 1]);
+        }
+
+        private static long encode(int last, int carId)
+        {
+            return ((long)last << 32) | (carId & 0xFFFFFFFFL);
+        }
+    }
+
+    /**
+     * Returns the class of a car, from 0 (type 'A', manual) to 7 (type 'D', auto)
+     */
+    private static int classOf(Car car)
+    {
+        return (car.getType() - 'A') * 2 + (car.isManual() ? 0 : 1);
+    }
+
+    private static char typeOf(int carClass)
+    {
+        return (char)('A' + carClass / 2);
+    }
+}
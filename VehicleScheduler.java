@@ -0,0 +1,187 @@
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.PriorityQueue;
+
+/**
+ * Assigns real fleet cars to requested rentals.
+ * A request is a Rent whose car only describes the wanted class (type, brand and gear, as
+ * compared by Car.equals); its id is ignored. The requests are handled by pickup date, and each
+ * class keeps its cars that are already in use in a heap ordered by the day they become free.
+ * A request gets the car that is free the soonest if it is free in time, and only otherwise a
+ * car that was not used yet, so the number of cars used is as small as possible.
+ * When a class has no free car, the request is upgraded to the closest class that is better
+ * (by Car.better).
+ * Like Rent.overlap, a rental includes its return day, so a car is free again on the day after.
+ * @author (agent)
+ * @version (18/10/2026)
+ */
+public class VehicleScheduler
+{
+    private static final Comparator<String> _BRAND_ORDER = Comparator.nullsFirst(Comparator.<String>naturalOrder());
+
+    private ArrayList<CarClass> _classes; // ordered from the worst class to the best
+    private HashMap<Car, CarClass> _classByCar; // cars are equal if they are of the same class
+    private int _carsUsed;
+    private int _upgrades;
+
+    /**
+     * Represents the cars of a single class
+     */
+    private static class CarClass
+    {
+        private Car _sample; // a car of the class, used for comparing classes
+        private ArrayDeque<Car> _unused; // cars that were not assigned yet
+        private PriorityQueue<Slot> _inUse; // assigned cars, the one that is free first on top
+
+        private CarClass(Car sample)
+        {
+            _sample = sample;
+            _unused = new ArrayDeque<Car>();
+            _inUse = new PriorityQueue<Slot>();
+        }
+    }
+
+    /**
+     * Represents an assigned car and the day it is free again
+     */
+    private static class Slot implements Comparable<Slot>
+    {
+        private Car _car;
+        private int _freeDay;
+
+        private Slot(Car car, int freeDay)
+        {
+            _car = car;
+            _freeDay = freeDay;
+        }
+
+        public int compareTo(Slot other)
+        {
+            return Integer.compare(_freeDay, other._freeDay);
+        }
+    }
+
+    /**
+     * Initialize a scheduler for a fleet
+     * @param fleet The cars that can be assigned
+     */
+    public VehicleScheduler(Collection<Car> fleet)
+    {
+        _classes = new ArrayList<CarClass>();
+        _classByCar = new HashMap<Car, CarClass>();
+        for (Car car : fleet)
+        {
+            CarClass carClass = _classByCar.get(car);
+            if (carClass == null)
+            {
+                carClass = new CarClass(new Car(car));
+                _classByCar.put(carClass._sample, carClass);
+                _classes.add(carClass);
+            }
+            carClass._unused.add(new Car(car));
+        }
+
+        // order the classes from the worst to the best, so the first better class is the closest one
+        _classes.sort(new Comparator<CarClass>() {
+            public int compare(CarClass first, CarClass second)
+            {
+                if (first._sample.better(second._sample))
+                    return 1;
+                if (second._sample.better(first._sample))
+                    return -1;
+                // a car may have no brand, such classes come first
+                return _BRAND_ORDER.compare(first._sample.getBrand(), second._sample.getBrand());
+            } });
+    }
+
+    /**
+     * Assigns cars to a batch of requests
+     * @param requests Requested rentals, the car of each describes the wanted class
+     * @return For each request (in the same order) the rent with the assigned car,
+     * or null if no car of its class or of a better class is free
+     */
+    public ArrayList<Rent> assign(ArrayList<Rent> requests)
+    {
+        int count = requests.size();
+        // sort the requests by pickup day, keeping their position in the low 32 bits
+        long[] order = new long[count];
+        for (int i = 0; i < count; i++)
+            order[i] = ((long)requests.get(i).getPickDate().toEpochDay() << 32) | i;
+        Arrays.sort(order);
+
+        Rent[] result = new Rent[count];
+        for (long entry : order)
+        {
+            int i = (int)entry;
+            Rent request = requests.get(i);
+            int pick = (int)(entry >> 32);
+            int freeDay = request.getReturnDate().toEpochDay() + 1;
+            Car wanted = request.getCar();
+
+            Car car = take(_classByCar.get(wanted), pick, freeDay);
+            for (int c = 0; car == null && c < _classes.size(); c++)
+                if (_classes.get(c)._sample.better(wanted))
+                {
+                    car = take(_classes.get(c), pick, freeDay);
+                    if (car != null)
+                        _upgrades++;
+                }
+
+            if (car != null)
+            {
+                result[i] = new Rent(request);
+                result[i].setCar(car);
+            }
+        }
+        return new ArrayList<Rent>(Arrays.asList(result));
+    }
+
+    /**
+     * Returns the number of different cars assigned so far
+     * @return Number of cars used
+     */
+    public int getCarsUsed()
+    {
+        return _carsUsed;
+    }
+
+    /**
+     * Returns the number of requests that got a car of a better class than requested
+     * @return Number of upgrades
+     */
+    public int getUpgrades()
+    {
+        return _upgrades;
+    }
+
+    /**
+     * Takes a car of a class that is free from the pickup day
+     * @return The car, or null if the class has no free car
+     */
+    private Car take(CarClass carClass, int pick, int freeDay)
+    {
+        if (carClass == null)
+            return null;
+
+        Slot first = carClass._inUse.peek();
+        if (first != null && first._freeDay <= pick)
+        {
+            // reuse the car that is free the soonest
+            carClass._inUse.poll();
+            first._freeDay = freeDay;
+            carClass._inUse.add(first);
+            return first._car;
+        }
+
+        Car car = carClass._unused.poll();
+        if (car == null)
+            return null;
+        _carsUsed++;
+        carClass._inUse.add(new Slot(car, freeDay));
+        return car;
+    }
+}
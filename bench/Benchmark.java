@@ -0,0 +1,311 @@
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Micro benchmarks for the hot methods of Date, Car and Rent.
+ * Every benchmark runs over a randomized data set (with a fixed seed, so runs can be compared),
+ * first for warm up and then for measurement, and reports the time and the bytes allocated
+ * per operation.
+ * A reference benchmark that uses none of the project classes runs first, and every time is
+ * also reported relative to it, so runs on different machines or under different loads can be
+ * compared. The results can be compared to a baseline file; the program then exits with status 1
+ * if a benchmark got slower relative to the reference than the tolerance allows, or allocates
+ * more than before. Without --baseline nothing is compared. Run it from the project directory with:
+ * <pre>
+ * javac -d out *.java bench/Benchmark.java
+ * java -cp out Benchmark [--seconds 1] [--baseline bench/baseline.txt [--save]] [--tolerance 25]
+ * </pre>
+ * With --save the results are written to the baseline file instead of being compared to it.
+ * Relative times still depend on the JVM and the processor, so a baseline is best saved on the
+ * machine that compares against it.
+ * @author (agent)
+ * @version (18/10/2026)
+ */
+public class Benchmark
+{
+    private static final int _DATA_SIZE = 4096; // number of items in each data set
+    private static final int _SEED = 20221201;
+    private static final String[] _BRANDS = {"Mazda", "Toyota", "Kia", "Hyundai", "Skoda"};
+    private static final String[] _NAMES = {"Rama", "Dan", "Noa", "Yossi", "Michal", "Avi"};
+    private static final double _DEFAULT_TOLERANCE = 25; // percent of the baseline time
+    private static final double _BYTES_TOLERANCE = 10; // percent of the baseline bytes, allocation is nearly exact
+    private static final String _REFERENCE = "Reference (int hash)";
+    private static final int _REFERENCE_LENGTH = 16; // ints hashed by each operation of the reference
+
+    private static volatile int _sink; // keeps the JIT from removing the measured work
+
+    private Date[] _dates;
+    private Date[] _otherDates;
+    private int[][] _dateFields; // day, month, year of random (mostly valid) dates
+    private Car[] _cars;
+    private Car[] _otherCars;
+    private Rent[] _rents;
+    private Rent[] _otherRents;
+    private int[] _ints; // data of the reference benchmark
+    private LinkedHashMap<String, double[]> _results; // ns/op, bytes/op and time relative to the reference
+
+    /**
+     * A single operation to measure
+     */
+    private interface Operation
+    {
+        /**
+         * Runs the operation on the i-th item of the data set
+         * @param i Index in the data set
+         * @return Any result of the operation
+         */
+        int run(int i);
+    }
+
+    /**
+     * Initialize the benchmark with a new random data set
+     */
+    public Benchmark()
+    {
+        Random random = new Random(_SEED);
+        _dates = new Date[_DATA_SIZE];
+        _otherDates = new Date[_DATA_SIZE];
+        _dateFields = new int[_DATA_SIZE][];
+        _cars = new Car[_DATA_SIZE];
+        _otherCars = new Car[_DATA_SIZE];
+        _rents = new Rent[_DATA_SIZE];
+        _otherRents = new Rent[_DATA_SIZE];
+        _ints = new int[_DATA_SIZE + _REFERENCE_LENGTH];
+        _results = new LinkedHashMap<String, double[]>();
+
+        for (int i = 0; i < _ints.length; i++)
+            _ints[i] = random.nextInt();
+        for (int i = 0; i < _DATA_SIZE; i++)
+        {
+            _dates[i] = randomDate(random);
+            _otherDates[i] = randomDate(random);
+            // about one of 10 dates is invalid, like the 31st of a short month
+            _dateFields[i] = new int[] {1 + random.nextInt(31), 1 + random.nextInt(12), 1990 + random.nextInt(40)};
+            _cars[i] = randomCar(random);
+            _otherCars[i] = randomCar(random);
+
+            Date pick = randomDate(random);
+            _rents[i] = new Rent(_NAMES[random.nextInt(_NAMES.length)], _cars[i], pick,
+                                 Date.fromEpochDay(pick.toEpochDay() + 1 + random.nextInt(30)));
+            // half of the other rents are possible overlaps of the rent with the same index
+            Rent other = (random.nextBoolean()) ? new Rent(_rents[i]) :
+                          new Rent(_NAMES[random.nextInt(_NAMES.length)], _otherCars[i], pick,
+                                   Date.fromEpochDay(pick.toEpochDay() + 1 + random.nextInt(30)));
+            other.setPickDate(Date.fromEpochDay(pick.toEpochDay() + random.nextInt(20) - 10));
+            _otherRents[i] = other;
+        }
+    }
+
+    /**
+     * Runs all the benchmarks, and compares them to a baseline if one is given
+     * @param args --seconds to measure each benchmark (default 1), --baseline file,
+     *             --save to write the baseline, --tolerance in percent of the baseline relative time
+     *             (default 25)
+     * @throws IOException If the baseline file could not be read or written
+     */
+    public static void main(String[] args) throws IOException
+    {
+        double seconds = 1;
+        double tolerance = _DEFAULT_TOLERANCE;
+        Path baseline = null;
+        boolean save = false;
+        for (int i = 0; i < args.length; i++)
+        {
+            if (args[i].equals("--seconds") && i + 1 < args.length)
+                seconds = Double.parseDouble(args[++i]);
+            else if (args[i].equals("--tolerance") && i + 1 < args.length)
+                tolerance = Double.parseDouble(args[++i]);
+            else if (args[i].equals("--baseline") && i + 1 < args.length)
+                baseline = Paths.get(args[++i]);
+            else if (args[i].equals("--save"))
+                save = true;
+            else
+            {
+                System.err.println("Usage: java Benchmark [--seconds N] [--baseline FILE [--save]] [--tolerance PERCENT]");
+                System.exit(2);
+            }
+        }
+
+        Benchmark benchmark = new Benchmark();
+        benchmark.runAll((long)(seconds * 1000000000L));
+        if (baseline == null)
+            return;
+        if (save)
+        {
+            benchmark.save(baseline);
+            System.out.println("Saved the baseline to " + baseline);
+        }
+        else if (!benchmark.compare(baseline, tolerance))
+            System.exit(1);
+    }
+
+    /**
+     * Runs all the benchmarks and prints their results
+     * @param nanos Measurement time of each benchmark, in nanoseconds
+     */
+    public void runAll(long nanos)
+    {
+        System.out.printf("%-24s %12s %12s %12s%n", "Benchmark", "ns/op", "bytes/op", "x reference");
+
+        // the reference runs first, so the relative times of the others can be printed
+        run(_REFERENCE, nanos, new Operation() {
+            public int run(int i)
+            {
+                int hash = 0;
+                for (int j = i; j < i + _REFERENCE_LENGTH; j++)
+                    hash = 31 * hash + _ints[j];
+                return hash;
+            } });
+        run("Date.difference", nanos, new Operation() {
+            public int run(int i) { return _dates[i].difference(_otherDates[i]); } });
+        run("Date.before", nanos, new Operation() {
+            public int run(int i) { return _dates[i].before(_otherDates[i]) ? 1 : 0; } });
+        run("Date.after", nanos, new Operation() {
+            public int run(int i) { return _dates[i].after(_otherDates[i]) ? 1 : 0; } });
+        run("Date.tomorrow", nanos, new Operation() {
+            public int run(int i) { return _dates[i].tomorrow().getDay(); } });
+        run("new Date (isValidDate)", nanos, new Operation() {
+            public int run(int i)
+            {
+                int[] fields = _dateFields[i];
+                return new Date(fields[0], fields[1], fields[2]).getDay();
+            } });
+        run("Car.better", nanos, new Operation() {
+            public int run(int i) { return _cars[i].better(_otherCars[i]) ? 1 : 0; } });
+        run("Car.equals", nanos, new Operation() {
+            public int run(int i) { return _cars[i].equals(_otherCars[i]) ? 1 : 0; } });
+        run("Rent.getPrice", nanos, new Operation() {
+            public int run(int i) { return _rents[i].getPrice(); } });
+        run("Rent.upgrade", nanos, new Operation() {
+            public int run(int i) { return new Rent(_rents[i]).upgrade(_otherCars[i]); } });
+        run("Rent.overlap", nanos, new Operation() {
+            public int run(int i) { return (_rents[i].overlap(_otherRents[i]) == null) ? 0 : 1; } });
+        run("Rent.toString", nanos, new Operation() {
+            public int run(int i) { return _rents[i].toString().length(); } });
+    }
+
+    /**
+     * Warms up and measures a single operation, then prints the time and allocation per operation
+     */
+    private void run(String name, long nanos, Operation operation)
+    {
+        measure(operation, nanos / 2); // warm up, so the JIT compiles the operation
+
+        long bytesBefore = allocatedBytes();
+        long start = System.nanoTime();
+        long ops = measure(operation, nanos);
+        long time = System.nanoTime() - start;
+        long bytes = allocatedBytes() - bytesBefore;
+
+        double nanosPerOp = (double)time / ops;
+        double[] reference = _results.get(_REFERENCE);
+        double relative = nanosPerOp / ((reference == null) ? nanosPerOp : reference[0]);
+        System.out.printf("%-24s %12.2f %12.1f %12.3f%n", name, nanosPerOp, (double)bytes / ops, relative);
+        _results.put(name, new double[] {nanosPerOp, (double)bytes / ops, relative});
+    }
+
+    /**
+     * Writes the results as a baseline file, one benchmark per line: name, time relative to the
+     * reference and bytes/op separated by tabs
+     */
+    private void save(Path file) throws IOException
+    {
+        ArrayList<String> lines = new ArrayList<String>();
+        lines.add("# benchmark\ttime/reference\tbytes/op (times are relative to the reference benchmark)");
+        for (Map.Entry<String, double[]> entry : _results.entrySet())
+            if (!entry.getKey().equals(_REFERENCE))
+                lines.add(String.format(Locale.ROOT, "%s\t%.3f\t%.1f", entry.getKey(), entry.getValue()[2],
+                                        entry.getValue()[1]));
+        Files.write(file, lines, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Compares the results to a baseline file written by save and prints the regressions
+     * @return True if no benchmark regressed
+     */
+    private boolean compare(Path file, double tolerance) throws IOException
+    {
+        boolean passed = true;
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8))
+        {
+            if (line.isEmpty() || line.startsWith("#"))
+                continue;
+            String[] fields = line.split("\t");
+            double[] result = _results.get(fields[0]);
+            if (result == null)
+            {
+                System.out.println("MISSING    " + fields[0]);
+                passed = false;
+                continue;
+            }
+
+            double baseRelative = Double.parseDouble(fields[1]);
+            double baseBytes = Double.parseDouble(fields[2]);
+            if (result[2] > baseRelative * (1 + tolerance / 100))
+            {
+                System.out.printf("SLOWER     %-24s %12.3f x reference, baseline %.3f%n", fields[0], result[2],
+                                  baseRelative);
+                passed = false;
+            }
+            if (result[1] > baseBytes * (1 + _BYTES_TOLERANCE / 100) + 1)
+            {
+                System.out.printf("ALLOCATES  %-24s %12.1f bytes/op, baseline %.1f%n", fields[0], result[1], baseBytes);
+                passed = false;
+            }
+        }
+        System.out.println(passed ? "No regressions" : "Regressions found");
+        return passed;
+    }
+
+    /**
+     * Runs an operation over and over for the given time
+     * @return Number of operations that were run
+     */
+    private static long measure(Operation operation, long nanos)
+    {
+        final int batch = _DATA_SIZE;
+        long end = System.nanoTime() + nanos;
+        long ops = 0;
+        int result = 0;
+        do
+        {
+            // check the time only once per batch, so the clock does not dominate short operations
+            for (int i = 0; i < batch; i++)
+                result += operation.run(i);
+            ops += batch;
+        } while (System.nanoTime() < end);
+        _sink = result;
+        return ops;
+    }
+
+    /**
+     * Returns the number of bytes allocated so far by the current thread, or 0 if it is not supported
+     */
+    private static long allocatedBytes()
+    {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean)
+            return ((com.sun.management.ThreadMXBean)bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+        return 0;
+    }
+
+    private static Date randomDate(Random random)
+    {
+        return Date.fromEpochDay(Date.toEpochDay(1, 1, 2020) + random.nextInt(3650));
+    }
+
+    private static Car randomCar(Random random)
+    {
+        return new Car(1000000 + random.nextInt(9000000), (char)('A' + random.nextInt(4)),
+                       _BRANDS[random.nextInt(_BRANDS.length)], random.nextBoolean());
+    }
+}
@@ -0,0 +1,307 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tests of BookingJournal: random changes are applied both to a journal and to a map of
+ * Rent objects, and the journal must give back the same rentals after it is reopened,
+ * compacted, or left with a record that was cut by a crash.
+ * @author (agent)
+ * @version (18/10/2026)
+ */
+public class BookingJournalTest
+{
+    private static final String[] _NAMES = {"Rama", "Dan", "Noa", "Yossi"};
+    private static final String[] _BRANDS = {"Mazda", "Kia", "Toyota"};
+    private static final int _FIRST_DAY = Date.toEpochDay(1, 1, 2024);
+
+    /**
+     * Runs the tests
+     * @param args Not used
+     * @throws Exception If the temporary files could not be used or a thread failed
+     */
+    public static void main(String[] args) throws Exception
+    {
+        Path folder = Files.createTempDirectory("journal-test");
+        try
+        {
+            replaysChanges(folder.resolve("replay.journal"));
+            compacts(folder.resolve("compact.journal"));
+            dropsCutRecord(folder.resolve("crash.journal"));
+            survivesFailedCompaction(folder.resolve("failed.journal"));
+            commitsConcurrentChanges(folder.resolve("concurrent.journal"));
+        }
+        finally
+        {
+            for (Path file : Files.newDirectoryStream(folder))
+                Files.delete(file);
+            Files.delete(folder);
+        }
+        Check.done("BookingJournalTest");
+    }
+
+    private static void replaysChanges(Path file) throws IOException
+    {
+        HashMap<Long, Rent> expected = new HashMap<Long, Rent>();
+        Random random = new Random(1);
+        try (BookingJournal journal = new BookingJournal(file))
+        {
+            applyRandomChanges(journal, expected, random, 2000);
+            checkRents(expected, journal, "rentals before the journal is closed");
+        }
+
+        long lastId;
+        try (BookingJournal journal = new BookingJournal(file))
+        {
+            checkRents(expected, journal, "rentals replayed from the file");
+            lastId = journal.create(randomRent(random));
+            for (long oldId : expected.keySet())
+                Check.isTrue(lastId > oldId, "a new id " + lastId + " is not an id used before the replay");
+
+            // the newest rental is removed, so only the journal remembers that its id was given
+            journal.remove(lastId);
+            journal.compact();
+        }
+
+        try (BookingJournal journal = new BookingJournal(file))
+        {
+            checkRents(expected, journal, "rentals replayed after a removal and compaction");
+            long id = journal.create(randomRent(random));
+            Check.isTrue(id > lastId, "a removed id " + lastId + " is not given again after compaction, got " + id);
+        }
+    }
+
+    private static void compacts(Path file) throws IOException
+    {
+        HashMap<Long, Rent> expected = new HashMap<Long, Rent>();
+        Random random = new Random(2);
+        try (BookingJournal journal = new BookingJournal(file))
+        {
+            applyRandomChanges(journal, expected, random, 3000);
+            long before = Files.size(file);
+            journal.compact();
+            Check.isTrue(Files.size(file) < before, "compaction makes the file smaller");
+            checkRents(expected, journal, "rentals after compaction");
+
+            applyRandomChanges(journal, expected, random, 500); // appended to the compacted file
+        }
+
+        try (BookingJournal journal = new BookingJournal(file))
+        {
+            checkRents(expected, journal, "rentals replayed from the compacted file");
+        }
+    }
+
+    private static void dropsCutRecord(Path file) throws IOException
+    {
+        HashMap<Long, Rent> expected = new HashMap<Long, Rent>();
+        Random random = new Random(3);
+        try (BookingJournal journal = new BookingJournal(file))
+        {
+            applyRandomChanges(journal, expected, random, 200);
+        }
+
+        // a crash in the middle of writing a record: a length and part of the record
+        long size = Files.size(file);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.APPEND))
+        {
+            channel.write(ByteBuffer.wrap(new byte[] {40, 0, 0, 0, 1, 2, 3}));
+        }
+
+        try (BookingJournal journal = new BookingJournal(file))
+        {
+            checkRents(expected, journal, "rentals before the cut record");
+            Check.equal(size, Files.size(file), "the cut record is removed from the file");
+            applyRandomChanges(journal, expected, random, 50);
+        }
+
+        try (BookingJournal journal = new BookingJournal(file))
+        {
+            checkRents(expected, journal, "changes written after the cut record was removed");
+        }
+    }
+
+    private static void survivesFailedCompaction(Path file) throws IOException
+    {
+        HashMap<Long, Rent> expected = new HashMap<Long, Rent>();
+        Random random = new Random(4);
+        Path temp = file.resolveSibling(file.getFileName() + ".compact");
+        try (BookingJournal journal = new BookingJournal(file))
+        {
+            applyRandomChanges(journal, expected, random, 200);
+
+            Files.createDirectory(temp); // the compacted file can not be created
+            boolean failed = false;
+            try
+            {
+                journal.compact();
+            }
+            catch (IOException e)
+            {
+                failed = true;
+            }
+            Check.isTrue(failed, "compaction fails when its file can not be written");
+            Check.isTrue(!Files.exists(temp), "a failed compaction removes what it created");
+
+            checkRents(expected, journal, "rentals after a failed compaction");
+            applyRandomChanges(journal, expected, random, 200); // the journal can still be used
+            journal.compact();
+        }
+
+        try (BookingJournal journal = new BookingJournal(file))
+        {
+            checkRents(expected, journal, "rentals replayed after a failed and a good compaction");
+        }
+    }
+
+    private static void commitsConcurrentChanges(Path file) throws Exception
+    {
+        final int numOfThreads = 8;
+        final int rentsPerThread = 200;
+        final BookingJournal journal = new BookingJournal(file);
+        final AtomicInteger created = new AtomicInteger();
+        journal.addListener(new BookingJournal.Listener() {
+            public void created(long id, Rent rent) { created.incrementAndGet(); }
+            public void changed(long id, Rent before, Rent after) { }
+            public void upgraded(long id, Rent before, Rent after, int cost) { }
+            public void removed(long id, Rent rent) { } });
+
+        final ArrayList<Long> ids = new ArrayList<Long>();
+        final ArrayList<Throwable> failures = new ArrayList<Throwable>();
+        ArrayList<Thread> threads = new ArrayList<Thread>();
+        for (int t = 0; t < numOfThreads; t++)
+        {
+            final Random random = new Random(10 + t);
+            threads.add(new Thread() {
+                public void run()
+                {
+                    try
+                    {
+                        for (int i = 0; i < rentsPerThread; i++)
+                        {
+                            long id = journal.create(randomRent(random));
+                            synchronized (ids)
+                            {
+                                ids.add(id);
+                            }
+                        }
+                    }
+                    catch (Throwable e)
+                    {
+                        synchronized (failures)
+                        {
+                            failures.add(e);
+                        }
+                    }
+                } });
+        }
+        for (Thread thread : threads)
+            thread.start();
+        for (Thread thread : threads)
+            thread.join();
+        journal.close();
+
+        Check.isTrue(failures.isEmpty(), "no thread failed: " + failures);
+        Check.equal(numOfThreads * rentsPerThread, new HashSet<Long>(ids).size(), "every rental got its own id");
+        Check.equal(numOfThreads * rentsPerThread, created.get(), "the listener is told about every rental");
+        try (BookingJournal reopened = new BookingJournal(file))
+        {
+            Check.equal(numOfThreads * rentsPerThread, reopened.size(), "every committed rental is replayed");
+        }
+    }
+
+    /**
+     * Applies random changes to a journal and the same changes to a map of the expected rentals
+     */
+    private static void applyRandomChanges(BookingJournal journal, HashMap<Long, Rent> expected, Random random,
+                                           int numOfChanges) throws IOException
+    {
+        for (int i = 0; i < numOfChanges; i++)
+        {
+            ArrayList<Long> ids = new ArrayList<Long>(expected.keySet());
+            int kind = ids.isEmpty() ? 0 : random.nextInt(6);
+            if (kind == 0)
+            {
+                Rent rent = randomRent(random);
+                expected.put(journal.create(rent), new Rent(rent));
+                continue;
+            }
+
+            long id = ids.get(random.nextInt(ids.size()));
+            Rent rent = expected.get(id);
+            if (kind == 1)
+            {
+                Date pickDate = date(random.nextInt(400));
+                journal.setPickDate(id, pickDate);
+                rent.setPickDate(pickDate);
+            }
+            else if (kind == 2)
+            {
+                Date returnDate = date(random.nextInt(400));
+                journal.setReturnDate(id, returnDate);
+                rent.setReturnDate(returnDate);
+            }
+            else if (kind == 3)
+            {
+                Car car = randomCar(random);
+                journal.setCar(id, car);
+                rent.setCar(car);
+            }
+            else if (kind == 4)
+            {
+                Car car = randomCar(random);
+                Check.equal(rent.upgrade(car), journal.upgrade(id, car), "upgrade cost of rental " + id);
+            }
+            else
+            {
+                Check.isTrue(journal.remove(id), "rental " + id + " is removed");
+                Check.isTrue(!journal.remove(id), "rental " + id + " can not be removed twice");
+                expected.remove(id);
+            }
+        }
+    }
+
+    /**
+     * Checks that a journal has the expected rentals, comparing the car ids as well
+     * (Rent.equals only compares the car type, brand and gear)
+     */
+    private static void checkRents(HashMap<Long, Rent> expected, BookingJournal journal, String message)
+    {
+        HashMap<Long, Rent> rents = journal.getRents();
+        Check.equal(expected, rents, message);
+        for (Map.Entry<Long, Rent> entry : expected.entrySet())
+        {
+            Rent rent = rents.get(entry.getKey());
+            if (rent != null)
+                Check.equal(entry.getValue().getCar().getId(), rent.getCar().getId(),
+                            message + ": car id of rental " + entry.getKey());
+        }
+    }
+
+    private static Rent randomRent(Random random)
+    {
+        int pick = random.nextInt(365);
+        return new Rent(_NAMES[random.nextInt(_NAMES.length)], randomCar(random), date(pick),
+                        date(pick + 1 + random.nextInt(20)));
+    }
+
+    private static Car randomCar(Random random)
+    {
+        return new Car(1000000 + random.nextInt(9000000), (char)('A' + random.nextInt(4)),
+                       _BRANDS[random.nextInt(_BRANDS.length)], random.nextBoolean());
+    }
+
+    private static Date date(int day)
+    {
+        return Date.fromEpochDay(_FIRST_DAY + day);
+    }
+}
@@ -0,0 +1,146 @@
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tests of BookingService: bookings of the same car from many threads, with fewer locks than
+ * cars so cars share locks, must never overlap, and of bookings of the same period exactly one
+ * must win. A rental includes its return day, so a booking from that day conflicts.
+ * @author (agent)
+ * @version (18/10/2026)
+ */
+public class BookingServiceTest
+{
+    private static final int _NUM_OF_THREADS = 8;
+    private static final int _NUM_OF_CARS = 12;
+    private static final int _FIRST_DAY = Date.toEpochDay(1, 1, 2024);
+
+    /**
+     * Runs the tests
+     * @param args Not used
+     * @throws InterruptedException If the test was interrupted
+     */
+    public static void main(String[] args) throws InterruptedException
+    {
+        conflictsOnReturnDay();
+        oneOfSamePeriodWins();
+        neverOverlaps();
+        Check.done("BookingServiceTest");
+    }
+
+    private static void conflictsOnReturnDay()
+    {
+        BookingService service = new BookingService(4);
+        Car car = car(0);
+        Rent booked = service.book("Rama", car, date(10), date(13));
+        Check.isTrue(booked != null, "a free car is booked");
+        Check.isTrue(service.book("Dan", car, date(13), date(15)) == null, "the return day is still taken");
+        Check.isTrue(service.book("Dan", car, date(5), date(10)) == null, "the pickup day is taken");
+        Check.isTrue(service.book("Dan", car, date(11), date(12)) == null, "a period inside a booking is taken");
+        Check.isTrue(!service.isAvailable(car.getId(), date(8), date(20)), "a period around a booking is taken");
+        Check.isTrue(service.book("Dan", car, date(14), date(15)) != null, "the day after the return day is free");
+        Check.isTrue(service.book("Noa", car(1), date(10), date(13)) != null, "another car is free");
+        Check.equal(3, service.size(), "number of bookings");
+
+        Check.isTrue(service.cancel(booked), "a booking is canceled");
+        Check.isTrue(!service.cancel(booked), "a booking is canceled only once");
+        Check.isTrue(service.book("Dan", car, date(10), date(13)) != null, "a canceled period is free again");
+        Check.equal(3, service.size(), "number of bookings after a cancel");
+    }
+
+    private static void oneOfSamePeriodWins() throws InterruptedException
+    {
+        for (int round = 0; round < 200; round++)
+        {
+            final BookingService service = new BookingService(2);
+            final CountDownLatch start = new CountDownLatch(1);
+            final AtomicInteger wins = new AtomicInteger();
+            Thread[] threads = new Thread[_NUM_OF_THREADS];
+            for (int t = 0; t < threads.length; t++)
+            {
+                final int pick = t % 3; // overlapping but different periods too
+                threads[t] = new Thread(new Runnable() {
+                    public void run()
+                    {
+                        await(start);
+                        if (service.book("Rama", car(0), date(pick), date(pick + 3)) != null)
+                            wins.incrementAndGet();
+                    } });
+                threads[t].start();
+            }
+            start.countDown();
+            for (Thread thread : threads)
+                thread.join();
+            Check.equal(1, wins.get(), "one of the overlapping bookings wins, round " + round);
+            Check.equal(1, service.size(), "a single booking is kept, round " + round);
+        }
+    }
+
+    private static void neverOverlaps() throws InterruptedException
+    {
+        final BookingService service = new BookingService(4); // cars share locks
+        final CountDownLatch start = new CountDownLatch(1);
+        final AtomicInteger booked = new AtomicInteger();
+        Thread[] threads = new Thread[_NUM_OF_THREADS];
+        for (int t = 0; t < threads.length; t++)
+        {
+            threads[t] = new Thread(new Runnable() {
+                public void run()
+                {
+                    await(start);
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    for (int i = 0; i < 20000; i++)
+                    {
+                        Car car = car(random.nextInt(_NUM_OF_CARS));
+                        int pick = random.nextInt(365);
+                        Rent rent = service.book("Rama", car, date(pick), date(pick + 1 + random.nextInt(7)));
+                        if (rent == null)
+                            continue;
+                        booked.incrementAndGet();
+                        // cancel some bookings, so their periods are booked again
+                        if (random.nextInt(4) == 0 && service.cancel(rent))
+                            booked.decrementAndGet();
+                    }
+                } });
+            threads[t].start();
+        }
+        start.countDown();
+        for (Thread thread : threads)
+            thread.join();
+
+        int total = 0;
+        for (int c = 0; c < _NUM_OF_CARS; c++)
+        {
+            ArrayList<Rent> rents = service.bookingsOf(car(c).getId());
+            total += rents.size();
+            for (int i = 1; i < rents.size(); i++)
+                Check.isTrue(rents.get(i - 1).getReturnDate().before(rents.get(i).getPickDate()),
+                             "bookings of car " + c + " do not overlap: " + rents.get(i - 1) + ", " + rents.get(i));
+        }
+        Check.equal(booked.get(), total, "every committed booking is kept");
+        Check.equal(total, service.size(), "size counts every booking");
+    }
+
+    private static void await(CountDownLatch latch)
+    {
+        try
+        {
+            latch.await();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static Car car(int i)
+    {
+        return new Car(1000000 + i, 'B', "Kia", true);
+    }
+
+    private static Date date(int day)
+    {
+        return Date.fromEpochDay(_FIRST_DAY + day);
+    }
+}
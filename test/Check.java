@@ -0,0 +1,61 @@
+/**
+ * Assertions for the test programs of the project.
+ * A failed check prints its message and the test goes on, so one run reports every failure;
+ * done prints a summary and ends the program with status 1 if any check failed.
+ * @author (agent)
+ * @version (18/10/2026)
+ */
+public class Check
+{
+    private static int _checks;
+    private static int _failures;
+
+    /**
+     * Checks that a condition holds
+     * @param condition Condition to check
+     * @param message What was checked, printed if the check failed
+     */
+    public static void isTrue(boolean condition, String message)
+    {
+        _checks++;
+        if (!condition)
+        {
+            _failures++;
+            System.out.println("FAILED: " + message);
+        }
+    }
+
+    /**
+     * Checks that a number is the expected number
+     * @param expected Expected number
+     * @param actual Actual number
+     * @param message What was checked, printed if the check failed
+     */
+    public static void equal(long expected, long actual, String message)
+    {
+        isTrue(expected == actual, message + " (expected " + expected + ", got " + actual + ")");
+    }
+
+    /**
+     * Checks that an object equals the expected object
+     * @param expected Expected object (may be null)
+     * @param actual Actual object (may be null)
+     * @param message What was checked, printed if the check failed
+     */
+    public static void equal(Object expected, Object actual, String message)
+    {
+        boolean same = (expected == null) ? actual == null : expected.equals(actual);
+        isTrue(same, message + " (expected " + expected + ", got " + actual + ")");
+    }
+
+    /**
+     * Prints the number of checks and failures, and ends the program with status 1 if any check failed
+     * @param testName Name of the test program
+     */
+    public static void done(String testName)
+    {
+        System.out.println(testName + ": " + _checks + " checks, " + _failures + " failed");
+        if (_failures > 0)
+            System.exit(1);
+    }
+}
@@ -0,0 +1,108 @@
+import java.util.HashSet;
+import java.util.Random;
+
+/**
+ * Tests of FleetAvailability: random bookings, releases and moves of the horizon are checked
+ * against a set of the booked days of each car.
+ * @author (agent)
+ * @version (18/10/2026)
+ */
+public class FleetAvailabilityTest
+{
+    private static final int _NUM_OF_CARS = 20;
+    private static final int _NUM_OF_DAYS = 200; // not a multiple of 64, so the last word is partly used
+    private static final int _FIRST_DAY = Date.toEpochDay(1, 1, 2024);
+
+    /**
+     * Runs the tests
+     * @param args Not used
+     */
+    public static void main(String[] args)
+    {
+        matchesBookedDays();
+        Check.done("FleetAvailabilityTest");
+    }
+
+    private static void matchesBookedDays()
+    {
+        Random random = new Random(1);
+        FleetAvailability availability = new FleetAvailability(date(0), _NUM_OF_DAYS);
+        for (int i = 0; i < _NUM_OF_CARS; i++)
+            availability.addCar(car(i));
+
+        HashSet<Long> booked = new HashSet<Long>(); // car index * 100000 + day
+        int first = 0;
+        for (int step = 0; step < 20000; step++)
+        {
+            int kind = random.nextInt(10);
+            int carIndex = random.nextInt(_NUM_OF_CARS);
+            int carId = car(carIndex).getId();
+            int pick = first - 10 + random.nextInt(_NUM_OF_DAYS + 20); // some days are out of the horizon
+            int ret = pick + random.nextInt(15);
+            if (kind == 0)
+            {
+                // roll the horizon forward by up to a little more than a word
+                first += random.nextInt(70);
+                availability.advanceTo(date(first));
+                Check.equal(date(first), availability.getStart(), "first day after moving the horizon");
+                continue;
+            }
+            if (kind <= 5)
+            {
+                boolean free = inHorizon(first, pick, ret) && isFree(booked, carIndex, pick, ret);
+                Check.equal(free, availability.book(carId, date(pick), date(ret)),
+                            "booking car " + carIndex + " from day " + pick + " to day " + ret);
+                if (free)
+                    for (int day = pick; day <= ret; day++)
+                        booked.add(key(carIndex, day));
+                continue;
+            }
+            if (kind <= 7)
+            {
+                availability.release(carId, date(pick), date(ret));
+                for (int day = pick; day <= ret; day++)
+                    booked.remove(key(carIndex, day));
+                continue;
+            }
+
+            boolean inHorizon = inHorizon(first, pick, ret);
+            Check.equal(inHorizon && isFree(booked, carIndex, pick, ret),
+                        availability.isAvailable(carId, date(pick), date(ret)),
+                        "car " + carIndex + " is free from day " + pick + " to day " + ret);
+            int count = 0;
+            for (int i = 0; i < _NUM_OF_CARS; i++)
+                if (car(i).getType() == 'B' && inHorizon && isFree(booked, i, pick, ret))
+                    count++;
+            Check.equal(count, availability.countAvailable('B', date(pick), date(ret)),
+                        "free cars of type B from day " + pick + " to day " + ret);
+        }
+    }
+
+    private static boolean inHorizon(int first, int pick, int ret)
+    {
+        return pick >= first && pick <= ret && ret < first + _NUM_OF_DAYS;
+    }
+
+    private static boolean isFree(HashSet<Long> booked, int carIndex, int pick, int ret)
+    {
+        for (int day = pick; day <= ret; day++)
+            if (booked.contains(key(carIndex, day)))
+                return false;
+        return true;
+    }
+
+    private static long key(int carIndex, int day)
+    {
+        return carIndex * 100000L + day;
+    }
+
+    private static Car car(int i)
+    {
+        return new Car(1000000 + i * 7919, (char)('A' + i % 4), "Kia", i % 2 == 0);
+    }
+
+    private static Date date(int day)
+    {
+        return Date.fromEpochDay(_FIRST_DAY + day);
+    }
+}
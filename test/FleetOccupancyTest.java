@@ -0,0 +1,114 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.Random;
+
+/**
+ * Tests of FleetOccupancy: the daily counts must match a day by day count of the rent days,
+ * from a list, a linked list and a RentalStore, and the return day must not be counted,
+ * unlike in FleetAvailability.
+ * @author (agent)
+ * @version (18/10/2026)
+ */
+public class FleetOccupancyTest
+{
+    private static final String[] _BRANDS = {"Mazda", "Kia", "Toyota"};
+    private static final int _FIRST_DAY = Date.toEpochDay(1, 1, 2024);
+
+    /**
+     * Runs the tests
+     * @param args Not used
+     */
+    public static void main(String[] args)
+    {
+        countsRentDays();
+        matchesDayByDayCount();
+        Check.done("FleetOccupancyTest");
+    }
+
+    private static void countsRentDays()
+    {
+        Car car = new Car(1234567, 'B', "Kia", false);
+        Rent rent = new Rent("Rama", car, date(10), date(13));
+        ArrayList<Rent> rents = new ArrayList<Rent>();
+        rents.add(rent);
+        FleetOccupancy.Report report = new FleetOccupancy().report(rents, date(0), 30);
+
+        Check.equal(0, report.occupancy('B', date(9)), "the day before the pickup is not counted");
+        Check.equal(1, report.occupancy('B', date(10)), "the pickup day is counted");
+        Check.equal(1, report.occupancy('B', date(12)), "the last rent day is counted");
+        Check.equal(0, report.occupancy('B', date(13)), "the return day is not counted");
+        Check.equal(rent.howManyDays(), Math.round(report.utilization('B', 1) * 30),
+                    "rent days are the days of howManyDays");
+
+        // the documented difference: FleetAvailability keeps the car booked on the return day
+        FleetAvailability availability = new FleetAvailability(date(0), 30);
+        availability.addCar(car);
+        availability.book(rent);
+        Check.isTrue(!availability.isAvailable(car.getId(), date(13), date(14)),
+                     "FleetAvailability keeps the car booked on the return day");
+        Check.isTrue(availability.isAvailable(car.getId(), date(14), date(15)), "the car is free after the return day");
+    }
+
+    private static void matchesDayByDayCount()
+    {
+        Random random = new Random(1);
+        int numOfDays = 120;
+        ArrayList<Rent> rents = new ArrayList<Rent>();
+        RentalStore store = new RentalStore();
+        for (int i = 0; i < 20000; i++)
+        {
+            int pick = random.nextInt(160) - 20; // some rentals start before the period or end after it
+            Car car = new Car(1000000 + random.nextInt(9000000), (char)('A' + random.nextInt(4)),
+                              _BRANDS[random.nextInt(_BRANDS.length)], random.nextBoolean());
+            Rent rent = new Rent("Rama", car, date(pick), date(pick + 1 + random.nextInt(30)));
+            rents.add(rent);
+            store.add(rent);
+        }
+
+        int[][] byType = new int[4][numOfDays];
+        int[][] byBrand = new int[_BRANDS.length][numOfDays];
+        for (Rent rent : rents)
+        {
+            int type = rent.getCar().getType() - 'A';
+            int brand = indexOfBrand(rent.getCar().getBrand());
+            for (int day = rent.getPickDate().toEpochDay(); day < rent.getReturnDate().toEpochDay(); day++)
+            {
+                int index = day - _FIRST_DAY;
+                if (index >= 0 && index < numOfDays)
+                {
+                    byType[type][index]++;
+                    byBrand[brand][index]++;
+                }
+            }
+        }
+
+        FleetOccupancy occupancy = new FleetOccupancy();
+        FleetOccupancy.Report[] reports = {occupancy.report(rents, date(0), numOfDays),
+                                           occupancy.report(new LinkedList<Rent>(rents), date(0), numOfDays),
+                                           occupancy.report(store, date(0), numOfDays)};
+        String[] sources = {"list", "linked list", "store"};
+        for (int r = 0; r < reports.length; r++)
+        {
+            for (char type = 'A'; type <= 'D'; type++)
+                Check.isTrue(Arrays.equals(byType[type - 'A'], reports[r].dailyOccupancy(type)),
+                             sources[r] + ": daily occupancy of type " + type);
+            for (int brand = 0; brand < _BRANDS.length; brand++)
+                Check.isTrue(Arrays.equals(byBrand[brand], reports[r].dailyOccupancyOfBrand(_BRANDS[brand])),
+                             sources[r] + ": daily occupancy of " + _BRANDS[brand]);
+        }
+    }
+
+    private static int indexOfBrand(String brand)
+    {
+        for (int i = 0; i < _BRANDS.length; i++)
+            if (_BRANDS[i].equals(brand))
+                return i;
+        return -1;
+    }
+
+    private static Date date(int day)
+    {
+        return Date.fromEpochDay(_FIRST_DAY + day);
+    }
+}
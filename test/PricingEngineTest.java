@@ -0,0 +1,116 @@
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.Random;
+
+/**
+ * Tests of TablePricingEngine: the default engine must give the prices of the original
+ * switch in Rent.getPrice, and month and weekend percentages must match a day by day calculation.
+ * @author (agent)
+ * @version (18/10/2026)
+ */
+public class PricingEngineTest
+{
+    private static final int _FIRST_DAY = Date.toEpochDay(1, 1, 2000);
+    private static final int _LAST_DAY = Date.toEpochDay(31, 12, 2099);
+
+    /**
+     * Runs the tests
+     * @param args Not used
+     */
+    public static void main(String[] args)
+    {
+        matchesOriginalPrices();
+        matchesDailyPercentages();
+        changesVersion();
+        Check.done("PricingEngineTest");
+    }
+
+    private static void matchesOriginalPrices()
+    {
+        Rent.setPricingEngine(new TablePricingEngine());
+        Random random = new Random(1);
+        char[] types = {'A', 'B', 'C', 'D'};
+        for (int i = 0; i < 20000; i++)
+        {
+            char type = types[random.nextInt(types.length)];
+            int pick = _FIRST_DAY + random.nextInt(_LAST_DAY - _FIRST_DAY - 1000);
+            int days = 1 + random.nextInt((i % 10 == 0) ? 1000 : 30); // some longer than the price table
+            Rent rent = new Rent("Rama", new Car(1234567, type, "Mazda", true), Date.fromEpochDay(pick),
+                                 Date.fromEpochDay(pick + days));
+            Check.equal(originalPrice(type, days), rent.getPrice(), "price of " + rent);
+        }
+    }
+
+    private static void matchesDailyPercentages()
+    {
+        TablePricingEngine engine = new TablePricingEngine();
+        int[] monthPercentages = {100, 90, 110, 100, 120, 150, 160, 140, 100, 95, 100, 130};
+        for (int month = 1; month <= 12; month++)
+            engine.setMonthPercentage(month, monthPercentages[month - 1]);
+        engine.setWeekendPercentage(125);
+
+        Random random = new Random(2);
+        for (int i = 0; i < 20000; i++)
+        {
+            char type = (char)('A' + random.nextInt(4));
+            int pick = _FIRST_DAY + random.nextInt(_LAST_DAY - _FIRST_DAY - 100);
+            int ret = pick + 1 + random.nextInt(60);
+            Check.equal(dailyPrice(type, pick, ret, monthPercentages, 125), engine.getPrice(type, pick, ret),
+                        "price of type " + type + " from day " + pick + " to day " + ret);
+        }
+
+        int lastValidDay = Date.toEpochDay(31, 12, 9999);
+        Check.equal(engine.getPrice('B', 5), engine.getPrice('B', lastValidDay - 2, lastValidDay + 3),
+                    "days after the last valid date get the base price");
+    }
+
+    private static void changesVersion()
+    {
+        TablePricingEngine engine = new TablePricingEngine();
+        int version = engine.getVersion();
+        engine.setWeekendPercentage(110);
+        Check.equal(version + 1, engine.getVersion(), "a weekend percentage changes the version");
+        engine.setMonthPercentage(7, 120);
+        Check.equal(version + 2, engine.getVersion(), "a month percentage changes the version");
+        engine.setMonthPercentage(13, 120);
+        Check.equal(version + 2, engine.getVersion(), "an invalid month is ignored");
+    }
+
+    /**
+     * The price calculation of Rent.getPrice before it used a pricing engine
+     */
+    private static int originalPrice(char type, int numOfRentDays)
+    {
+        int rentDailyRate;
+        switch (type)
+        {
+            case 'B': rentDailyRate = 150;
+                      break;
+            case 'C': rentDailyRate = 180;
+                      break;
+            case 'D': rentDailyRate = 240;
+                      break;
+            default : rentDailyRate = 100;
+        }
+        int rentWeeklyRate = 7 * rentDailyRate * (100 - 10) / 100;
+        return (numOfRentDays / 7) * rentWeeklyRate + (numOfRentDays % 7) * rentDailyRate;
+    }
+
+    /**
+     * The price with percentages, adding the percentage of every rent day on its own
+     */
+    private static int dailyPrice(char type, int pick, int ret, int[] monthPercentages, int weekendPercentage)
+    {
+        long totalPercentage = 0;
+        for (int day = pick; day < ret; day++)
+        {
+            Date date = Date.fromEpochDay(day);
+            LocalDate local = LocalDate.of(date.getYear(), date.getMonth(), date.getDay());
+            int percentage = monthPercentages[date.getMonth() - 1];
+            if (local.getDayOfWeek() == DayOfWeek.SATURDAY || local.getDayOfWeek() == DayOfWeek.SUNDAY)
+                percentage = percentage * weekendPercentage / 100;
+            totalPercentage += percentage;
+        }
+        return (int)(originalPrice(type, ret - pick) * totalPercentage / (100L * (ret - pick)));
+    }
+}
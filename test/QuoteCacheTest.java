@@ -0,0 +1,119 @@
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tests of QuoteCache: a cached price must always be the current price of the engine, a change
+ * of the engine version must drop the saved prices, and prices must stay right when a small
+ * cache replaces its entries and when many threads quote at the same time.
+ * @author (agent)
+ * @version (18/10/2026)
+ */
+public class QuoteCacheTest
+{
+    private static final int _FIRST_DAY = Date.toEpochDay(1, 1, 2024);
+    private static final int _NUM_OF_THREADS = 4;
+
+    /**
+     * Runs the tests
+     * @param args Not used
+     * @throws InterruptedException If the test was interrupted
+     */
+    public static void main(String[] args) throws InterruptedException
+    {
+        countsHits();
+        dropsPricesOnVersionChange();
+        matchesEngine();
+        matchesEngineFromThreads();
+        Check.done("QuoteCacheTest");
+    }
+
+    private static void countsHits()
+    {
+        TablePricingEngine engine = new TablePricingEngine();
+        QuoteCache cache = new QuoteCache(engine, 1000);
+        int price = cache.getPrice('B', _FIRST_DAY, _FIRST_DAY + 5);
+        Check.equal(engine.getPrice('B', _FIRST_DAY, _FIRST_DAY + 5), price, "price of the first quote");
+        Check.equal(price, cache.getPrice('B', _FIRST_DAY, _FIRST_DAY + 5), "price of a repeated quote");
+        Check.equal(1, cache.getMisses(), "the first quote is a miss");
+        Check.equal(1, cache.getHits(), "the repeated quote is a hit");
+
+        cache.clear();
+        cache.getPrice('B', _FIRST_DAY, _FIRST_DAY + 5);
+        Check.equal(2, cache.getMisses(), "a quote after clear is a miss");
+
+        long quotes = cache.getHits() + cache.getMisses();
+        Check.equal(engine.getPrice('B', -5, 3), cache.getPrice('B', -5, 3), "price of days out of the cached range");
+        Check.equal(quotes, cache.getHits() + cache.getMisses(), "days out of the cached range are not counted");
+    }
+
+    private static void dropsPricesOnVersionChange()
+    {
+        TablePricingEngine engine = new TablePricingEngine();
+        QuoteCache cache = new QuoteCache(engine, 1000);
+        int pick = Date.toEpochDay(6, 7, 2024); // a Saturday in July
+        int before = cache.getPrice('C', pick, pick + 3);
+        cache.getPrice('C', pick, pick + 3);
+        Check.equal(1, cache.getHits(), "the price is saved");
+
+        engine.setMonthPercentage(7, 150);
+        int after = cache.getPrice('C', pick, pick + 3);
+        Check.equal(engine.getPrice('C', pick, pick + 3), after, "the price after a change of the month percentage");
+        Check.isTrue(after != before, "the month percentage changes the price");
+        Check.equal(2, cache.getMisses(), "a quote after a version change is a miss");
+        Check.equal(engine.getVersion(), cache.getVersion(), "the cache has the version of the engine");
+
+        engine.setWeekendPercentage(200);
+        Check.equal(engine.getPrice('C', pick, pick + 3), cache.getPrice('C', pick, pick + 3),
+                    "the price after a change of the weekend percentage");
+        Check.equal(3, cache.getMisses(), "every version change drops the saved price");
+    }
+
+    private static void matchesEngine()
+    {
+        Random random = new Random(1);
+        TablePricingEngine engine = new TablePricingEngine();
+        QuoteCache cache = new QuoteCache(engine, 64); // much smaller than the quotes, so entries are replaced
+        for (int i = 0; i < 50000; i++)
+        {
+            if (random.nextInt(1000) == 0)
+                engine.setMonthPercentage(1 + random.nextInt(12), 80 + random.nextInt(60));
+            char type = (char)('A' + random.nextInt(4));
+            int pick = _FIRST_DAY + random.nextInt(400);
+            int ret = pick + 1 + random.nextInt(20);
+            Check.equal(engine.getPrice(type, pick, ret), cache.getPrice(type, pick, ret),
+                        "price of type " + type + " from day " + pick + " to day " + ret);
+        }
+        Check.isTrue(cache.getHits() > 0, "some quotes are hits");
+        Check.isTrue(cache.getHitRate() > 0 && cache.getHitRate() < 1, "the hit rate is between 0 and 1");
+    }
+
+    private static void matchesEngineFromThreads() throws InterruptedException
+    {
+        final TablePricingEngine engine = new TablePricingEngine();
+        final QuoteCache cache = new QuoteCache(engine, 256);
+        final AtomicInteger wrong = new AtomicInteger();
+        Thread[] threads = new Thread[_NUM_OF_THREADS];
+        for (int t = 0; t < threads.length; t++)
+        {
+            final long seed = t;
+            threads[t] = new Thread(new Runnable() {
+                public void run()
+                {
+                    Random random = new Random(seed);
+                    for (int i = 0; i < 100000; i++)
+                    {
+                        char type = (char)('A' + random.nextInt(4));
+                        int pick = _FIRST_DAY + random.nextInt(100);
+                        int ret = pick + 1 + random.nextInt(10);
+                        if (cache.getPrice(type, pick, ret) != engine.getPrice(type, pick, ret))
+                            wrong.incrementAndGet();
+                    }
+                } });
+            threads[t].start();
+        }
+        for (Thread thread : threads)
+            thread.join();
+        Check.equal(0, wrong.get(), "wrong prices from " + _NUM_OF_THREADS + " threads");
+        Check.equal(_NUM_OF_THREADS * 100000L, cache.getHits() + cache.getMisses(), "every quote is counted");
+    }
+}
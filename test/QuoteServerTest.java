@@ -0,0 +1,103 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Tests of QuoteServer: answers must match Rent for every type and gear of the cached cars,
+ * invalid parameters must be answered with 400 and any other failure with 500.
+ * @author (agent)
+ * @version (18/10/2026)
+ */
+public class QuoteServerTest
+{
+    private static final String[] _GEARS = {"auto", "manual"};
+
+    /**
+     * Runs the tests
+     * @param args Not used
+     * @throws IOException If the server could not be used
+     */
+    public static void main(String[] args) throws IOException
+    {
+        PricingEngine engine = Rent.getPricingEngine();
+        QuoteServer server = new QuoteServer(0);
+        server.start();
+        try
+        {
+            answersUpgrades(server);
+            rejectsInvalidParameters(server);
+            answersFailures(server);
+        }
+        finally
+        {
+            server.stop();
+            Rent.setPricingEngine(engine);
+        }
+        Check.done("QuoteServerTest");
+    }
+
+    private static void answersUpgrades(QuoteServer server) throws IOException
+    {
+        Date pick = new Date(1, 7, 2024);
+        Date ret = new Date(12, 7, 2024);
+        for (char type = 'A'; type <= 'D'; type++)
+            for (char newType = 'A'; newType <= 'D'; newType++)
+                for (int gear = 0; gear < _GEARS.length; gear++)
+                {
+                    // the cars of a brand are cached together, so every type and gear must be the right car
+                    Rent rent = new Rent("", new Car(1234567, type, "Kia", false), pick, ret);
+                    int cost = rent.upgrade(new Car(7654321, newType, "Mazda", gear == 1));
+                    String query = "type=" + type + "&brand=Kia&gear=auto&newType=" + newType
+                                   + "&newBrand=Mazda&newGear=" + _GEARS[gear] + "&pick=1/7/2024&return=12/7/2024";
+                    Check.equal(200 + " " + cost, get(server, "/upgrade?" + query),
+                                "upgrade from " + type + " to " + newType + " " + _GEARS[gear]);
+                }
+    }
+
+    private static void rejectsInvalidParameters(QuoteServer server) throws IOException
+    {
+        Check.equal("400 Invalid type: E", get(server, "/quote?type=E&pick=1/7/2024&return=3/7/2024"), "invalid type");
+        Check.equal("400 Invalid date: 31/2/2024", get(server, "/quote?type=A&pick=31/2/2024&return=3/7/2024"),
+                    "invalid date");
+        Check.equal("400 Missing parameter: date", get(server, "/quote?type=A&pick=1/7/2024"), "missing date");
+        Check.equal("400 Invalid gear: manually",
+                    get(server, "/upgrade?type=A&brand=Kia&gear=manually&newType=B&newBrand=Kia&newGear=auto"
+                                + "&pick=1/7/2024&return=3/7/2024"), "invalid gear");
+    }
+
+    private static void answersFailures(QuoteServer server) throws IOException
+    {
+        Rent.setPricingEngine(new PricingEngine() {
+            public int getPrice(char type, int numOfRentDays) { throw new IllegalStateException("broken"); }
+            public int getPrice(char type, int pickDay, int returnDay) { throw new IllegalStateException("broken"); }
+        });
+        for (int i = 0; i < 3; i++) // the failed exchanges must be closed, so later requests are answered too
+            Check.equal("500 Internal error", get(server, "/quote?type=A&pick=1/7/2024&return=3/7/2024"),
+                        "a failure is answered with 500");
+    }
+
+    /**
+     * Returns the status and the answer of a request, separated by a space
+     */
+    private static String get(QuoteServer server, String path) throws IOException
+    {
+        HttpURLConnection connection =
+            (HttpURLConnection)new URL("http://localhost:" + server.getPort() + path).openConnection();
+        connection.setConnectTimeout(5000);
+        connection.setReadTimeout(5000);
+        try
+        {
+            int status = connection.getResponseCode();
+            try (InputStream in = (status < 400) ? connection.getInputStream() : connection.getErrorStream())
+            {
+                return status + " " + new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            }
+        }
+        finally
+        {
+            connection.disconnect();
+        }
+    }
+}
@@ -0,0 +1,144 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Tests of RentalAggregates: random changes of rentals, with the pricing engine changing
+ * between them, must keep the totals equal to the sum of the prices each live rental was
+ * counted with, and removing every rental must bring the totals back to zero.
+ * @author (agent)
+ * @version (18/10/2026)
+ */
+public class RentalAggregatesTest
+{
+    private static final String[] _BRANDS = {"Mazda", "Kia", "Toyota"};
+    private static final int _FIRST_DAY = Date.toEpochDay(1, 1, 2024);
+
+    /**
+     * Runs the tests
+     * @param args Not used
+     */
+    public static void main(String[] args)
+    {
+        PricingEngine engine = Rent.getPricingEngine();
+        try
+        {
+            keepsTotalsWhenPricesChange();
+        }
+        finally
+        {
+            Rent.setPricingEngine(engine);
+        }
+        Check.done("RentalAggregatesTest");
+    }
+
+    private static void keepsTotalsWhenPricesChange()
+    {
+        Random random = new Random(1);
+        RentalAggregates aggregates = new RentalAggregates();
+        HashMap<Long, Rent> rents = new HashMap<Long, Rent>();
+        HashMap<Long, Integer> prices = new HashMap<Long, Integer>(); // price when added or last changed
+        long nextId = 1;
+        for (int i = 0; i < 5000; i++)
+        {
+            ArrayList<Long> ids = new ArrayList<Long>(rents.keySet());
+            int kind = ids.isEmpty() ? 0 : random.nextInt(5);
+            if (kind == 0)
+            {
+                Rent rent = randomRent(random);
+                rents.put(nextId, rent);
+                prices.put(nextId, rent.getPrice());
+                aggregates.created(nextId++, rent);
+                continue;
+            }
+            if (kind == 1)
+            {
+                // the prices change while the rentals are counted
+                TablePricingEngine engine = new TablePricingEngine();
+                engine.setWeekendPercentage(80 + random.nextInt(60));
+                engine.setMonthPercentage(1 + random.nextInt(12), 80 + random.nextInt(60));
+                Rent.setPricingEngine(engine);
+                continue;
+            }
+
+            long id = ids.get(random.nextInt(ids.size()));
+            Rent before = rents.get(id);
+            Rent after = new Rent(before);
+            if (kind == 2)
+            {
+                after.setReturnDate(date(before.getPickDate().toEpochDay() - _FIRST_DAY + 1 + random.nextInt(20)));
+                aggregates.changed(id, before, after);
+            }
+            else if (kind == 3)
+            {
+                int cost = after.upgrade(randomCar(random));
+                aggregates.upgraded(id, before, after, cost);
+            }
+            else
+            {
+                aggregates.removed(id, before);
+                rents.remove(id);
+                prices.remove(id);
+                continue;
+            }
+            rents.put(id, after);
+            prices.put(id, after.getPrice());
+            checkTotals(aggregates, rents, prices, "after change " + i);
+        }
+
+        for (Map.Entry<Long, Rent> entry : rents.entrySet())
+            aggregates.removed(entry.getKey(), entry.getValue());
+        RentalAggregates.Totals totals = aggregates.totals();
+        Check.equal(0, totals.getCount(), "no rentals are left");
+        Check.equal(0, totals.getRevenue(), "no revenue is left after every rental is removed");
+        Check.equal(0, totals.getDays(), "no rent days are left");
+        for (char type = 'A'; type <= 'D'; type++)
+            Check.equal(0, aggregates.totalsOfType(type).getRevenue(), "no revenue is left for type " + type);
+        for (String brand : _BRANDS)
+            Check.equal(0, aggregates.totalsOfBrand(brand).getRevenue(), "no revenue is left for " + brand);
+    }
+
+    /**
+     * Checks the totals of all the rentals and of each type against the counted prices
+     */
+    private static void checkTotals(RentalAggregates aggregates, HashMap<Long, Rent> rents,
+                                    HashMap<Long, Integer> prices, String state)
+    {
+        long revenue = 0;
+        long days = 0;
+        long[] revenueByType = new long[4];
+        for (Map.Entry<Long, Rent> entry : rents.entrySet())
+        {
+            int price = prices.get(entry.getKey());
+            revenue += price;
+            days += entry.getValue().howManyDays();
+            revenueByType[entry.getValue().getCar().getType() - 'A'] += price;
+        }
+
+        RentalAggregates.Totals totals = aggregates.totals();
+        Check.equal(rents.size(), totals.getCount(), state + ": number of rentals");
+        Check.equal(revenue, totals.getRevenue(), state + ": revenue");
+        Check.equal(days, totals.getDays(), state + ": rent days");
+        for (char type = 'A'; type <= 'D'; type++)
+            Check.equal(revenueByType[type - 'A'], aggregates.totalsOfType(type).getRevenue(),
+                        state + ": revenue of type " + type);
+    }
+
+    private static Rent randomRent(Random random)
+    {
+        int pick = random.nextInt(365);
+        return new Rent("Rama", randomCar(random), date(pick), date(pick + 1 + random.nextInt(20)));
+    }
+
+    private static Car randomCar(Random random)
+    {
+        return new Car(1000000 + random.nextInt(9000000), (char)('A' + random.nextInt(4)),
+                       _BRANDS[random.nextInt(_BRANDS.length)], random.nextBoolean());
+    }
+
+    private static Date date(int day)
+    {
+        return Date.fromEpochDay(_FIRST_DAY + day);
+    }
+}
@@ -0,0 +1,240 @@
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Tests of RentalImporter: CSV and NDJSON files must be read back as the rentals written to them,
+ * across block boundaries and with more brands than are cached, and quoted fields, escapes,
+ * invalid lines and lines too long for the buffer must be handled line by line.
+ * @author (agent)
+ * @version (18/10/2026)
+ */
+public class RentalImporterTest
+{
+    private static final String[] _NAMES = {"Rama", "Cohen, Dan", "Noa \"Nono\"", "שמעון", "Zoë 😀"};
+
+    /**
+     * Runs the tests
+     * @param args Not used
+     * @throws IOException Never, the files are read from memory
+     */
+    public static void main(String[] args) throws IOException
+    {
+        readsBackRentals(RentalImporter.CSV);
+        readsBackRentals(RentalImporter.NDJSON);
+        readsQuotedFields();
+        readsJsonFields();
+        rejectsInvalidCsvLines();
+        rejectsInvalidJsonLines();
+        skipsLongLines();
+        Check.done("RentalImporterTest");
+    }
+
+    private static void readsBackRentals(int format) throws IOException
+    {
+        Random random = new Random(format);
+        ArrayList<Rent> rents = new ArrayList<Rent>();
+        StringBuilder file = new StringBuilder();
+        for (int i = 0; i < 30000; i++) // several blocks of the buffer
+        {
+            // more brands than the importer caches
+            Car car = new Car(1000000 + random.nextInt(9000000), (char)('A' + random.nextInt(4)),
+                              "Brand" + random.nextInt(2000), random.nextBoolean());
+            int pick = Date.toEpochDay(1, 1, 2000) + random.nextInt(36500);
+            Rent rent = new Rent(_NAMES[random.nextInt(_NAMES.length)], car, Date.fromEpochDay(pick),
+                                 Date.fromEpochDay(pick + 1 + random.nextInt(30)));
+            rents.add(rent);
+            file.append((format == RentalImporter.CSV) ? csv(rent) : json(rent)).append(i % 3 == 0 ? "\r\n" : "\n");
+        }
+
+        Result result = importText(new RentalImporter(format, 1000, false), file.toString());
+        String name = (format == RentalImporter.CSV) ? "CSV" : "NDJSON";
+        Check.equal(rents.size(), result._rents.size(), name + ": number of rentals");
+        Check.equal(0, result._reasons.size(), name + ": no line is rejected");
+        for (int i = 0; i < rents.size() && i < result._rents.size(); i++)
+            Check.equal(rents.get(i), result._rents.get(i), name + ": rental " + i);
+        for (int size : result._batchSizes)
+            Check.isTrue(size <= 1000, name + ": batches are not larger than the batch size");
+    }
+
+    private static void readsQuotedFields() throws IOException
+    {
+        String file = "name,id,type,brand,gear,pick,return\n"
+                      + "\"Cohen, Dan\",1234567,B,Mazda,manual,30/10/2022,12/11/2022\n"
+                      + "\"Noa \"\"Nono\"\"\",1234567,C,\"Land Rover\",auto,1/1/2023,3/1/2023\n"
+                      + "\"\"\"\",1234567,D,\"\",auto,1/1/2023,3/1/2023"; // no line break at the end
+        Result result = importText(new RentalImporter(10, true), file);
+
+        Check.equal(3, result._rents.size(), "quoted lines are accepted");
+        Check.equal(0, result._reasons.size(), "no quoted line is rejected");
+        Check.equal("Cohen, Dan", result._rents.get(0).getName(), "a comma inside quotes");
+        Check.equal("Noa \"Nono\"", result._rents.get(1).getName(), "doubled quotes");
+        Check.equal("Land Rover", result._rents.get(1).getCar().getBrand(), "a quoted brand");
+        Check.equal("\"", result._rents.get(2).getName(), "a name of a single quote");
+        Check.equal("", result._rents.get(2).getCar().getBrand(), "an empty quoted brand");
+    }
+
+    private static void readsJsonFields() throws IOException
+    {
+        String file = "{\"return\":\"12/11/2022\", \"pick\":\"30/10/2022\", \"gear\":\"manual\", \"brand\":\"Mazda\","
+                      + " \"type\":\"B\", \"id\":1234567, \"name\":\"Rama\"}\n"
+                      + "  { \"name\" : \"No\\u00e9 \\\"N\\\"\\/\\\\\" , \"id\" : 7654321 , \"type\" : \"A\" ,"
+                      + " \"brand\" : \"\\u0160koda\" , \"gear\" : \"auto\" , \"pick\" : \"1/1/2023\" ,"
+                      + " \"return\" : \"3/1/2023\" , \"note\" : \"vip\" , \"score\" : -1.5e3 , \"paid\" : true ,"
+                      + " \"coupon\" : null }  \n";
+        Result result = importText(new RentalImporter(RentalImporter.NDJSON, 10, false), file);
+
+        Check.equal(2, result._rents.size(), "JSON objects are accepted");
+        Check.equal(0, result._reasons.size(), "no JSON object is rejected");
+        Check.equal(new Rent("Rama", new Car(1234567, 'B', "Mazda", true), new Date(30, 10, 2022),
+                             new Date(12, 11, 2022)), result._rents.get(0), "fields in any order");
+        Check.equal(new Rent("Noé \"N\"/\\", new Car(7654321, 'A', "Škoda", false), new Date(1, 1, 2023),
+                             new Date(3, 1, 2023)), result._rents.get(1), "escapes, spaces and other fields");
+    }
+
+    private static void rejectsInvalidCsvLines() throws IOException
+    {
+        String[][] lines = {
+            {",1234567,B,Mazda,manual,30/10/2022,12/11/2022", "missing name"},
+            {"\"Rama,1234567,B,Mazda,manual,30/10/2022,12/11/2022", "invalid name"},
+            {"\"Rama\"x,1234567,B,Mazda,manual,30/10/2022,12/11/2022", "invalid name"},
+            {"Rama", "invalid id"},
+            {"Rama,123456,B,Mazda,manual,30/10/2022,12/11/2022", "invalid id"},
+            {"Rama,12345678,B,Mazda,manual,30/10/2022,12/11/2022", "invalid id"},
+            {"Rama,12a4567,B,Mazda,manual,30/10/2022,12/11/2022", "invalid id"},
+            {"Rama,1234567,E,Mazda,manual,30/10/2022,12/11/2022", "invalid type"},
+            {"Rama,1234567,BB,Mazda,manual,30/10/2022,12/11/2022", "invalid type"},
+            {"Rama,1234567,B,\"Mazda,manual,30/10/2022,12/11/2022", "invalid brand"},
+            {"Rama,1234567,B,Mazda", "missing brand"},
+            {"Rama,1234567,B,Mazda,Manual,30/10/2022,12/11/2022", "invalid gear"},
+            {"Rama,1234567,B,Mazda,manual", "missing pickup date"},
+            {"Rama,1234567,B,Mazda,manual,31/2/2022,12/11/2022", "invalid pickup date"},
+            {"Rama,1234567,B,Mazda,manual,30/10/2022", "invalid pickup date"},
+            {"Rama,1234567,B,Mazda,manual,30/10/2022,12/13/2022", "invalid return date"},
+            {"Rama,1234567,B,Mazda,manual,30/10/2022,12/11/2022,x", "invalid return date"},
+            {"Rama,1234567,B,Mazda,manual,30/10/2022,30/10/2022", "return date is not after pickup date"}};
+        checkRejected(RentalImporter.CSV, lines, "Rama,1234567,B,Mazda,manual,30/10/2022,12/11/2022");
+    }
+
+    private static void rejectsInvalidJsonLines() throws IOException
+    {
+        String valid = "\"id\":1234567,\"type\":\"B\",\"brand\":\"Mazda\",\"gear\":\"manual\","
+                       + "\"pick\":\"30/10/2022\",\"return\":\"12/11/2022\"";
+        String[][] lines = {
+            {"Rama,1234567,B,Mazda,manual,30/10/2022,12/11/2022", "not a JSON object"},
+            {"{\"name\":\"Rama\"," + valid, "not a JSON object"},
+            {"{\"name\":\"Rama\"," + valid + "}}", "text after the JSON object"},
+            {"{" + valid + "}", "missing name"},
+            {"{\"name\":\"\"," + valid + "}", "missing name"},
+            {"{\"name\":\"Rama\",\"name\":\"Dan\"," + valid + "}", "invalid name"},
+            {"{\"name\":\"Ra\\qma\"," + valid + "}", "invalid name"},
+            {"{\"name\":\"Ra\\u00gama\"," + valid + "}", "invalid name"},
+            {"{\"name\":7," + valid + "}", "invalid name"},
+            {"{\"name\":\"Rama\",\"id\":\"1234567\"," + valid.substring(13) + "}", "invalid id"},
+            {"{\"name\":\"Rama\",\"type\":\"B\"}", "invalid id"},
+            {"{\"name\":\"Rama\",\"type\":\"E\"," + valid + "}", "invalid type"},
+            {"{\"name\":\"Rama\",\"pick\":\"1/1/2023\"," + valid + "}", "invalid pickup date"},
+            {"{\"name\":\"Rama\",\"extra\":{\"a\":1}," + valid + "}", "unsupported value"},
+            {"{\"name\":\"Rama\",\"extra\":[1]," + valid + "}", "unsupported value"},
+            {"{\"na\\u006de\":\"Rama\"," + valid + "}", "invalid field name"},
+            {"{\"name\":\"Rama\"," + valid.replace("12/11/2022", "30/10/2022") + "}",
+             "return date is not after pickup date"}};
+        checkRejected(RentalImporter.NDJSON, lines, "{\"name\":\"Rama\"," + valid + "}");
+    }
+
+    /**
+     * Imports each invalid line between two valid lines, and checks its line number and reason
+     */
+    private static void checkRejected(int format, String[][] lines, String valid) throws IOException
+    {
+        StringBuilder file = new StringBuilder(valid).append('\n');
+        for (String[] line : lines)
+            file.append(line[0]).append('\n').append(valid).append('\n');
+        Result result = importText(new RentalImporter(format, 7, false), file.toString());
+
+        Check.equal(lines.length + 1, result._rents.size(), "the valid lines between the invalid ones are accepted");
+        Check.equal(lines.length, result._reasons.size(), "every invalid line is rejected");
+        for (int i = 0; i < lines.length && i < result._reasons.size(); i++)
+        {
+            Check.equal(lines[i][1], result._reasons.get(i), "reason of " + lines[i][0]);
+            Check.equal(lines[i][0], result._lines.get(i), "content of rejected line " + i);
+            Check.equal(2L * i + 2, (long)result._lineNumbers.get(i), "number of rejected line " + i);
+        }
+    }
+
+    private static void skipsLongLines() throws IOException
+    {
+        String valid = "Rama,1234567,B,Mazda,manual,30/10/2022,12/11/2022";
+        char[] longName = new char[200000]; // longer than the buffer of the importer
+        Arrays.fill(longName, 'x');
+        String file = valid + "\n" + new String(longName) + valid.substring(4) + "\n" + valid + "\n"
+                      + new String(longName); // a long last line without a line break
+        Result result = importText(new RentalImporter(10, false), file);
+
+        Check.equal(2, result._rents.size(), "the lines around a long line are accepted");
+        Check.equal(2, result._reasons.size(), "long lines are rejected");
+        Check.equal("line too long", result._reasons.get(0), "reason of a long line");
+        Check.equal(2, (long)result._lineNumbers.get(0), "number of the long line");
+        Check.equal(4, (long)result._lineNumbers.get(1), "number of the long last line");
+        Check.equal(new Rent("Rama", new Car(1234567, 'B', "Mazda", true), new Date(30, 10, 2022),
+                             new Date(12, 11, 2022)), result._rents.get(1), "the line after a long line");
+    }
+
+    private static String csv(Rent rent)
+    {
+        Car car = rent.getCar();
+        String name = rent.getName();
+        if (name.indexOf(',') >= 0 || name.indexOf('"') >= 0)
+            name = "\"" + name.replace("\"", "\"\"") + "\"";
+        return name + "," + car.getId() + "," + car.getType() + "," + car.getBrand() + ","
+               + (car.isManual() ? "manual" : "auto") + "," + rent.getPickDate() + "," + rent.getReturnDate();
+    }
+
+    private static String json(Rent rent)
+    {
+        Car car = rent.getCar();
+        return "{\"name\":\"" + rent.getName().replace("\"", "\\\"") + "\",\"id\":" + car.getId()
+               + ",\"type\":\"" + car.getType() + "\",\"brand\":\"" + car.getBrand() + "\",\"gear\":\""
+               + (car.isManual() ? "manual" : "auto") + "\",\"pick\":\"" + rent.getPickDate()
+               + "\",\"return\":\"" + rent.getReturnDate() + "\"}";
+    }
+
+    private static Result importText(RentalImporter importer, String text) throws IOException
+    {
+        Result result = new Result();
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        importer.importFrom(Channels.newChannel(new ByteArrayInputStream(bytes)), result);
+        Check.equal(result._rents.size(), importer.getAccepted(), "number of accepted rentals");
+        Check.equal(result._reasons.size(), importer.getRejected(), "number of rejected lines");
+        return result;
+    }
+
+    /**
+     * Keeps everything an import hands over
+     */
+    private static class Result implements RentalImporter.Listener
+    {
+        private ArrayList<Rent> _rents = new ArrayList<Rent>();
+        private ArrayList<Integer> _batchSizes = new ArrayList<Integer>();
+        private ArrayList<Long> _lineNumbers = new ArrayList<Long>();
+        private ArrayList<String> _lines = new ArrayList<String>();
+        private ArrayList<String> _reasons = new ArrayList<String>();
+
+        public void accept(ArrayList<Rent> batch)
+        {
+            _rents.addAll(batch);
+            _batchSizes.add(batch.size());
+        }
+
+        public void reject(long lineNumber, String line, String reason)
+        {
+            _lineNumbers.add(lineNumber);
+            _lines.add(line);
+            _reasons.add(reason);
+        }
+    }
+}
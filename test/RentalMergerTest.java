@@ -0,0 +1,143 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Tests of RentalMerger: rentals that share a single day or lie inside another must be merged,
+ * rentals a day apart must not, and random rentals must give the result of calling Rent.overlap
+ * again and again until no two rentals overlap.
+ * @author (agent)
+ * @version (18/10/2026)
+ */
+public class RentalMergerTest
+{
+    private static final String[] _NAMES = {"Rama", "Dan", "Noa"};
+    private static final String[] _BRANDS = {"Mazda", "Kia"};
+    private static final int _FIRST_DAY = Date.toEpochDay(1, 1, 2024);
+
+    /**
+     * Runs the tests
+     * @param args Not used
+     */
+    public static void main(String[] args)
+    {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try
+        {
+            mergesTouchingRuns(new RentalMerger(pool));
+            matchesRepeatedOverlap(new RentalMerger(pool));
+        }
+        finally
+        {
+            pool.shutdown();
+        }
+        Check.done("RentalMergerTest");
+    }
+
+    private static void mergesTouchingRuns(RentalMerger merger)
+    {
+        Car car = new Car(1234567, 'B', "Kia", true);
+        Car sameClass = new Car(7654321, 'B', "Kia", true); // another car of the same class
+        ArrayList<Rent> rents = new ArrayList<Rent>();
+        rents.add(rent("Rama", car, 10, 13));
+        rents.add(rent("Rama", sameClass, 13, 15)); // shares the return day of the first
+        rents.add(rent("Rama", car, 11, 12)); // inside the first
+        rents.add(rent("Rama", car, 16, 18)); // a day after the run, not merged
+        rents.add(rent("Rama", car, 17, 17)); // a return day before the pickup day becomes the day after
+        rents.add(rent("Dan", car, 12, 20)); // another customer
+        rents.add(rent("Rama", new Car(1234567, 'B', "Kia", false), 12, 20)); // another class
+        ArrayList<Rent> merged = merger.merge(rents);
+
+        ArrayList<Rent> expected = new ArrayList<Rent>();
+        expected.add(rent("Rama", car, 10, 15));
+        expected.add(rent("Rama", car, 16, 18));
+        expected.add(rent("Dan", car, 12, 20));
+        expected.add(rent("Rama", new Car(1234567, 'B', "Kia", false), 12, 20));
+        checkSame(expected, merged, "touching and inclusive runs");
+
+        for (Rent rent : merged)
+            if (rent.getName().equals("Rama") && rent.getPickDate().equals(date(10)))
+                Check.equal(1234567, rent.getCar().getId(), "a merged rental gets the car picked up first");
+        Check.equal(0, merger.merge(new ArrayList<Rent>()).size(), "no rentals to merge");
+    }
+
+    private static void matchesRepeatedOverlap(RentalMerger merger)
+    {
+        Random random = new Random(1);
+        ArrayList<Rent> rents = new ArrayList<Rent>();
+        for (int i = 0; i < 3000; i++) // more groups than a single task merges
+        {
+            Car car = new Car(1000000 + random.nextInt(9000000), (char)('A' + random.nextInt(4)),
+                              _BRANDS[random.nextInt(_BRANDS.length)], random.nextBoolean());
+            int pick = random.nextInt(60);
+            rents.add(rent(_NAMES[random.nextInt(_NAMES.length)] + random.nextInt(40), car, pick,
+                           pick + 1 + random.nextInt(5)));
+        }
+
+        checkSame(mergeByOverlap(rents), merger.merge(rents), "random rentals");
+        Check.equal(3000, rents.size(), "the rentals are not changed");
+    }
+
+    /**
+     * Merges rentals with Rent.overlap until no two of them overlap
+     */
+    private static ArrayList<Rent> mergeByOverlap(ArrayList<Rent> rents)
+    {
+        ArrayList<Rent> result = new ArrayList<Rent>(rents);
+        boolean merged = true;
+        while (merged) // a merged rental may overlap a rental checked before, so pass again
+        {
+            merged = false;
+            for (int i = 0; i < result.size(); i++)
+                for (int j = i + 1; j < result.size(); j++)
+                {
+                    Rent unified = result.get(i).overlap(result.get(j));
+                    if (unified != null)
+                    {
+                        result.set(i, unified);
+                        result.remove(j--);
+                        merged = true;
+                    }
+                }
+        }
+        return result;
+    }
+
+    /**
+     * Checks that two lists hold equal rentals, in any order
+     */
+    private static void checkSame(ArrayList<Rent> expected, ArrayList<Rent> actual, String state)
+    {
+        Comparator<Rent> order = new Comparator<Rent>() {
+            public int compare(Rent first, Rent second)
+            {
+                return key(first).compareTo(key(second));
+            } };
+        expected = new ArrayList<Rent>(expected);
+        actual = new ArrayList<Rent>(actual);
+        Collections.sort(expected, order);
+        Collections.sort(actual, order);
+
+        Check.equal(expected.size(), actual.size(), state + ": number of rentals");
+        for (int i = 0; i < expected.size() && i < actual.size(); i++)
+            Check.equal(expected.get(i), actual.get(i), state + ": rental " + i);
+    }
+
+    private static String key(Rent rent)
+    {
+        return rent.getName() + "," + rent.getCar().getBrand() + "," + rent.getCar().isManual() + ","
+               + rent.getCar().getType() + "," + rent.getPickDate().toEpochDay();
+    }
+
+    private static Rent rent(String name, Car car, int pick, int ret)
+    {
+        return new Rent(name, car, date(pick), date(ret));
+    }
+
+    private static Date date(int day)
+    {
+        return Date.fromEpochDay(_FIRST_DAY + day);
+    }
+}
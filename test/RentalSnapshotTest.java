@@ -0,0 +1,163 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Tests of RentalSnapshot: rentals written to a snapshot must be read back unchanged,
+ * files that are not whole snapshots must be rejected, and so must records whose brand or
+ * name index is out of its dictionary.
+ * @author (agent)
+ * @version (18/10/2026)
+ */
+public class RentalSnapshotTest
+{
+    private static final String[] _NAMES = {"Rama", "Dan", "Noa", "Yossi", "שמעון", "Zoë 😀", null};
+    private static final String[] _BRANDS = {"Mazda", "Kia", "Škoda", "Toyota"};
+
+    /**
+     * Runs the tests
+     * @param args Not used
+     * @throws IOException If the temporary files could not be used
+     */
+    public static void main(String[] args) throws IOException
+    {
+        Path folder = Files.createTempDirectory("snapshot-test");
+        try
+        {
+            readsBackRentals(folder);
+            replacesFile(folder);
+            rejectsBrokenFiles(folder);
+            rejectsBrokenRecords(folder);
+        }
+        finally
+        {
+            for (Path file : Files.newDirectoryStream(folder))
+                Files.delete(file);
+            Files.delete(folder);
+        }
+        Check.done("RentalSnapshotTest");
+    }
+
+    private static void readsBackRentals(Path folder) throws IOException
+    {
+        ArrayList<Rent> rents = randomRents(10000, 1); // more than one chunk of records
+        Path file = folder.resolve("rents.snapshot");
+        RentalSnapshot.write(file, rents);
+
+        RentalSnapshot snapshot = new RentalSnapshot(file);
+        Check.equal(rents.size(), snapshot.size(), "number of rentals");
+        for (int i = 0; i < rents.size(); i++)
+        {
+            Rent rent = rents.get(i);
+            Check.equal(rent, snapshot.get(i), "rental " + i);
+            Check.equal(rent.getCar().getId(), snapshot.getCarId(i), "car id of rental " + i);
+            Check.equal(rent.getCar().getType(), snapshot.getType(i), "type of rental " + i);
+            Check.equal(rent.getName(), snapshot.getName(i), "name of rental " + i);
+            Check.equal(rent.getPickDate().toEpochDay(), snapshot.getPickDay(i), "pickup day of rental " + i);
+            Check.equal(rent.getReturnDate().toEpochDay(), snapshot.getReturnDay(i), "return day of rental " + i);
+        }
+
+        RentalSnapshot.write(file, new ArrayList<Rent>());
+        Check.equal(0, new RentalSnapshot(file).size(), "an empty snapshot has no rentals");
+    }
+
+    private static void replacesFile(Path folder) throws IOException
+    {
+        Path file = folder.resolve("replaced.snapshot");
+        RentalSnapshot.write(file, randomRents(100, 2));
+        ArrayList<Rent> rents = randomRents(50, 3);
+        RentalSnapshot.write(file, rents);
+
+        RentalSnapshot snapshot = new RentalSnapshot(file);
+        Check.equal(50, snapshot.size(), "the new snapshot replaces the old one");
+        Check.equal(rents.get(49), snapshot.get(49), "last rental of the new snapshot");
+        Check.isTrue(!Files.exists(folder.resolve("replaced.snapshot.tmp")), "no temporary file is left");
+    }
+
+    private static void rejectsBrokenFiles(Path folder) throws IOException
+    {
+        Path file = folder.resolve("broken.snapshot");
+        RentalSnapshot.write(file, randomRents(10, 4));
+        byte[] bytes = Files.readAllBytes(file);
+
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 1));
+        Check.isTrue(fails(file), "a truncated file is rejected");
+
+        byte[] corrupted = bytes.clone();
+        ByteBuffer.wrap(corrupted).order(ByteOrder.LITTLE_ENDIAN).putInt(12, Integer.MAX_VALUE); // number of brands
+        Files.write(file, corrupted);
+        Check.isTrue(fails(file), "a corrupted header is rejected");
+
+        Files.write(file, "Name:Rama".getBytes("UTF-8"));
+        Check.isTrue(fails(file), "a file that is not a snapshot is rejected");
+    }
+
+    private static void rejectsBrokenRecords(Path folder) throws IOException
+    {
+        Path file = folder.resolve("records.snapshot");
+        ArrayList<Rent> rents = randomRents(10, 5);
+        RentalSnapshot.write(file, rents);
+        byte[] bytes = Files.readAllBytes(file);
+        int recordsStart = bytes.length - 10 * 24;
+        ByteBuffer records = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        records.putInt(recordsStart + 8, 1000); // brand index of record 0
+        records.putInt(recordsStart + 24 + 12, -1); // name index of record 1
+        Files.write(file, bytes);
+
+        RentalSnapshot snapshot = new RentalSnapshot(file);
+        Check.isTrue(fails(snapshot, 0, false), "a brand index out of the dictionary is rejected");
+        Check.isTrue(fails(snapshot, 1, false), "a name index out of the dictionary is rejected");
+        Check.isTrue(fails(snapshot, 1, true), "getName rejects a name index out of the dictionary");
+        Check.equal(rents.get(0).getName(), snapshot.getName(0), "the name of a record with a broken brand");
+        Check.equal(rents.get(2), snapshot.get(2), "the other records are read");
+    }
+
+    private static boolean fails(RentalSnapshot snapshot, int i, boolean nameOnly)
+    {
+        try
+        {
+            if (nameOnly)
+                snapshot.getName(i);
+            else
+                snapshot.get(i);
+            return false;
+        }
+        catch (IllegalStateException e)
+        {
+            return e.getMessage().startsWith("Snapshot record " + i + " is corrupted");
+        }
+    }
+
+    private static boolean fails(Path file)
+    {
+        try
+        {
+            new RentalSnapshot(file);
+            return false;
+        }
+        catch (IOException e)
+        {
+            return true;
+        }
+    }
+
+    private static ArrayList<Rent> randomRents(int size, long seed)
+    {
+        Random random = new Random(seed);
+        ArrayList<Rent> rents = new ArrayList<Rent>();
+        for (int i = 0; i < size; i++)
+        {
+            Car car = new Car(1000000 + random.nextInt(9000000), (char)('A' + random.nextInt(4)),
+                              _BRANDS[random.nextInt(_BRANDS.length)], random.nextBoolean());
+            int pick = Date.toEpochDay(1, 1, 2000) + random.nextInt(36500);
+            rents.add(new Rent(_NAMES[random.nextInt(_NAMES.length)], car, Date.fromEpochDay(pick),
+                               Date.fromEpochDay(pick + 1 + random.nextInt(30))));
+        }
+        return rents;
+    }
+}
@@ -0,0 +1,119 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Random;
+
+/**
+ * Tests of ReservationIndex: adds random rentals and compares every result to a plain list
+ * of the stored rentals that is searched with Rent.overlap.
+ * @author (agent)
+ * @version (18/10/2026)
+ */
+public class ReservationIndexTest
+{
+    private static final String[] _NAMES = {"Rama", "Dan", "Noa"};
+    private static final Car[] _CARS = {new Car(1234567, 'A', "Mazda", true), new Car(2345678, 'B', "Kia", false),
+                                        new Car(3456789, 'B', "Kia", true)};
+    private static final int _FIRST_DAY = Date.toEpochDay(1, 1, 2024);
+
+    /**
+     * Runs the tests
+     * @param args Not used
+     */
+    public static void main(String[] args)
+    {
+        mergesOverlappingRentals();
+        keepsGroupsApart();
+        matchesPairwiseOverlap();
+        Check.done("ReservationIndexTest");
+    }
+
+    private static void mergesOverlappingRentals()
+    {
+        ReservationIndex index = new ReservationIndex();
+        index.add(rent("Rama", _CARS[0], 0, 5));
+        index.add(rent("Rama", _CARS[0], 10, 15));
+        Check.equal(2, index.size(), "separate rentals are both stored");
+
+        // touches the first rental on its return day and the second on its pickup day
+        Rent stored = index.add(rent("Rama", _CARS[0], 5, 10));
+        Check.equal(rent("Rama", _CARS[0], 0, 15), stored, "the unified rental spans all three");
+        Check.equal(1, index.size(), "the overlapping rentals are replaced by one rental");
+        Check.equal(1, index.overlapping(rent("Rama", _CARS[0], 15, 20)).size(), "dates are inclusive");
+        Check.equal(0, index.overlapping(rent("Rama", _CARS[0], 16, 20)).size(), "a later period does not overlap");
+    }
+
+    private static void keepsGroupsApart()
+    {
+        ReservationIndex index = new ReservationIndex();
+        index.add(rent("Rama", _CARS[1], 0, 5));
+        index.add(rent("Dan", _CARS[1], 0, 5));
+        index.add(rent("Rama", _CARS[2], 0, 5)); // same type and brand, other gear
+        Check.equal(3, index.size(), "rentals of other customers or cars are not merged");
+
+        // another car of the same type, brand and gear belongs to the same group, like Car.equals
+        Car sameClass = new Car(7654321, 'B', "Kia", false);
+        Check.equal(1, index.overlapping("Rama", sameClass, date(3), date(4)).size(), "a car equal by class matches");
+    }
+
+    private static void matchesPairwiseOverlap()
+    {
+        Random random = new Random(1);
+        ReservationIndex index = new ReservationIndex();
+        ArrayList<Rent> expected = new ArrayList<Rent>();
+        for (int i = 0; i < 3000; i++)
+        {
+            Rent rent = randomRent(random);
+            Rent stored = new Rent(rent);
+            for (int j = expected.size() - 1; j >= 0; j--)
+            {
+                if (rent.overlap(expected.get(j)) != null)
+                {
+                    stored = stored.overlap(expected.get(j));
+                    expected.remove(j);
+                }
+            }
+            expected.add(stored);
+
+            Check.equal(stored, index.add(rent), "rental " + i + " is stored like Rent.overlap unifies it");
+            Check.equal(expected.size(), index.size(), "size after rental " + i);
+
+            Rent query = randomRent(random);
+            Check.equal(overlapping(expected, query), index.overlapping(query), "rentals overlapping " + query);
+        }
+    }
+
+    /**
+     * Returns the rentals of a list that overlap a rent, ordered by pickup date
+     */
+    private static ArrayList<Rent> overlapping(ArrayList<Rent> rents, Rent query)
+    {
+        ArrayList<Rent> result = new ArrayList<Rent>();
+        for (Rent rent : rents)
+            if (query.overlap(rent) != null)
+                result.add(rent);
+        Collections.sort(result, new Comparator<Rent>() {
+            public int compare(Rent a, Rent b)
+            {
+                return Integer.compare(a.getPickDate().toEpochDay(), b.getPickDate().toEpochDay());
+            } });
+        return result;
+    }
+
+    private static Rent randomRent(Random random)
+    {
+        int pick = random.nextInt(365);
+        return rent(_NAMES[random.nextInt(_NAMES.length)], _CARS[random.nextInt(_CARS.length)], pick,
+                    pick + 1 + random.nextInt(10));
+    }
+
+    private static Rent rent(String name, Car car, int pick, int ret)
+    {
+        return new Rent(name, car, date(pick), date(ret));
+    }
+
+    private static Date date(int day)
+    {
+        return Date.fromEpochDay(_FIRST_DAY + day);
+    }
+}
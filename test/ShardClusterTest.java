@@ -0,0 +1,178 @@
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Random;
+
+/**
+ * Tests of ShardCluster: bookings and customer rentals must stay the same, each on the node
+ * that owns it, while the cluster grows, shrinks, or fails in the middle of rebalancing.
+ * @author (agent)
+ * @version (18/10/2026)
+ */
+public class ShardClusterTest
+{
+    private static final String[] _NAMES = {"Rama", "Dan", "Noa", "Yossi", "Michal", "Avi"};
+    private static final int _NUM_OF_CARS = 60;
+    private static final int _FIRST_DAY = Date.toEpochDay(1, 1, 2024);
+
+    /**
+     * A loopback transport whose imports to one node fail while it is armed
+     */
+    private static class FailingTransport implements ShardCluster.Transport
+    {
+        private final LoopbackTransport _nodes;
+        private int _failingNode;
+        private boolean _armed;
+
+        private FailingTransport(LoopbackTransport nodes)
+        {
+            _nodes = nodes;
+        }
+
+        public byte[] send(int node, byte[] request) throws IOException
+        {
+            if (_armed && node == _failingNode && request[0] == ShardNode.IMPORT)
+                throw new IOException("Node " + node + " is down");
+            return _nodes.send(node, request);
+        }
+    }
+
+    /**
+     * Runs the tests
+     * @param args Not used
+     * @throws IOException If a node failed unexpectedly
+     */
+    public static void main(String[] args) throws IOException
+    {
+        LoopbackTransport nodes = new LoopbackTransport(3);
+        FailingTransport transport = new FailingTransport(nodes);
+        try (ShardCluster cluster = new ShardCluster(transport, 3))
+        {
+            ArrayList<Rent> booked = bookRandomRentals(cluster, new Random(1), 1500);
+            checkCluster(cluster, nodes, booked, "3 nodes");
+
+            nodes.addNode();
+            nodes.addNode();
+            cluster.rebalance(5);
+            Check.equal(5, cluster.getNumOfNodes(), "number of nodes after growing");
+            checkCluster(cluster, nodes, booked, "grown to 5 nodes");
+            booked.addAll(bookRandomRentals(cluster, new Random(2), 300));
+            checkCluster(cluster, nodes, booked, "booked on 5 nodes");
+
+            nodes.addNode();
+            transport._failingNode = 5;
+            transport._armed = true;
+            Check.isTrue(rebalanceFails(cluster, 6), "rebalancing fails when a new node fails");
+            Check.equal(5, cluster.getNumOfNodes(), "a failed rebalancing keeps the number of nodes");
+            Check.equal(0, nodes.getNode(5).size(), "a failed rebalancing leaves nothing on the new node");
+            checkCluster(cluster, nodes, booked, "after a failed growth");
+
+            transport._armed = false;
+            cluster.rebalance(6);
+            checkCluster(cluster, nodes, booked, "grown to 6 nodes on retry");
+
+            // when shrinking, the keys move to the remaining nodes, after node 0 got its part
+            transport._failingNode = 1;
+            transport._armed = true;
+            Check.isTrue(rebalanceFails(cluster, 2), "rebalancing fails when a remaining node fails");
+            Check.equal(6, cluster.getNumOfNodes(), "a failed shrinking keeps the number of nodes");
+            checkCluster(cluster, nodes, booked, "after a failed shrinking");
+
+            transport._armed = false;
+            cluster.rebalance(2);
+            for (int node = 2; node < 6; node++)
+                Check.equal(0, nodes.getNode(node).size(), "node " + node + " is empty after shrinking");
+            for (int node = 2; node < 6; node++)
+                nodes.removeNode();
+            checkCluster(cluster, nodes, booked, "shrunk to 2 nodes");
+        }
+        Check.done("ShardClusterTest");
+    }
+
+    private static ArrayList<Rent> bookRandomRentals(ShardCluster cluster, Random random, int numOfBookings)
+        throws IOException
+    {
+        ArrayList<Rent> booked = new ArrayList<Rent>();
+        for (int i = 0; i < numOfBookings; i++)
+        {
+            int pick = random.nextInt(365);
+            Rent rent = cluster.book(_NAMES[random.nextInt(_NAMES.length)], car(random.nextInt(_NUM_OF_CARS)),
+                                     date(pick), date(pick + 1 + random.nextInt(10)));
+            if (rent != null)
+                booked.add(rent);
+        }
+        return booked;
+    }
+
+    private static boolean rebalanceFails(ShardCluster cluster, int numOfNodes)
+    {
+        try
+        {
+            cluster.rebalance(numOfNodes);
+            return false;
+        }
+        catch (IOException e)
+        {
+            return true;
+        }
+    }
+
+    /**
+     * Checks that the cluster has exactly the booked rentals, once each, and finds them
+     * by car and by customer
+     */
+    private static void checkCluster(ShardCluster cluster, LoopbackTransport nodes, ArrayList<Rent> booked,
+                                     String state) throws IOException
+    {
+        int stored = 0;
+        for (int node = 0; node < nodes.getNumOfNodes(); node++)
+            stored += nodes.getNode(node).size();
+        Check.equal(booked.size(), stored, state + ": every booking is kept by a single node");
+
+        for (int i = 0; i < _NUM_OF_CARS; i++)
+        {
+            int carId = car(i).getId();
+            ArrayList<Rent> expected = new ArrayList<Rent>();
+            for (Rent rent : booked)
+                if (rent.getCar().getId() == carId)
+                    expected.add(rent);
+            Check.equal(describe(expected), describe(cluster.bookingsOf(carId)), state + ": bookings of car " + carId);
+        }
+
+        for (String name : _NAMES)
+        {
+            ArrayList<Rent> expected = new ArrayList<Rent>();
+            for (Rent rent : booked)
+                if (rent.getName().equals(name))
+                    expected.add(rent);
+            Check.equal(describe(expected), describe(cluster.rentalsOf(name)), state + ": rentals of " + name);
+        }
+
+        // a booked car stays booked after it moved
+        Rent rent = booked.get(booked.size() / 2);
+        Check.isTrue(cluster.book("Other", rent.getCar(), rent.getPickDate(), rent.getReturnDate()) == null,
+                     state + ": a booked car can not be booked again");
+    }
+
+    /**
+     * Returns the rentals with their car ids as sorted strings, to compare lists in any order
+     */
+    private static ArrayList<String> describe(ArrayList<Rent> rents)
+    {
+        ArrayList<String> result = new ArrayList<String>();
+        for (Rent rent : rents)
+            result.add(rent.getCar().getId() + " " + rent);
+        Collections.sort(result);
+        return result;
+    }
+
+    private static Car car(int i)
+    {
+        return new Car(1000000 + i * 7919, (char)('A' + i % 4), (i % 2 == 0) ? "Mazda" : "Kia", i % 3 == 0);
+    }
+
+    private static Date date(int day)
+    {
+        return Date.fromEpochDay(_FIRST_DAY + day);
+    }
+}
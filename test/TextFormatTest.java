@@ -0,0 +1,153 @@
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Tests of TextFormat and of the formatTo methods that use it: the bytes written must be the
+ * UTF-8 bytes of toString, a number that does not fit must leave the buffer unchanged, and
+ * RentalExporter must write the toString of every rental, byte for byte.
+ * @author (agent)
+ * @version (18/10/2026)
+ */
+public class TextFormatTest
+{
+    private static final String[] _NAMES = {"Rama", "שמעון", "Zoë 😀", "broken \uD83D pair", "", null};
+
+    /**
+     * Runs the tests
+     * @param args Not used
+     * @throws IOException Never, the export is written to memory
+     */
+    public static void main(String[] args) throws IOException
+    {
+        PricingEngine engine = Rent.getPricingEngine();
+        try
+        {
+            writesNumbers();
+            keepsBufferWhenFull();
+            matchesToString();
+            exportsToString();
+        }
+        finally
+        {
+            Rent.setPricingEngine(engine);
+        }
+        Check.done("TextFormatTest");
+    }
+
+    private static void writesNumbers()
+    {
+        Random random = new Random(1);
+        int[] numbers = {0, 7, -7, 10, -10, 999999, Integer.MAX_VALUE, Integer.MIN_VALUE, Integer.MIN_VALUE + 1};
+        ByteBuffer out = ByteBuffer.allocate(16);
+        for (int i = 0; i < numbers.length + 10000; i++)
+        {
+            int number = (i < numbers.length) ? numbers[i] : random.nextInt() >> random.nextInt(32);
+            out.clear();
+            TextFormat.putInt(out, number);
+            Check.equal(String.valueOf(number), new String(out.array(), 0, out.position(), StandardCharsets.UTF_8),
+                        "digits of " + number);
+        }
+    }
+
+    private static void keepsBufferWhenFull()
+    {
+        int[] numbers = {-5, -12345, Integer.MIN_VALUE, 12345};
+        for (int number : numbers)
+        {
+            int length = String.valueOf(number).length();
+            ByteBuffer out = ByteBuffer.allocate(length - 1); // room for everything but one char
+            Check.isTrue(overflows(out, number), number + " does not fit");
+            Check.equal(0, out.position(), "nothing of " + number + " is written when it does not fit");
+        }
+    }
+
+    private static boolean overflows(ByteBuffer out, int number)
+    {
+        try
+        {
+            TextFormat.putInt(out, number);
+            return false;
+        }
+        catch (BufferOverflowException e)
+        {
+            return true;
+        }
+    }
+
+    private static void matchesToString()
+    {
+        ArrayList<Rent> rents = randomRents(5000, 2);
+        ByteBuffer out = ByteBuffer.allocate(1024);
+        for (Rent rent : rents)
+        {
+            out.clear();
+            rent.formatTo(out);
+            Check.isTrue(out.position() <= rent.maxFormattedLength(), "maxFormattedLength of " + rent);
+            Check.isTrue(Arrays.equals(rent.toString().getBytes(StandardCharsets.UTF_8),
+                                       Arrays.copyOf(out.array(), out.position())), "bytes of " + rent);
+
+            out.clear();
+            rent.getCar().formatTo(out);
+            Check.isTrue(Arrays.equals(rent.getCar().toString().getBytes(StandardCharsets.UTF_8),
+                                       Arrays.copyOf(out.array(), out.position())), "bytes of " + rent.getCar());
+            out.clear();
+            rent.getPickDate().formatTo(out);
+            Check.equal(rent.getPickDate().toString(),
+                        new String(out.array(), 0, out.position(), StandardCharsets.UTF_8), "bytes of a date");
+        }
+
+        // negative prices take the sign path of putInt
+        Rent.setPricingEngine(new PricingEngine() {
+            public int getPrice(char type, int numOfRentDays) { return -100 * numOfRentDays; }
+            public int getPrice(char type, int pickDay, int returnDay) { return Integer.MIN_VALUE; }
+        });
+        Rent rent = rents.get(0);
+        out.clear();
+        rent.formatTo(out);
+        Check.isTrue(Arrays.equals(rent.toString().getBytes(StandardCharsets.UTF_8),
+                                   Arrays.copyOf(out.array(), out.position())), "bytes of a negative price");
+        Check.isTrue(out.position() <= rent.maxFormattedLength(), "maxFormattedLength of a negative price");
+    }
+
+    private static void exportsToString() throws IOException
+    {
+        ArrayList<Rent> rents = randomRents(20000, 3); // several buffers of the exporter
+        char[] longName = new char[100000]; // a line longer than the buffer of the exporter
+        Arrays.fill(longName, 'ש');
+        rents.add(new Rent(new String(longName), rents.get(0).getCar(), rents.get(0).getPickDate(),
+                           rents.get(0).getReturnDate()));
+        rents.addAll(randomRents(100, 4));
+
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        for (Rent rent : rents)
+            expected.write((rent + "\n").getBytes(StandardCharsets.UTF_8));
+        ByteArrayOutputStream exported = new ByteArrayOutputStream();
+        long count = new RentalExporter().exportTo(Channels.newChannel(exported), rents);
+
+        Check.equal(rents.size(), count, "number of exported rentals");
+        Check.isTrue(Arrays.equals(expected.toByteArray(), exported.toByteArray()),
+                     "the export is the toString of every rental");
+    }
+
+    private static ArrayList<Rent> randomRents(int size, long seed)
+    {
+        Random random = new Random(seed);
+        ArrayList<Rent> rents = new ArrayList<Rent>();
+        for (int i = 0; i < size; i++)
+        {
+            Car car = new Car(1000000 + random.nextInt(9000000), (char)('A' + random.nextInt(4)),
+                              (i % 2 == 0) ? "Škoda" : "Kia", random.nextBoolean());
+            int pick = Date.toEpochDay(1, 1, 2000) + random.nextInt(36500);
+            rents.add(new Rent(_NAMES[random.nextInt(_NAMES.length)], car, Date.fromEpochDay(pick),
+                               Date.fromEpochDay(pick + 1 + random.nextInt(400))));
+        }
+        return rents;
+    }
+}
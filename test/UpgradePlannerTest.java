@@ -0,0 +1,151 @@
+import java.util.ArrayList;
+import java.util.Random;
+
+/**
+ * Tests of UpgradePlanner: a planned car must be free for the whole rental and of the cheapest
+ * better class that has a free car, as found by checking every car day by day, through random
+ * bookings and releases that split and join the free periods (see FreeGaps).
+ * @author (agent)
+ * @version (18/10/2026)
+ */
+public class UpgradePlannerTest
+{
+    private static final int _NUM_OF_DAYS = 120;
+    private static final int _FIRST_DAY = Date.toEpochDay(1, 1, 2024);
+
+    /**
+     * Runs the tests
+     * @param args Not used
+     */
+    public static void main(String[] args)
+    {
+        findsPeriodThatEndsLast();
+        matchesDayByDayCheck();
+        Check.done("UpgradePlannerTest");
+    }
+
+    private static void findsPeriodThatEndsLast()
+    {
+        UpgradePlanner planner = new UpgradePlanner(date(0), _NUM_OF_DAYS);
+        Car early = new Car(1000001, 'C', "Kia", true);
+        Car late = new Car(1000002, 'C', "Kia", true);
+        planner.addCar(early);
+        planner.addCar(late);
+        planner.book(new Rent("Dan", early, date(6), date(_NUM_OF_DAYS - 1))); // early is free on days 0 to 5
+        planner.book(new Rent("Dan", late, date(0), date(2))); // late is free from day 3
+
+        Rent rent = new Rent("Rama", new Car(1234567, 'B', "Mazda", false), date(4), date(10));
+        UpgradePlanner.Plan plan = planner.plan(rent);
+        Check.equal(1000002, plan.getCar().getId(), "the period that starts later but ends last is found");
+        Check.equal(new Rent(rent).upgrade(late), plan.getCost(), "the cost is the cost of Rent.upgrade");
+
+        Check.isTrue(planner.plan(new Rent("Rama", rent.getCar(), date(2), date(10))) == null,
+                     "no car is free for the whole rental");
+        Check.equal(1000001, planner.plan(new Rent("Rama", rent.getCar(), date(1), date(5))).getCar().getId(),
+                    "the first car is free at the start of the horizon");
+        Check.isTrue(planner.plan(new Rent("Rama", rent.getCar(), date(_NUM_OF_DAYS - 2), date(_NUM_OF_DAYS)))
+                     == null, "a rental out of the horizon gets no car");
+
+        planner.release(early.getId(), date(6), date(20));
+        Check.equal(1000001, planner.plan(new Rent("Rama", rent.getCar(), date(2), date(10))).getCar().getId(),
+                    "released days join the free period before them");
+    }
+
+    private static void matchesDayByDayCheck()
+    {
+        Random random = new Random(1);
+        UpgradePlanner planner = new UpgradePlanner(date(0), _NUM_OF_DAYS);
+        ArrayList<Car> fleet = new ArrayList<Car>();
+        for (int i = 0; i < 40; i++)
+        {
+            Car car = new Car(1000000 + i, (char)('A' + random.nextInt(4)), "Kia", random.nextBoolean());
+            fleet.add(car);
+            planner.addCar(car);
+        }
+        boolean[][] booked = new boolean[fleet.size()][_NUM_OF_DAYS];
+
+        for (int step = 0; step < 20000; step++)
+        {
+            int index = random.nextInt(fleet.size());
+            Car car = fleet.get(index);
+            int pick = random.nextInt(_NUM_OF_DAYS + 5);
+            int ret = pick + 1 + random.nextInt(8);
+            int kind = random.nextInt(4);
+            if (kind == 0)
+            {
+                boolean free = ret < _NUM_OF_DAYS && isFree(booked[index], pick, ret);
+                Check.equal(free, planner.book(new Rent("Dan", car, date(pick), date(ret))),
+                            "booking car " + index + " from day " + pick + " to day " + ret);
+                if (free)
+                    for (int day = pick; day <= ret; day++)
+                        booked[index][day] = true;
+            }
+            else if (kind == 1)
+            {
+                planner.release(car.getId(), date(pick), date(ret));
+                for (int day = pick; day <= ret && day < _NUM_OF_DAYS; day++)
+                    booked[index][day] = false;
+            }
+            else
+                checkPlan(planner, fleet, booked, new Rent("Rama", car, date(pick), date(ret)));
+        }
+    }
+
+    /**
+     * Checks a plan against the cheapest better class that has a car free on every rental day
+     */
+    private static void checkPlan(UpgradePlanner planner, ArrayList<Car> fleet, boolean[][] booked, Rent rent)
+    {
+        int pick = rent.getPickDate().toEpochDay() - _FIRST_DAY;
+        int ret = rent.getReturnDate().toEpochDay() - _FIRST_DAY;
+        Car current = rent.getCar();
+        int bestClass = -1;
+        int bestCost = 0;
+        for (int i = 0; i < fleet.size() && ret < _NUM_OF_DAYS; i++)
+        {
+            Car car = fleet.get(i);
+            if (!car.better(current) || !isFree(booked[i], pick, ret))
+                continue;
+            int cost = new Rent(rent).upgrade(car);
+            int carClass = classOf(car);
+            if (bestClass < 0 || cost < bestCost || (cost == bestCost && carClass < bestClass))
+            {
+                bestClass = carClass;
+                bestCost = cost;
+            }
+        }
+
+        UpgradePlanner.Plan plan = planner.plan(rent);
+        String state = "plan of " + current + " from day " + pick + " to day " + ret;
+        if (bestClass < 0)
+        {
+            Check.isTrue(plan == null, state + " finds no car");
+            return;
+        }
+        Check.isTrue(plan != null, state + " finds a car");
+        if (plan == null)
+            return;
+        int index = plan.getCar().getId() - 1000000;
+        Check.isTrue(isFree(booked[index], pick, ret), state + ": the car is free");
+        Check.equal(bestClass, classOf(plan.getCar()), state + ": class of the car");
+        Check.equal(bestCost, plan.getCost(), state + ": cost");
+    }
+
+    private static boolean isFree(boolean[] booked, int pick, int ret)
+    {
+        for (int day = pick; day <= ret; day++)
+            if (day >= booked.length || booked[day])
+                return false;
+        return true;
+    }
+
+    private static int classOf(Car car)
+    {
+        return (car.getType() - 'A') * 2 + (car.isManual() ? 0 : 1);
+    }
+
+    private static Date date(int day)
+    {
+        return Date.fromEpochDay(_FIRST_DAY + day);
+    }
+}
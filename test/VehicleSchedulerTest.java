@@ -0,0 +1,167 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Random;
+
+/**
+ * Tests of VehicleScheduler: a request must get a car of its class, or else of the closest
+ * better class, a car must never be assigned to two rentals on the same day, and without
+ * upgrades the number of cars used must be the largest number of rentals on a single day.
+ * @author (agent)
+ * @version (18/10/2026)
+ */
+public class VehicleSchedulerTest
+{
+    private static final String[] _BRANDS = {"Mazda", "Kia", null};
+    private static final int _FIRST_DAY = Date.toEpochDay(1, 1, 2024);
+
+    /**
+     * Runs the tests
+     * @param args Not used
+     */
+    public static void main(String[] args)
+    {
+        upgradesToClosestClass();
+        keepsReturnDay();
+        acceptsCarsWithoutBrand();
+        usesFewestCars();
+        neverDoubleBooks();
+        Check.done("VehicleSchedulerTest");
+    }
+
+    private static void upgradesToClosestClass()
+    {
+        ArrayList<Car> fleet = new ArrayList<Car>();
+        fleet.add(new Car(1000001, 'D', "Kia", false));
+        fleet.add(new Car(1000002, 'B', "Kia", false)); // the closest class that is better than B manual
+        fleet.add(new Car(1000003, 'C', "Kia", true));
+        fleet.add(new Car(1000004, 'A', "Kia", false)); // worse, never an upgrade of B
+        VehicleScheduler scheduler = new VehicleScheduler(fleet);
+
+        ArrayList<Rent> requests = new ArrayList<Rent>();
+        for (int i = 0; i < 4; i++)
+            requests.add(rent('B', "Kia", true, 0, 3));
+        ArrayList<Rent> result = scheduler.assign(requests);
+
+        Check.equal(1000002, result.get(0).getCar().getId(), "the first upgrade is to B auto");
+        Check.equal(1000003, result.get(1).getCar().getId(), "then to C manual");
+        Check.equal(1000001, result.get(2).getCar().getId(), "then to D auto");
+        Check.isTrue(result.get(3) == null, "the worse class is never used");
+        Check.equal(3, scheduler.getUpgrades(), "number of upgrades");
+        Check.equal(3, scheduler.getCarsUsed(), "number of cars used");
+
+        Rent missing = new VehicleScheduler(fleet).assign(single(rent('A', "Mazda", true, 0, 3))).get(0);
+        Check.equal(1000004, missing.getCar().getId(), "a class missing from the fleet is upgraded");
+        Check.isTrue(new VehicleScheduler(fleet).assign(single(rent('D', "Mazda", false, 0, 3))).get(0) == null,
+                     "no class is better than D auto");
+    }
+
+    private static void keepsReturnDay()
+    {
+        ArrayList<Car> fleet = new ArrayList<Car>();
+        fleet.add(new Car(1000001, 'B', "Kia", true));
+        fleet.add(new Car(1000002, 'B', "Kia", true));
+        VehicleScheduler scheduler = new VehicleScheduler(fleet);
+
+        ArrayList<Rent> requests = new ArrayList<Rent>();
+        requests.add(rent('B', "Kia", true, 0, 3));
+        requests.add(rent('B', "Kia", true, 3, 5)); // picked up on the return day of the first
+        requests.add(rent('B', "Kia", true, 4, 6)); // picked up the day after it
+        ArrayList<Rent> result = scheduler.assign(requests);
+
+        Check.equal(1000001, result.get(0).getCar().getId(), "the first rental gets the first car");
+        Check.equal(1000002, result.get(1).getCar().getId(), "the first car is still taken on its return day");
+        Check.equal(1000001, result.get(2).getCar().getId(), "the first car is free the day after");
+        Check.equal(2, scheduler.getCarsUsed(), "two cars are used");
+    }
+
+    private static void acceptsCarsWithoutBrand()
+    {
+        ArrayList<Car> fleet = new ArrayList<Car>();
+        fleet.add(new Car(1000001, 'B', "Kia", true));
+        fleet.add(new Car(1000002, 'B', null, true));
+        fleet.add(new Car(1000003, 'B', "Mazda", true));
+        VehicleScheduler scheduler = new VehicleScheduler(fleet);
+
+        ArrayList<Rent> result = scheduler.assign(single(rent('B', null, true, 0, 3)));
+        Check.equal(1000002, result.get(0).getCar().getId(), "a car without a brand gets its own class");
+        Check.equal(0, scheduler.getUpgrades(), "no upgrade for a car without a brand");
+    }
+
+    private static void usesFewestCars()
+    {
+        Random random = new Random(1);
+        ArrayList<Car> fleet = new ArrayList<Car>();
+        for (int i = 0; i < 500; i++)
+            fleet.add(new Car(1000000 + i, 'C', "Kia", false));
+        ArrayList<Rent> requests = new ArrayList<Rent>();
+        int[] rentalsOnDay = new int[500];
+        for (int i = 0; i < 1000; i++)
+        {
+            int pick = random.nextInt(400);
+            int ret = pick + 1 + random.nextInt(20);
+            requests.add(rent('C', "Kia", false, pick, ret));
+            for (int day = pick; day <= ret; day++)
+                rentalsOnDay[day]++;
+        }
+        int most = 0;
+        for (int count : rentalsOnDay)
+            most = Math.max(most, count);
+
+        VehicleScheduler scheduler = new VehicleScheduler(fleet);
+        scheduler.assign(requests);
+        Check.equal(most, scheduler.getCarsUsed(), "the cars used are the most rentals on a single day");
+        Check.equal(0, scheduler.getUpgrades(), "no upgrades when the fleet is large enough");
+    }
+
+    private static void neverDoubleBooks()
+    {
+        Random random = new Random(2);
+        ArrayList<Car> fleet = new ArrayList<Car>();
+        for (int i = 0; i < 60; i++)
+            fleet.add(new Car(1000000 + i, (char)('A' + random.nextInt(4)), _BRANDS[random.nextInt(_BRANDS.length)],
+                              random.nextBoolean()));
+        ArrayList<Rent> requests = new ArrayList<Rent>();
+        for (int i = 0; i < 2000; i++)
+        {
+            int pick = random.nextInt(300);
+            requests.add(rent((char)('A' + random.nextInt(4)), _BRANDS[random.nextInt(_BRANDS.length)],
+                              random.nextBoolean(), pick, pick + 1 + random.nextInt(10)));
+        }
+
+        VehicleScheduler scheduler = new VehicleScheduler(fleet);
+        ArrayList<Rent> result = scheduler.assign(requests);
+        HashMap<Long, Integer> bookings = new HashMap<Long, Integer>(); // car id * 100000 + day
+        int upgrades = 0;
+        for (int i = 0; i < requests.size(); i++)
+        {
+            Rent request = requests.get(i);
+            Rent assigned = result.get(i);
+            if (assigned == null)
+                continue;
+            Car wanted = request.getCar();
+            Car car = assigned.getCar();
+            Check.isTrue(car.equals(wanted) || car.better(wanted), "request " + i + " gets its class or a better one");
+            if (!car.equals(wanted))
+                upgrades++;
+            for (int day = request.getPickDate().toEpochDay(); day <= request.getReturnDate().toEpochDay(); day++)
+            {
+                Integer other = bookings.put(car.getId() * 100000L + day, i);
+                Check.isTrue(other == null, "car " + car.getId() + " is booked once on day " + day);
+            }
+        }
+        Check.equal(upgrades, scheduler.getUpgrades(), "number of upgrades");
+    }
+
+    private static ArrayList<Rent> single(Rent request)
+    {
+        ArrayList<Rent> requests = new ArrayList<Rent>();
+        requests.add(request);
+        return requests;
+    }
+
+    private static Rent rent(char type, String brand, boolean isManual, int pick, int ret)
+    {
+        return new Rent("Rama", new Car(9999999, type, brand, isManual), Date.fromEpochDay(_FIRST_DAY + pick),
+                        Date.fromEpochDay(_FIRST_DAY + ret));
+    }
+}
@@ -0,0 +1,15 @@
+#!/bin/sh
+# Compiles the project and runs every test program in this folder.
+# Run it from the project directory: sh test/run.sh
+# Exits with status 1 if any test failed.
+set -e
+out=$(mktemp -d)
+trap 'rm -rf "$out"' EXIT
+javac -encoding UTF-8 -d "$out" *.java test/*.java
+
+status=0
+for test in test/*Test.java
+do
+    java -cp "$out" "$(basename "$test" .java)" || status=1
+done
+exit $status